@@ -0,0 +1,18 @@
+package dev.amirgol.biterate.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Settings for the in-process cache of rating analytics. Results are only seconds old at most, which dashboards
+ * polling the same views do not notice.
+ */
+@Data
+@ConfigurationProperties(prefix = "biterate.analytics-cache")
+public class AnalyticsCacheProperties {
+    private boolean enabled = true;
+    private long maximumSize = 10_000;
+    private Duration ttl = Duration.ofSeconds(30);
+}
@@ -0,0 +1,9 @@
+package dev.amirgol.biterate.config;
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@EnableConfigurationProperties({AnalyticsProperties.class, AnalyticsCacheProperties.class})
+public class AnalyticsConfig {
+}
@@ -0,0 +1,19 @@
+package dev.amirgol.biterate.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Limits of the rating analytics queries. Trends without an explicit range cover the last {@code defaultTrendRange}
+ * and may not span more than {@code maxTrendBuckets} buckets.
+ */
+@Data
+@ConfigurationProperties(prefix = "biterate.analytics")
+public class AnalyticsProperties {
+    private Duration defaultTrendRange = Duration.ofDays(90);
+    private int maxTrendBuckets = 400;
+    private int defaultTopSize = 10;
+    private int maxTopSize = 100;
+}
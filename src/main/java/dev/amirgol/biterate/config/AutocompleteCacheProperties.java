@@ -0,0 +1,20 @@
+package dev.amirgol.biterate.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Settings for the in-process autocomplete cache. Locations are snapped to a grid of {@code cellDegrees} so that
+ * users typing the same prefix in the same area share entries; the cache's frequency-based admission keeps the
+ * most popular prefixes once {@code maximumSize} is reached.
+ */
+@Data
+@ConfigurationProperties(prefix = "biterate.autocomplete-cache")
+public class AutocompleteCacheProperties {
+    private boolean enabled = true;
+    private long maximumSize = 10_000;
+    private Duration ttl = Duration.ofMinutes(5);
+    private double cellDegrees = 0.05;
+}
@@ -0,0 +1,19 @@
+package dev.amirgol.biterate.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Settings for restaurant autocomplete. When the caller's location is known, text relevance is multiplied by a
+ * gaussian distance decay that is 1 within {@code decayOffset}, 0.5 at {@code decayOffset + decayScale} and keeps
+ * falling beyond that, so nearby matches rank first without hiding distant ones.
+ */
+@Data
+@ConfigurationProperties(prefix = "biterate.autocomplete")
+public class AutocompleteProperties {
+    private int defaultSize = 8;
+    private int maxSize = 20;
+    private int maxPrefixLength = 64;
+    private String decayOffset = "500m";
+    private String decayScale = "5km";
+}
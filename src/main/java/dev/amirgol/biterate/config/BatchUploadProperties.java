@@ -0,0 +1,15 @@
+package dev.amirgol.biterate.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Settings for the batch photo upload endpoint. Files of one batch are stored in MinIO on a shared pool of
+ * {@code parallelism} threads; {@code maxFiles} caps the number of parts accepted per request.
+ */
+@Data
+@ConfigurationProperties(prefix = "biterate.batch-upload")
+public class BatchUploadProperties {
+    private int maxFiles = 500;
+    private int parallelism = 8;
+}
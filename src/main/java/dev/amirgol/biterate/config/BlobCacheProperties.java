@@ -0,0 +1,39 @@
+package dev.amirgol.biterate.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.file.Path;
+
+/**
+ * Settings for the read-through blob cache in front of MinIO.
+ * <p>
+ * Objects up to {@code memory.maxObjectSize} are kept on the heap, objects up to {@code disk.maxObjectSize} are
+ * kept as files under {@code disk.directory}, and anything larger is always streamed from MinIO. Each tier is
+ * bounded by its total {@code maxSize} and evicts with Caffeine's size-aware W-TinyLFU policy. At most
+ * {@code fillConcurrency} objects are copied from MinIO into the cache at a time.
+ * </p>
+ */
+@Data
+@ConfigurationProperties(prefix = "biterate.blob-cache")
+public class BlobCacheProperties {
+    private boolean enabled = true;
+    private int fillConcurrency = 8;
+    private Memory memory = new Memory();
+    private Disk disk = new Disk();
+
+    @Data
+    public static class Memory {
+        private DataSize maxSize = DataSize.ofMegabytes(64);
+        private DataSize maxObjectSize = DataSize.ofKilobytes(256);
+    }
+
+    @Data
+    public static class Disk {
+        private boolean enabled = true;
+        private Path directory = Path.of(System.getProperty("java.io.tmpdir"), "biterate-blob-cache");
+        private DataSize maxSize = DataSize.ofGigabytes(2);
+        private DataSize maxObjectSize = DataSize.ofMegabytes(32);
+    }
+}
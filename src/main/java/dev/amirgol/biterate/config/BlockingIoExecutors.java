@@ -0,0 +1,92 @@
+package dev.amirgol.biterate.config;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Creates the bounded executors used for blocking MinIO and Elasticsearch calls.
+ * <p>
+ * With {@code spring.threads.virtual.enabled=true} (which also moves Tomcat request handling onto virtual threads)
+ * every task gets its own virtual thread and {@code concurrency} only caps how many run at once. Otherwise a fixed
+ * pool of platform threads with a bounded queue and caller-runs backpressure is used. CPU-bound work such as image
+ * encoding deliberately does not go through here: it gains nothing from virtual threads and keeps its own
+ * platform pool.
+ * </p>
+ * <p>
+ * Callers that have a cheaper fallback than waiting, or must not hold the submitting thread for long, use
+ * {@link #createRejecting(String, int, Duration)}, which rejects instead of applying backpressure.
+ * </p>
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class BlockingIoExecutors {
+    private final Environment environment;
+
+    public ExecutorService create(String name, int concurrency) {
+        if (Threading.VIRTUAL.isActive(environment)) {
+            log.debug("Using virtual threads for executor: {}", name);
+            return new BoundedVirtualThreadExecutor(name, concurrency, null);
+        }
+
+        return new ThreadPoolExecutor(
+                concurrency, concurrency,
+                60L, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(concurrency * 4),
+                threadFactory(name),
+                new ThreadPoolExecutor.CallerRunsPolicy()
+        );
+    }
+
+    /**
+     * An executor that never runs a task on the submitting thread. A task that cannot start within {@code maxWait}
+     * because {@code concurrency} tasks are already running is rejected with a {@link RejectedExecutionException}.
+     */
+    public ExecutorService createRejecting(String name, int concurrency, Duration maxWait) {
+        if (Threading.VIRTUAL.isActive(environment)) {
+            log.debug("Using virtual threads for executor: {}", name);
+            return new BoundedVirtualThreadExecutor(name, concurrency, maxWait);
+        }
+
+        // No queue: a task is handed straight to an idle thread, waiting up to maxWait for one to become idle
+        return new ThreadPoolExecutor(
+                concurrency, concurrency,
+                60L, TimeUnit.SECONDS,
+                new SynchronousQueue<>(),
+                threadFactory(name),
+                (task, executor) -> {
+                    try {
+                        if (executor.isShutdown()
+                                || !executor.getQueue().offer(task, maxWait.toNanos(), TimeUnit.NANOSECONDS)) {
+                            throw new RejectedExecutionException("No free thread within " + maxWait);
+                        }
+                    } catch (InterruptedException exception) {
+                        Thread.currentThread().interrupt();
+                        throw new RejectedExecutionException("Interrupted while waiting for a free thread", exception);
+                    }
+                }
+        );
+    }
+
+    private static ThreadFactory threadFactory(String name) {
+        AtomicInteger threadCount = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, name + "-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
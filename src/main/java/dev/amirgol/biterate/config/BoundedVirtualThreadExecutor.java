@@ -0,0 +1,87 @@
+package dev.amirgol.biterate.config;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Starts a new virtual thread per task while capping how many run at once.
+ * <p>
+ * Virtual threads are cheap enough that they must not be pooled, but the downstream service still needs a bound on
+ * concurrent calls. The cap is a semaphore acquired by the submitting thread, so a saturated executor slows
+ * producers down instead of queueing without limit, much like a pool with a caller-runs policy. With a
+ * {@code maxWait}, the submitting thread gives up after that long and the task is rejected instead.
+ * </p>
+ */
+class BoundedVirtualThreadExecutor extends AbstractExecutorService {
+    private final Semaphore permits;
+    private final Duration maxWait;
+    private final ExecutorService delegate;
+
+    /**
+     * @param maxWait how long {@link #execute(Runnable)} waits for a free slot before rejecting the task, or
+     *                {@code null} to wait as long as it takes
+     */
+    BoundedVirtualThreadExecutor(String name, int concurrency, Duration maxWait) {
+        this.permits = new Semaphore(concurrency);
+        this.maxWait = maxWait;
+        this.delegate = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name(name + "-", 1).factory());
+    }
+
+    @Override
+    public void execute(Runnable task) {
+        try {
+            if (maxWait == null) {
+                permits.acquire();
+            } else if (!permits.tryAcquire(maxWait.toNanos(), TimeUnit.NANOSECONDS)) {
+                throw new RejectedExecutionException("No free slot within " + maxWait);
+            }
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            throw new RejectedExecutionException("Interrupted while waiting for a free slot", exception);
+        }
+
+        try {
+            delegate.execute(() -> {
+                try {
+                    task.run();
+                } finally {
+                    permits.release();
+                }
+            });
+        } catch (RejectedExecutionException exception) {
+            permits.release();
+            throw exception;
+        }
+    }
+
+    @Override
+    public void shutdown() {
+        delegate.shutdown();
+    }
+
+    @Override
+    public List<Runnable> shutdownNow() {
+        return delegate.shutdownNow();
+    }
+
+    @Override
+    public boolean isShutdown() {
+        return delegate.isShutdown();
+    }
+
+    @Override
+    public boolean isTerminated() {
+        return delegate.isTerminated();
+    }
+
+    @Override
+    public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+        return delegate.awaitTermination(timeout, unit);
+    }
+}
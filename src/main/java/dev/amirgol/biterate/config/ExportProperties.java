@@ -0,0 +1,34 @@
+package dev.amirgol.biterate.config;
+
+import dev.amirgol.biterate.domain.enums.ExportTarget;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * Settings for NDJSON exports. Each slice pages through a point-in-time with {@code search_after},
+ * {@code pageSize} documents at a time; {@code keepAlive} only needs to cover the gap between two pages.
+ * <p>
+ * Setting {@code cli.target} and {@code cli.output} turns the application into a one-shot exporter that writes
+ * the file (gzip-compressed when the name ends in {@code .gz}) and exits, e.g.
+ * {@code --biterate.export.cli.target=RESTAURANTS --biterate.export.cli.output=restaurants.ndjson.gz
+ * --spring.main.web-application-type=none}.
+ * </p>
+ */
+@Data
+@ConfigurationProperties(prefix = "biterate.export")
+public class ExportProperties {
+    private int pageSize = 1000;
+    private int maxSlices = 8;
+    private Duration keepAlive = Duration.ofMinutes(1);
+    private Cli cli = new Cli();
+
+    @Data
+    public static class Cli {
+        private ExportTarget target;
+        private Path output;
+        private int slices = 1;
+    }
+}
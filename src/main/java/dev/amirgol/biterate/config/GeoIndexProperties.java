@@ -0,0 +1,26 @@
+package dev.amirgol.biterate.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Settings for the in-process restaurant geo index that answers nearby searches without querying Elasticsearch.
+ * <p>
+ * Restaurants are bucketed into grid cells of {@code cellDegrees} on each side. Changed restaurants are re-read
+ * every {@code syncInterval}, and the whole index is rebuilt every {@code reloadInterval} to pick up changes no
+ * event was published for, such as deletes. With {@code storeCards}, the card fields of every restaurant are kept
+ * off-heap next to the index and list responses are built without reading from Elasticsearch.
+ * </p>
+ */
+@Data
+@ConfigurationProperties(prefix = "biterate.geo-index")
+public class GeoIndexProperties {
+    private boolean enabled = false;
+    private double cellDegrees = 0.05;
+    private Duration syncInterval = Duration.ofSeconds(1);
+    private Duration reloadInterval = Duration.ofMinutes(15);
+    private int loadBatchSize = 1000;
+    private boolean storeCards = true;
+}
@@ -0,0 +1,54 @@
+package dev.amirgol.biterate.config;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Settings for the managed Elasticsearch indices. Each document index name is an alias in front of a versioned
+ * index created from an index template; {@code indices} holds the settings per alias, and aliases without an entry
+ * use {@code defaults}. An entry replaces the built-in one as a whole.
+ * <p>
+ * An index that only lacks fields of the current mapping is updated in place. When its mapping or shard count
+ * differs otherwise, startup fails unless {@code biterate.migration.reindex-drifted-indices} is set, in which case
+ * the documents are copied to a new index and the alias is moved to it. The previous index is deleted afterwards
+ * unless {@code keepPreviousIndex} is set.
+ * </p>
+ */
+@Data
+@ConfigurationProperties(prefix = "biterate.index-lifecycle")
+public class IndexLifecycleProperties {
+    private boolean enabled = true;
+    private boolean keepPreviousIndex = false;
+    /**
+     * How often a running reindex task is polled for completion.
+     */
+    private Duration reindexPollInterval = Duration.ofSeconds(5);
+    private ManagedIndex defaults = new ManagedIndex();
+    private Map<String, ManagedIndex> indices = new HashMap<>(Map.of(
+            // Searched and sorted on every list request; changes should show up quickly
+            "restaurant", new ManagedIndex(1, 1, "1s"),
+            // Written in bulk by the write-behind buffer, which already delays visibility
+            "reviews", new ManagedIndex(1, 1, "5s"),
+            "photos", new ManagedIndex(1, 1, "1s"),
+            // Only read by id, which is real-time regardless of refreshes
+            "photo_blobs", new ManagedIndex(1, 1, "30s")));
+
+    public ManagedIndex settingsFor(String alias) {
+        return indices.getOrDefault(alias, defaults);
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class ManagedIndex {
+        private int shards = 1;
+        private int replicas = 1;
+        private String refreshInterval = "1s";
+    }
+}
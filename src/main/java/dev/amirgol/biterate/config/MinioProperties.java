@@ -1,7 +1,12 @@
 package dev.amirgol.biterate.config;
 
+import dev.amirgol.biterate.domain.enums.StorageKeyLayout;
 import lombok.Data;
 import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.util.ArrayList;
+import java.util.List;
 
 @Data
 @ConfigurationProperties(prefix = "minio")
@@ -10,5 +15,42 @@ public class MinioProperties {
     private String accessKey;
     private String secretKey;
     private String bucket;
-}
+    private Multipart multipart = new Multipart();
+    private Layout layout = new Layout();
 
+    /**
+     * Parallel part upload settings for large files.
+     * <p>
+     * Files of at least {@code threshold} bytes are split into {@code partSize} chunks that are uploaded
+     * concurrently and composed server-side. At most {@code parallelism} parts of a single upload are in memory or
+     * in flight at once, and {@code threads} bounds the shared upload pool across all uploads. MinIO requires every
+     * part except the last to be at least 5 MiB.
+     * </p>
+     */
+    @Data
+    public static class Multipart {
+        private boolean enabled = true;
+        private DataSize threshold = DataSize.ofMegabytes(16);
+        private DataSize partSize = DataSize.ofMegabytes(8);
+        private int parallelism = 4;
+        private int threads = 16;
+        private int maxAttempts = 3;
+    }
+
+    /**
+     * How newly stored objects are named and spread over buckets.
+     * <p>
+     * {@code strategy} picks the {@code ObjectKeyLayout}; {@code shardDepth} is the number of two-hex-digit hash
+     * levels the hash based layouts prefix keys with. When {@code buckets} is not empty, new objects are distributed
+     * over those buckets by content hash instead of going to {@code bucket}; the chosen bucket becomes the first
+     * segment of the storage key, so existing keys keep resolving when the list grows. Temporary uploads and objects
+     * stored under the original layout stay in {@code bucket}.
+     * </p>
+     */
+    @Data
+    public static class Layout {
+        private StorageKeyLayout strategy = StorageKeyLayout.HASH_PREFIX;
+        private int shardDepth = 2;
+        private List<String> buckets = new ArrayList<>();
+    }
+}
@@ -0,0 +1,19 @@
+package dev.amirgol.biterate.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Settings for the in-process {@code Photo} metadata cache. Lookups that found no photo are cached as well, for the
+ * shorter {@code negativeTtl}.
+ */
+@Data
+@ConfigurationProperties(prefix = "biterate.photo-cache")
+public class PhotoCacheProperties {
+    private boolean enabled = true;
+    private long maximumSize = 100_000;
+    private Duration ttl = Duration.ofHours(1);
+    private Duration negativeTtl = Duration.ofSeconds(30);
+}
@@ -0,0 +1,28 @@
+package dev.amirgol.biterate.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+
+/**
+ * Settings for serving photo bytes straight from MinIO through presigned URLs instead of through this application.
+ * <p>
+ * When {@code enabled}, clients upload with a presigned PUT valid for {@code uploadTtl} and complete the upload
+ * afterwards, and views and downloads redirect to a presigned GET valid for {@code downloadTtl}. A presigned PUT
+ * cannot limit the body size, so an upload larger than {@code maxUploadSize} is rejected and removed on
+ * completion. Presigned GETs are reused until {@code refreshMargin} before they expire, so a client is never handed
+ * a URL with less than that left; at most {@code maximumSize} of them are kept.
+ * </p>
+ */
+@Data
+@ConfigurationProperties(prefix = "biterate.presigned-urls")
+public class PresignedUrlProperties {
+    private boolean enabled = false;
+    private Duration uploadTtl = Duration.ofMinutes(10);
+    private Duration downloadTtl = Duration.ofMinutes(15);
+    private Duration refreshMargin = Duration.ofMinutes(2);
+    private long maximumSize = 100_000;
+    private DataSize maxUploadSize = DataSize.ofMegabytes(20);
+}
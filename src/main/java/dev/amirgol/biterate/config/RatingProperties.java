@@ -0,0 +1,23 @@
+package dev.amirgol.biterate.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Settings for the restaurant rating aggregates. Every {@code flushInterval}, restaurants whose first new review is at
+ * least {@code settleDelay} old are recomputed from the reviews index, so a restaurant receiving many reviews at once
+ * sees one write instead of one per review. {@code settleDelay} must exceed the refresh interval of the reviews
+ * index, or the latest reviews are only counted by the next flush or reconcile. Every restaurant is reconciled
+ * {@code reconcileInitialDelay} after startup and every {@code reconcileInterval} after that.
+ */
+@Data
+@ConfigurationProperties(prefix = "biterate.ratings")
+public class RatingProperties {
+    private Duration flushInterval = Duration.ofSeconds(1);
+    private Duration settleDelay = Duration.ofSeconds(6);
+    private Duration reconcileInterval = Duration.ofHours(6);
+    private Duration reconcileInitialDelay = Duration.ofMinutes(1);
+    private int retryOnConflict = 5;
+}
@@ -0,0 +1,72 @@
+package dev.amirgol.biterate.config;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Settings for on-the-fly image renditions.
+ * <p>
+ * Decoding and encoding run on a dedicated pool of {@code threads} workers with at most {@code queueCapacity}
+ * waiting jobs; requests beyond that are rejected with 503 instead of piling up on the request threads.
+ * </p>
+ */
+@Data
+@ConfigurationProperties(prefix = "biterate.renditions")
+public class RenditionProperties {
+    private int maxDimension = 4096;
+    /**
+     * Originals with more pixels than this are not decoded; it bounds the heap a single decode can take.
+     */
+    private long maxSourcePixels = 50_000_000;
+    private float jpegQuality = 0.85f;
+    private int threads = Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+    private int queueCapacity = 64;
+    private long knownRenditionsCacheSize = 100_000;
+    private List<StandardRendition> standard = new ArrayList<>(List.of(
+            new StandardRendition("thumb", 160, 160, "jpg"),
+            new StandardRendition("card", 640, 480, "jpg"),
+            new StandardRendition("full", 1920, 1920, "jpg")
+    ));
+    private Pipeline pipeline = new Pipeline();
+
+    /**
+     * A rendition generated eagerly for every uploaded image. A {@code width} or {@code height} of zero leaves that
+     * side unconstrained.
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class StandardRendition {
+        private String name;
+        private int width;
+        private int height;
+        private String format;
+    }
+
+    /**
+     * Background generation of the standard renditions after upload.
+     * <p>
+     * Uploads wait at most {@code offerTimeout} for room in the queue of {@code queueCapacity} photos; if it stays
+     * full the photo is left {@code PENDING} and picked up by the next sweep, which also runs at startup so
+     * interrupted work resumes after a restart. Each of the {@code workers} takes up to {@code batchSize} photos at
+     * a time and records their renditions with a single bulk update. A photo whose renditions fail is marked
+     * {@code FAILED} and retried by later sweeps until it has failed {@code maxAttempts} times.
+     * </p>
+     */
+    @Data
+    public static class Pipeline {
+        private boolean enabled = true;
+        private int workers = 2;
+        private int queueCapacity = 1000;
+        private int batchSize = 16;
+        private Duration offerTimeout = Duration.ofMillis(100);
+        private Duration sweepInterval = Duration.ofMinutes(5);
+        private int maxAttempts = 3;
+    }
+}
@@ -0,0 +1,34 @@
+package dev.amirgol.biterate.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+
+/**
+ * Settings for bulk restaurant imports. Parsed records are buffered into bulk requests that are sent once they
+ * reach {@code maxOperations} documents or {@code maxRequestSize} bytes, or after {@code flushInterval}. At most
+ * {@code maxConcurrentRequests} bulk requests are in flight; the parser blocks until one completes, which keeps
+ * memory flat regardless of file size. Items rejected with 429 are retried up to {@code maxRetries} times with
+ * exponential backoff starting at {@code initialBackoff}.
+ */
+@Data
+@ConfigurationProperties(prefix = "biterate.restaurant-import")
+public class RestaurantImportProperties {
+    private int maxOperations = 1000;
+    private DataSize maxRequestSize = DataSize.ofMegabytes(5);
+    private int maxConcurrentRequests = 2;
+    private Duration flushInterval = Duration.ofSeconds(1);
+    private int maxRetries = 5;
+    private Duration initialBackoff = Duration.ofMillis(200);
+    /**
+     * Longest NDJSON line or CSV row accepted, in characters. A longer NDJSON line is rejected on its own; a longer
+     * CSV row ends the import, since a runaway quoted field leaves no row boundary to resume from.
+     */
+    private int maxRecordLength = 64 * 1024;
+    /**
+     * Number of individual record errors included in the import report; all errors are counted.
+     */
+    private int maxReportedErrors = 100;
+}
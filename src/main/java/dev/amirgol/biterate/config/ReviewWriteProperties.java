@@ -0,0 +1,35 @@
+package dev.amirgol.biterate.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * Settings for accepting reviews into a journaled write-behind buffer instead of indexing each one in the request.
+ * <p>
+ * Accepted reviews are appended to segments of {@code segmentSize} under {@code journalDirectory}, which must
+ * survive restarts, and are written with bulk requests of up to {@code maxOperations} reviews or
+ * {@code maxRequestSize}, at least every {@code flushInterval}. Idempotency keys are remembered for
+ * {@code idempotencyKeyTtl} to answer retries without another write; after that, retries are still deduplicated by
+ * Elasticsearch, since a key always maps to the same review id.
+ * </p>
+ */
+@Data
+@ConfigurationProperties(prefix = "biterate.review-writes")
+public class ReviewWriteProperties {
+    private boolean writeBehind = true;
+    private Path journalDirectory = Path.of("review-journal");
+    private DataSize segmentSize = DataSize.ofMegabytes(64);
+    private int maxOperations = 500;
+    private DataSize maxRequestSize = DataSize.ofMegabytes(5);
+    private int maxConcurrentRequests = 2;
+    private Duration flushInterval = Duration.ofMillis(200);
+    private int maxRetries = 5;
+    private Duration initialBackoff = Duration.ofMillis(200);
+    private int maxIdempotencyKeyLength = 200;
+    private Duration idempotencyKeyTtl = Duration.ofHours(24);
+    private long idempotencyKeyCacheSize = 100_000;
+}
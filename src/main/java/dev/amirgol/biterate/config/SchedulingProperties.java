@@ -0,0 +1,15 @@
+package dev.amirgol.biterate.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Settings for the scheduler that runs every {@code @Scheduled} job. Jobs with a fixed delay never overlap
+ * themselves, but with {@code poolSize} threads a long job, such as a geo index reload, does not hold up the
+ * short periodic ones, such as rating flushes.
+ */
+@Data
+@ConfigurationProperties(prefix = "biterate.scheduling")
+public class SchedulingProperties {
+    private int poolSize = 4;
+}
@@ -0,0 +1,27 @@
+package dev.amirgol.biterate.config;
+
+import dev.amirgol.biterate.domain.enums.StreamingMode;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+
+/**
+ * Settings for streamed responses such as photos and exports.
+ * <p>
+ * {@code timeout} bounds how long one such response may take. In {@link StreamingMode#ASYNC} mode
+ * {@code maxConcurrentStreams} caps the responses being copied at once; beyond it new streams wait up to
+ * {@code admissionTimeout} for a slot and are then answered with 503, instead of queueing without limit. {@code bufferSize} is the copy buffer per photo stream, so memory per slow client stays
+ * fixed however large the photo is.
+ * </p>
+ */
+@Data
+@ConfigurationProperties(prefix = "biterate.streaming")
+public class StreamingProperties {
+    private StreamingMode mode = StreamingMode.ASYNC;
+    private Duration timeout = Duration.ofHours(1);
+    private int maxConcurrentStreams = 256;
+    private Duration admissionTimeout = Duration.ofSeconds(5);
+    private DataSize bufferSize = DataSize.ofKilobytes(16);
+}
@@ -0,0 +1,53 @@
+package dev.amirgol.biterate.config;
+
+import dev.amirgol.biterate.domain.enums.StreamingMode;
+import jakarta.annotation.PreDestroy;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.SyncTaskExecutor;
+import org.springframework.core.task.support.TaskExecutorAdapter;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Runs {@code StreamingResponseBody} copies according to {@link StreamingProperties#getMode()}.
+ * <p>
+ * In {@link StreamingMode#ASYNC} mode they go to a bounded blocking I/O executor rather than the shared application
+ * task executor, whose unbounded queue would let slow clients pile up behind each other. A stream that finds no free
+ * slot within the admission timeout is rejected, which the request sees as 503, rather than holding the request
+ * thread while it waits. The executor is deliberately not a bean so it does not displace the auto-configured
+ * application task executor.
+ * </p>
+ */
+@Configuration
+@EnableConfigurationProperties(StreamingProperties.class)
+public class WebConfig implements WebMvcConfigurer {
+    private final StreamingProperties streamingProperties;
+    private final ExecutorService streamingExecutor;
+
+    public WebConfig(StreamingProperties streamingProperties, BlockingIoExecutors blockingIoExecutors) {
+        this.streamingProperties = streamingProperties;
+        this.streamingExecutor = streamingProperties.getMode() == StreamingMode.ASYNC
+                ? blockingIoExecutors.createRejecting("streaming", streamingProperties.getMaxConcurrentStreams(),
+                        streamingProperties.getAdmissionTimeout())
+                : null;
+    }
+
+    @Override
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        configurer.setDefaultTimeout(streamingProperties.getTimeout().toMillis());
+        configurer.setTaskExecutor(streamingExecutor != null
+                ? new TaskExecutorAdapter(streamingExecutor)
+                : new TaskExecutorAdapter(new SyncTaskExecutor()));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (streamingExecutor != null) {
+            streamingExecutor.shutdownNow();
+        }
+    }
+
+}
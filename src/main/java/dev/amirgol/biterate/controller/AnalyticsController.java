@@ -0,0 +1,76 @@
+package dev.amirgol.biterate.controller;
+
+import dev.amirgol.biterate.domain.dto.RatingDistribution;
+import dev.amirgol.biterate.domain.dto.RatingTrendPoint;
+import dev.amirgol.biterate.domain.dto.TopRatedRestaurant;
+import dev.amirgol.biterate.domain.enums.TrendInterval;
+import dev.amirgol.biterate.service.AnalyticsService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Tag(name = "Analytics", description = "Rating distributions, trends and rankings computed by Elasticsearch")
+@RestController
+@RequiredArgsConstructor
+@RequestMapping("/api/v1/analytics")
+public class AnalyticsController {
+
+    private final AnalyticsService analyticsService;
+
+    @Operation(summary = "Rating distribution of a restaurant", description = "Counts the restaurant's reviews per star rating")
+    @GetMapping("/restaurants/{restaurantId}/ratings")
+    public ResponseEntity<RatingDistribution> restaurantDistribution(@PathVariable String restaurantId) {
+        return ResponseEntity.ok(analyticsService.restaurantDistribution(restaurantId));
+    }
+
+    @Operation(summary = "Rating distributions per cuisine", description = "Counts all ratings per cuisine and star rating")
+    @GetMapping("/cuisines/ratings")
+    public ResponseEntity<List<RatingDistribution>> cuisineDistributions() {
+        return ResponseEntity.ok(analyticsService.cuisineDistributions());
+    }
+
+    @Operation(
+            summary = "Rating trend",
+            description = "Review count and average rating per calendar period, for one restaurant or all of them",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "One point per period, including empty ones"),
+                    @ApiResponse(responseCode = "400", description = "Empty range or too many periods")
+            }
+    )
+    @GetMapping("/ratings/trend")
+    public ResponseEntity<List<RatingTrendPoint>> trend(
+            @Parameter(description = "Restaurant to limit the trend to")
+            @RequestParam(required = false) String restaurantId,
+            @RequestParam(defaultValue = "WEEK") TrendInterval interval,
+            @Parameter(description = "Start of the range, e.g. 2025-01-01T00:00:00")
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @Parameter(description = "End of the range (exclusive); defaults to now")
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to
+    ) {
+        return ResponseEntity.ok(analyticsService.trend(restaurantId, interval, from, to));
+    }
+
+    @Operation(summary = "Top rated restaurants", description = "Restaurants with the highest average rating from reviews posted since the given time")
+    @GetMapping("/restaurants/top")
+    public ResponseEntity<List<TopRatedRestaurant>> topRated(
+            @Parameter(description = "Only count reviews posted since then")
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime since,
+            @Parameter(description = "Minimum number of reviews to be ranked")
+            @RequestParam(defaultValue = "5") int minReviews,
+            @RequestParam(defaultValue = "0") int size
+    ) {
+        return ResponseEntity.ok(analyticsService.topRated(since, minReviews, size));
+    }
+}
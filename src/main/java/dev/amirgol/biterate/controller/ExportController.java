@@ -0,0 +1,72 @@
+package dev.amirgol.biterate.controller;
+
+import dev.amirgol.biterate.config.ExportProperties;
+import dev.amirgol.biterate.domain.enums.ExportTarget;
+import dev.amirgol.biterate.exception.BiteRateException;
+import dev.amirgol.biterate.service.ExportService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.util.Locale;
+import java.util.zip.GZIPOutputStream;
+
+@Tag(name = "Export", description = "Stream whole indices as NDJSON")
+@RestController
+@RequiredArgsConstructor
+@RequestMapping("/api/v1/export")
+public class ExportController {
+    private static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
+    private static final int GZIP_BUFFER_SIZE = 64 * 1024;
+
+    private final ExportService exportService;
+    private final ExportProperties exportProperties;
+
+    @Operation(
+            summary = "Export an index",
+            description = "Streams every document of the index as one JSON object per line, optionally gzipped",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "NDJSON stream"),
+                    @ApiResponse(responseCode = "400", description = "Invalid slice count")
+            }
+    )
+    @GetMapping("/{target}")
+    public ResponseEntity<StreamingResponseBody> export(
+            @PathVariable ExportTarget target,
+            @Parameter(description = "Number of slices read in parallel")
+            @RequestParam(defaultValue = "1") int slices,
+            @Parameter(description = "Compress the response with gzip")
+            @RequestParam(defaultValue = "false") boolean gzip
+    ) {
+        // Checked before the response is committed; once the body streams, a 400 can no longer be sent
+        if (slices < 1 || slices > exportProperties.getMaxSlices()) {
+            throw new BiteRateException("Slices must be between 1 and " + exportProperties.getMaxSlices());
+        }
+        String filename = target.name().toLowerCase(Locale.ROOT) + (gzip ? ".ndjson.gz" : ".ndjson");
+        StreamingResponseBody body = out -> {
+            if (gzip) {
+                GZIPOutputStream compressed = new GZIPOutputStream(out, GZIP_BUFFER_SIZE);
+                exportService.export(target, slices, compressed);
+                compressed.finish();
+            } else {
+                exportService.export(target, slices, out);
+            }
+        };
+        return ResponseEntity.ok()
+                .contentType(gzip ? MediaType.APPLICATION_OCTET_STREAM : NDJSON)
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment().filename(filename).build().toString())
+                .body(body);
+    }
+}
@@ -1,24 +1,47 @@
 package dev.amirgol.biterate.controller;
 
+import dev.amirgol.biterate.config.StreamingProperties;
+import dev.amirgol.biterate.domain.dto.BatchUploadItem;
+import dev.amirgol.biterate.domain.dto.BatchUploadResponse;
 import dev.amirgol.biterate.domain.dto.PhotoResponse;
+import dev.amirgol.biterate.domain.dto.PresignedUpload;
+import dev.amirgol.biterate.domain.dto.Rendition;
+import dev.amirgol.biterate.domain.dto.StoredContent;
 import dev.amirgol.biterate.domain.entites.Photo;
+import dev.amirgol.biterate.domain.enums.UploadStatus;
 import dev.amirgol.biterate.service.MinioService;
+import dev.amirgol.biterate.exception.BiteRateException;
+import dev.amirgol.biterate.service.PhotoService;
+import dev.amirgol.biterate.service.PresignedUrlService;
+import dev.amirgol.biterate.service.RenditionService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
-import org.springframework.core.io.InputStreamResource;
-import org.springframework.data.elasticsearch.core.ElasticsearchOperations;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.util.StringUtils;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.context.request.async.CallableProcessingInterceptor;
+import org.springframework.web.context.request.async.WebAsyncUtils;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
-import java.time.LocalDateTime;
-import java.util.UUID;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URI;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.Callable;
 
 @Tag(name = "Photo Management", description = "Upload, retrieve and delete photos")
 @RestController
@@ -27,7 +50,10 @@ import java.util.UUID;
 public class PhotoController {
 
     private final MinioService minIOService;
-    private final ElasticsearchOperations elasticsearchOperations;
+    private final PhotoService photoService;
+    private final RenditionService renditionService;
+    private final StreamingProperties streamingProperties;
+    private final Optional<PresignedUrlService> presignedUrlService;
 
     @Operation(
             summary = "Upload a photo",
@@ -45,24 +71,70 @@ public class PhotoController {
             @Parameter(description = "Photo file to upload", required = true)
             @RequestPart("file") MultipartFile file
     ) {
-        String storageKey = minIOService.uploadFile(file);
-
-        Photo photo = Photo.builder()
-                .id(UUID.randomUUID().toString())
-                .storageKey(storageKey)
-                .originalFilename(file.getOriginalFilename())
-                .contentType(file.getContentType())
-                .fileSize(file.getSize())
-                .uploadDate(LocalDateTime.now())
+        Photo savedPhoto = photoService.upload(file);
+        return ResponseEntity.ok(savedPhoto);
+    }
+
+    @Operation(
+            summary = "Upload many photos",
+            description = "Uploads all parts named 'files' in one request and reports success or failure per file",
+            requestBody = @io.swagger.v3.oas.annotations.parameters.RequestBody(
+                    content = @Content(mediaType = MediaType.MULTIPART_FORM_DATA_VALUE)
+            ),
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Batch processed; see per-item status"),
+                    @ApiResponse(responseCode = "400", description = "Invalid request")
+            }
+    )
+    @PostMapping(value = "/upload/batch", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<BatchUploadResponse> uploadBatch(
+            @Parameter(description = "Photo files to upload", required = true)
+            @RequestPart("files") List<MultipartFile> files
+    ) {
+        List<BatchUploadItem> items = photoService.uploadAll(files);
+        long succeeded = items.stream().filter(item -> item.getStatus() == UploadStatus.SUCCEEDED).count();
+
+        BatchUploadResponse response = BatchUploadResponse.builder()
+                .succeeded((int) succeeded)
+                .failed(items.size() - (int) succeeded)
+                .items(items)
                 .build();
+        return ResponseEntity.ok(response);
+    }
 
-        Photo savedPhoto = elasticsearchOperations.save(photo);
-        return ResponseEntity.ok(savedPhoto);
+    @Operation(
+            summary = "Start a direct upload",
+            description = "Returns a short-lived presigned PUT URL; the photo is registered once the upload is completed",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Presigned upload issued"),
+                    @ApiResponse(responseCode = "400", description = "Presigned URLs are disabled")
+            }
+    )
+    @PostMapping("/presigned-uploads")
+    public ResponseEntity<PresignedUpload> createPresignedUpload() {
+        return ResponseEntity.ok(presignedUrls().createUpload());
+    }
+
+    @Operation(
+            summary = "Complete a direct upload",
+            description = "Verifies the object sent to the presigned URL exists and registers it as a photo",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Photo registered"),
+                    @ApiResponse(responseCode = "400", description = "Upload not received, too large, or presigned URLs are disabled")
+            }
+    )
+    @PostMapping("/presigned-uploads/{uploadId}/complete")
+    public ResponseEntity<Photo> completePresignedUpload(
+            @PathVariable String uploadId,
+            @Parameter(description = "Original filename of the uploaded photo") @RequestParam(required = false) String filename
+    ) {
+        presignedUrls();
+        return ResponseEntity.ok(photoService.completeUpload(uploadId, filename));
     }
 
     @Operation(
             summary = "View a photo in browser",
-            description = "Displays the photo directly in the browser",
+            description = "Displays the photo directly in the browser; w, h and fmt request a resized rendition",
             responses = {
                     @ApiResponse(
                             responseCode = "200",
@@ -73,17 +145,37 @@ public class PhotoController {
             }
     )
     @GetMapping(value = "/view/{filename}", produces = MediaType.IMAGE_JPEG_VALUE)
-    public ResponseEntity<InputStreamResource> viewImage(@PathVariable String filename) {
-        Photo photo = elasticsearchOperations.get(filename, Photo.class);
+    public ResponseEntity<StreamingResponseBody> viewImage(
+            @PathVariable String filename,
+            @Parameter(description = "Maximum rendition width in pixels") @RequestParam(required = false) Integer w,
+            @Parameter(description = "Maximum rendition height in pixels") @RequestParam(required = false) Integer h,
+            @Parameter(description = "Rendition format: jpg or png") @RequestParam(required = false) String fmt,
+            ServletWebRequest webRequest
+    ) {
+        Photo photo = photoService.findById(filename).orElse(null);
         if (photo == null) {
             return ResponseEntity.notFound().build();
         }
 
-        InputStreamResource resource = new InputStreamResource(minIOService.downloadFile(photo.getStorageKey()));
+        StoredContent content = contentOf(photo);
+        if (w != null || h != null || fmt != null) {
+            Rendition rendition = renditionService.render(photo, w, h, fmt);
+            content = StoredContent.builder()
+                    .storageKey(rendition.getStorageKey())
+                    .contentType(rendition.getContentType())
+                    .fileSize(rendition.getFileSize())
+                    .eTag("\"" + contentHashOf(photo) + "-" + rendition.getName() + "\"")
+                    .lastModified(content.getLastModified())
+                    .build();
+        }
 
-        return ResponseEntity.ok()
-                .contentType(MediaType.parseMediaType(photo.getContentType()))
-                .body(resource);
+        if (presignedUrlService.isPresent()) {
+            return redirect(presignedUrlService.get().downloadUrl(content.getStorageKey(), null));
+        }
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.parseMediaType(content.getContentType()));
+        return serveContent(content, headers, webRequest);
     }
 
     @Operation(
@@ -99,24 +191,25 @@ public class PhotoController {
             }
     )
     @GetMapping("/download/{filename}")
-    public ResponseEntity<InputStreamResource> downloadImage(@PathVariable String filename) {
-        Photo photo = elasticsearchOperations.get(filename, Photo.class);
+    public ResponseEntity<StreamingResponseBody> downloadImage(@PathVariable String filename, ServletWebRequest webRequest) {
+        Photo photo = photoService.findById(filename).orElse(null);
         if (photo == null) {
             return ResponseEntity.notFound().build();
         }
 
-        InputStreamResource resource = new InputStreamResource(minIOService.downloadFile(photo.getStorageKey()));
+        if (presignedUrlService.isPresent()) {
+            return redirect(presignedUrlService.get().downloadUrl(photo.getStorageKey(), photo.getOriginalFilename()));
+        }
 
-        return ResponseEntity.ok()
-                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + photo.getOriginalFilename() + "\"")
-                .contentType(MediaType.APPLICATION_OCTET_STREAM)
-                .contentLength(photo.getFileSize())
-                .body(resource);
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + photo.getOriginalFilename() + "\"");
+        headers.setContentType(MediaType.APPLICATION_OCTET_STREAM);
+        return serveContent(contentOf(photo), headers, webRequest);
     }
 
     @GetMapping("/{filename}")
     public ResponseEntity<PhotoResponse> getPhotoInfo(@PathVariable String filename) {
-        Photo photo = elasticsearchOperations.get(filename, Photo.class);
+        Photo photo = photoService.findById(filename).orElse(null);
         if (photo == null) {
             return ResponseEntity.notFound().build();
         }
@@ -136,7 +229,7 @@ public class PhotoController {
 
     @Operation(
             summary = "Delete a photo",
-            description = "Deletes a photo from MinIO by object name",
+            description = "Deletes a photo; the stored object is removed once no other photo references it",
             responses = {
                     @ApiResponse(responseCode = "204", description = "Photo deleted"),
                     @ApiResponse(responseCode = "404", description = "Photo not found")
@@ -144,7 +237,154 @@ public class PhotoController {
     )
     @DeleteMapping("/delete/{fileName}")
     public ResponseEntity<Void> delete(@PathVariable String fileName) {
-        minIOService.deleteFile(fileName);
+        if (!photoService.delete(fileName)) {
+            return ResponseEntity.notFound().build();
+        }
         return ResponseEntity.noContent().build();
     }
+
+    private PresignedUrlService presignedUrls() {
+        return presignedUrlService.orElseThrow(() -> new BiteRateException("Presigned URLs are disabled"));
+    }
+
+    /**
+     * Sends the client to storage. The redirect itself must not be cached, since the URL it points to expires.
+     */
+    private ResponseEntity<StreamingResponseBody> redirect(String url) {
+        return ResponseEntity.status(HttpStatus.FOUND)
+                .location(URI.create(url))
+                .header(HttpHeaders.CACHE_CONTROL, "no-store")
+                .build();
+    }
+
+    /**
+     * Serves a stored photo or rendition with HTTP caching and range support.
+     * <p>
+     * Stored objects are content-addressed and immutable, so the content hash is a strong validator:
+     * {@code If-None-Match}/{@code If-Modified-Since} hits are answered with 304 before MinIO is touched, and a single
+     * satisfiable {@code Range} (honouring {@code If-Range}) is mapped onto an offset/length read answered with 206.
+     * Multi-range requests are served as the full representation.
+     * </p>
+     */
+    private ResponseEntity<StreamingResponseBody> serveContent(StoredContent content, HttpHeaders contentHeaders, ServletWebRequest webRequest) {
+        String eTag = content.getETag();
+        long lastModified = content.getLastModified();
+
+        if (webRequest.checkNotModified(eTag, lastModified)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).build();
+        }
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.addAll(contentHeaders);
+        headers.setETag(eTag);
+        if (lastModified >= 0) {
+            headers.setLastModified(lastModified);
+        }
+        headers.set(HttpHeaders.ACCEPT_RANGES, "bytes");
+
+        long fileSize = content.getFileSize();
+        HttpRange range = requestedRange(webRequest, eTag);
+        if (range != null) {
+            long start = range.getRangeStart(fileSize);
+            long end = range.getRangeEnd(fileSize);
+            if (start >= fileSize || start > end) {
+                return ResponseEntity.status(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE)
+                        .header(HttpHeaders.CONTENT_RANGE, "bytes */" + fileSize)
+                        .build();
+            }
+
+            long length = end - start + 1;
+            headers.set(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + fileSize);
+            headers.setContentLength(length);
+            return ResponseEntity.status(HttpStatus.PARTIAL_CONTENT)
+                    .headers(headers)
+                    .body(bodyOf(minIOService.downloadFile(content.getStorageKey(), start, length), webRequest));
+        }
+
+        headers.setContentLength(fileSize);
+        return ResponseEntity.ok()
+                .headers(headers)
+                .body(bodyOf(minIOService.downloadFile(content.getStorageKey()), webRequest));
+    }
+
+    /**
+     * Copies through a buffer of fixed size. In the default async streaming mode this runs after the request thread
+     * has been released, so a slow client only blocks the copy on its socket write, which in turn holds back the next
+     * read from MinIO. The object is opened before returning so a missing object still fails the request with a
+     * proper status rather than breaking a response that has already started.
+     * <p>
+     * Since the stream is opened before the copy is handed off, it is also closed when the async request ends,
+     * however it ends: a copy that times out or fails is cut off, and one that never started because no streaming
+     * slot was free (answered with 503) does not leak its MinIO connection.
+     * </p>
+     */
+    private StreamingResponseBody bodyOf(InputStream stream, ServletWebRequest webRequest) {
+        CallableProcessingInterceptor closeOnCompletion = new CallableProcessingInterceptor() {
+            @Override
+            public <T> void afterCompletion(NativeWebRequest request, Callable<T> task) {
+                closeQuietly(stream);
+            }
+        };
+        WebAsyncUtils.getAsyncManager(webRequest).registerCallableInterceptor(stream, closeOnCompletion);
+        int bufferSize = (int) streamingProperties.getBufferSize().toBytes();
+        return out -> copy(stream, out, bufferSize);
+    }
+
+    private static void closeQuietly(InputStream stream) {
+        try {
+            stream.close();
+        } catch (IOException ignored) {
+            // The response is over either way
+        }
+    }
+
+    private static void copy(InputStream stream, OutputStream out, int bufferSize) throws IOException {
+        try (InputStream in = stream) {
+            byte[] buffer = new byte[bufferSize];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                out.write(buffer, 0, read);
+            }
+        }
+    }
+
+    private HttpRange requestedRange(ServletWebRequest webRequest, String eTag) {
+        String rangeHeader = webRequest.getHeader(HttpHeaders.RANGE);
+        if (rangeHeader == null) {
+            return null;
+        }
+
+        String ifRange = webRequest.getHeader(HttpHeaders.IF_RANGE);
+        if (ifRange != null && !ifRange.equals(eTag)) {
+            return null;
+        }
+
+        try {
+            List<HttpRange> ranges = HttpRange.parseRanges(rangeHeader);
+            return ranges.size() == 1 ? ranges.get(0) : null;
+        } catch (IllegalArgumentException exception) {
+            return null;
+        }
+    }
+
+    private StoredContent contentOf(Photo photo) {
+        return StoredContent.builder()
+                .storageKey(photo.getStorageKey())
+                .contentType(photo.getContentType())
+                .fileSize(photo.getFileSize())
+                .eTag("\"" + contentHashOf(photo) + "\"")
+                .lastModified(photo.getUploadDate() == null
+                        ? -1
+                        : photo.getUploadDate().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli())
+                .build();
+    }
+
+    private String contentHashOf(Photo photo) {
+        if (photo.getContentHash() != null) {
+            return photo.getContentHash();
+        }
+        // Photos stored before deduplication have no contentHash; their object name embeds it and is just as immutable
+        String objectName = StringUtils.getFilename(photo.getStorageKey());
+        return StringUtils.stripFilenameExtension(objectName);
+    }
 }
@@ -0,0 +1,209 @@
+package dev.amirgol.biterate.controller;
+
+import dev.amirgol.biterate.domain.dto.AutocompleteSuggestion;
+import dev.amirgol.biterate.domain.dto.ImportReport;
+import dev.amirgol.biterate.domain.dto.NearbySearchRequest;
+import dev.amirgol.biterate.domain.dto.PageResponse;
+import dev.amirgol.biterate.domain.dto.RestaurantSearchResponse;
+import dev.amirgol.biterate.domain.dto.ReviewRequest;
+import dev.amirgol.biterate.domain.entites.Photo;
+import dev.amirgol.biterate.domain.entites.Review;
+import dev.amirgol.biterate.domain.enums.CuisineType;
+import dev.amirgol.biterate.domain.enums.ImportFormat;
+import dev.amirgol.biterate.exception.BiteRateException;
+import dev.amirgol.biterate.service.PhotoService;
+import dev.amirgol.biterate.service.RestaurantImportService;
+import dev.amirgol.biterate.service.RestaurantService;
+import dev.amirgol.biterate.service.ReviewService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Locale;
+
+@Tag(name = "Restaurants", description = "Find restaurants and browse their reviews and photos")
+@RestController
+@RequiredArgsConstructor
+@RequestMapping("/api/v1/restaurants")
+public class RestaurantController {
+
+    /**
+     * Offset paging stops at Elasticsearch's default {@code index.max_result_window}.
+     */
+    private static final int MAX_RESULT_WINDOW = 10_000;
+    private static final int MAX_PAGE_SIZE = 100;
+
+    private final RestaurantService restaurantService;
+    private final ReviewService reviewService;
+    private final PhotoService photoService;
+    private final RestaurantImportService restaurantImportService;
+
+    @Operation(
+            summary = "Find restaurants near a location",
+            description = "Returns restaurants within a radius (or the given bounding box), nearest first. "
+                    + "Pass the returned nextCursor to fetch the following page.",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "One page of restaurant cards"),
+                    @ApiResponse(responseCode = "400", description = "Invalid coordinates, radius or cursor")
+            }
+    )
+    @GetMapping("/nearby")
+    public ResponseEntity<RestaurantSearchResponse> nearby(
+            @Parameter(description = "Latitude of the origin", required = true)
+            @RequestParam double lat,
+            @Parameter(description = "Longitude of the origin", required = true)
+            @RequestParam double lon,
+            @Parameter(description = "Search radius in km; ignored when a bounding box is given")
+            @RequestParam(required = false) Double radiusKm,
+            @Parameter(description = "Bounding box top latitude")
+            @RequestParam(required = false) Double top,
+            @Parameter(description = "Bounding box left longitude")
+            @RequestParam(required = false) Double left,
+            @Parameter(description = "Bounding box bottom latitude")
+            @RequestParam(required = false) Double bottom,
+            @Parameter(description = "Bounding box right longitude")
+            @RequestParam(required = false) Double right,
+            @RequestParam(required = false) CuisineType cuisineType,
+            @Parameter(description = "Minimum average rating")
+            @RequestParam(required = false) Float minRating,
+            @Parameter(description = "Only restaurants open at this local date-time, e.g. 2025-06-13T22:00")
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime openAt,
+            @RequestParam(defaultValue = "20") int size,
+            @Parameter(description = "nextCursor from the previous page")
+            @RequestParam(required = false) String cursor
+    ) {
+        NearbySearchRequest request = NearbySearchRequest.builder()
+                .latitude(lat)
+                .longitude(lon)
+                .radiusKm(radiusKm)
+                .top(top)
+                .left(left)
+                .bottom(bottom)
+                .right(right)
+                .cuisineType(cuisineType)
+                .minRating(minRating)
+                .openAt(openAt)
+                .size(size)
+                .cursor(cursor)
+                .build();
+        return ResponseEntity.ok(restaurantService.searchNearby(request));
+    }
+
+    @Operation(
+            summary = "Autocomplete restaurant names and streets",
+            description = "Returns restaurants whose name or street starts with the typed text. "
+                    + "With lat/lon, nearby matches rank first.",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Suggestions, best first"),
+                    @ApiResponse(responseCode = "400", description = "Invalid coordinates")
+            }
+    )
+    @GetMapping("/autocomplete")
+    public ResponseEntity<List<AutocompleteSuggestion>> autocomplete(
+            @Parameter(description = "Text typed so far", required = true)
+            @RequestParam("q") String prefix,
+            @RequestParam(required = false) Double lat,
+            @RequestParam(required = false) Double lon,
+            @RequestParam(defaultValue = "0") int size
+    ) {
+        return ResponseEntity.ok(restaurantService.autocomplete(prefix, lat, lon, size));
+    }
+
+    @Operation(
+            summary = "Add a review",
+            description = "Adds a review to a restaurant and attaches the given, already uploaded photos to it. "
+                    + "The review may take a moment to appear in listings. Retrying with the same Idempotency-Key "
+                    + "returns the same review instead of adding another.",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Review accepted"),
+                    @ApiResponse(responseCode = "400", description = "Invalid rating, unknown restaurant or photo")
+            }
+    )
+    @PostMapping("/{restaurantId}/reviews")
+    public ResponseEntity<Review> addReview(
+            @PathVariable String restaurantId,
+            @RequestBody ReviewRequest request,
+            @Parameter(description = "Client-chosen key identifying this submission across retries")
+            @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey
+    ) {
+        return ResponseEntity.ok(reviewService.addReview(restaurantId, request, idempotencyKey));
+    }
+
+    @Operation(summary = "List reviews", description = "Returns a page of a restaurant's reviews, newest first")
+    @GetMapping("/{restaurantId}/reviews")
+    public ResponseEntity<PageResponse<Review>> reviews(
+            @PathVariable String restaurantId,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "20") int size
+    ) {
+        return ResponseEntity.ok(PageResponse.of(reviewService.findByRestaurantId(restaurantId, pageOf(page, size))));
+    }
+
+    @Operation(summary = "List photos", description = "Returns a page of a restaurant's photos, newest first")
+    @GetMapping("/{restaurantId}/photos")
+    public ResponseEntity<PageResponse<Photo>> photos(
+            @PathVariable String restaurantId,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "20") int size
+    ) {
+        return ResponseEntity.ok(PageResponse.of(photoService.findByRestaurantId(restaurantId, pageOf(page, size))));
+    }
+
+    @Operation(
+            summary = "Import restaurants",
+            description = "Streams an NDJSON or CSV catalog into the restaurant index and reports throughput and "
+                    + "per-record errors. The format defaults to CSV for .csv files and NDJSON otherwise. A record whose "
+                    + "id already exists updates only the fields it sets.",
+            requestBody = @io.swagger.v3.oas.annotations.parameters.RequestBody(
+                    content = @Content(mediaType = MediaType.MULTIPART_FORM_DATA_VALUE)
+            ),
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Import finished; see the report for failures"),
+                    @ApiResponse(responseCode = "400", description = "Unreadable file")
+            }
+    )
+    @PostMapping(value = "/import", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<ImportReport> importRestaurants(
+            @Parameter(description = "Catalog file", required = true)
+            @RequestPart("file") MultipartFile file,
+            @RequestParam(required = false) ImportFormat format
+    ) {
+        ImportFormat resolved = format != null ? format : formatOf(file.getOriginalFilename());
+        try (InputStream content = file.getInputStream()) {
+            return ResponseEntity.ok(restaurantImportService.importRestaurants(content, resolved));
+        } catch (IOException e) {
+            throw new BiteRateException("Failed to read import file", e);
+        }
+    }
+
+    private static ImportFormat formatOf(String filename) {
+        return filename != null && filename.toLowerCase(Locale.ROOT).endsWith(".csv")
+                ? ImportFormat.CSV
+                : ImportFormat.NDJSON;
+    }
+
+    private static Pageable pageOf(int page, int size) {
+        if (page < 0 || size <= 0) {
+            throw new BiteRateException("Page must be >= 0 and size > 0");
+        }
+        int pageSize = Math.min(size, MAX_PAGE_SIZE);
+        if ((long) (page + 1) * pageSize > MAX_RESULT_WINDOW) {
+            throw new BiteRateException("Cannot page beyond the first " + MAX_RESULT_WINDOW + " results");
+        }
+        return PageRequest.of(page, pageSize);
+    }
+}
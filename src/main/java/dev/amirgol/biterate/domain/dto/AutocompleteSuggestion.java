@@ -0,0 +1,13 @@
+package dev.amirgol.biterate.domain.dto;
+
+import lombok.Builder;
+import lombok.Data;
+
+@Data
+@Builder
+public class AutocompleteSuggestion {
+    private String id;
+    private String name;
+    private String streetName;
+    private String city;
+}
@@ -0,0 +1,19 @@
+package dev.amirgol.biterate.domain.dto;
+
+import dev.amirgol.biterate.domain.entites.Photo;
+import dev.amirgol.biterate.domain.enums.UploadStatus;
+import lombok.Builder;
+import lombok.Data;
+
+/**
+ * Per-file result of a batch upload; {@code index} is the position of the part in the request.
+ */
+@Data
+@Builder
+public class BatchUploadItem {
+    private int index;
+    private String originalFilename;
+    private UploadStatus status;
+    private Photo photo;
+    private String error;
+}
@@ -0,0 +1,14 @@
+package dev.amirgol.biterate.domain.dto;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@Builder
+public class BatchUploadResponse {
+    private int succeeded;
+    private int failed;
+    private List<BatchUploadItem> items;
+}
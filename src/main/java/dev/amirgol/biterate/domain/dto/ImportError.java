@@ -0,0 +1,11 @@
+package dev.amirgol.biterate.domain.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class ImportError {
+    private long record; // 1-based position of the record in the file
+    private String message;
+}
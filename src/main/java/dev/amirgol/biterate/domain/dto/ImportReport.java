@@ -0,0 +1,19 @@
+package dev.amirgol.biterate.domain.dto;
+
+import dev.amirgol.biterate.domain.enums.ImportFormat;
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@Builder
+public class ImportReport {
+    private ImportFormat format;
+    private long records;
+    private long indexed;
+    private long failed;
+    private long durationMillis;
+    private double recordsPerSecond;
+    private List<ImportError> errors;
+}
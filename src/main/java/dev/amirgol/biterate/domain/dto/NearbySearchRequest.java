@@ -0,0 +1,37 @@
+package dev.amirgol.biterate.domain.dto;
+
+import dev.amirgol.biterate.domain.enums.CuisineType;
+import lombok.Builder;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * Criteria for a "restaurants near me" search.
+ * <p>
+ * {@code latitude}/{@code longitude} is the origin that results are sorted by. The area is either a radius
+ * around that origin or, when all four corners are given, a bounding box (e.g. the visible map viewport).
+ * {@code openAt}, in the restaurants' local time, keeps only restaurants open at that moment.
+ * {@code cursor} is the opaque value returned as {@code nextCursor} by the previous page.
+ * </p>
+ */
+@Data
+@Builder
+public class NearbySearchRequest {
+    private double latitude;
+    private double longitude;
+    private Double radiusKm;
+    private Double top;
+    private Double left;
+    private Double bottom;
+    private Double right;
+    private CuisineType cuisineType;
+    private Float minRating;
+    private LocalDateTime openAt;
+    private int size;
+    private String cursor;
+
+    public boolean hasBoundingBox() {
+        return top != null && left != null && bottom != null && right != null;
+    }
+}
@@ -0,0 +1,18 @@
+package dev.amirgol.biterate.domain.dto;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.time.Instant;
+
+/**
+ * A presigned PUT the client sends the photo bytes to directly. Once the PUT has succeeded the client completes the
+ * upload with {@code uploadId}; until then nothing is registered and the object only lives under a temporary key.
+ */
+@Data
+@Builder
+public class PresignedUpload {
+    private String uploadId;
+    private String uploadUrl;
+    private Instant expiresAt;
+}
@@ -0,0 +1,18 @@
+package dev.amirgol.biterate.domain.dto;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.Map;
+
+/**
+ * How the ratings of one restaurant or cuisine are spread over 1 to 5 stars.
+ */
+@Data
+@Builder
+public class RatingDistribution {
+    private String key; // Restaurant id or cuisine type
+    private long count;
+    private Double averageRating; // Null when there are no ratings
+    private Map<Integer, Long> countsByRating;
+}
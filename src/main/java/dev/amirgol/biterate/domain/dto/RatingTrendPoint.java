@@ -0,0 +1,14 @@
+package dev.amirgol.biterate.domain.dto;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+public class RatingTrendPoint {
+    private LocalDateTime periodStart;
+    private long count;
+    private Double averageRating; // Null for periods without reviews
+}
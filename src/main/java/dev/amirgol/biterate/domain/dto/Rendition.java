@@ -0,0 +1,20 @@
+package dev.amirgol.biterate.domain.dto;
+
+import lombok.Builder;
+import lombok.Data;
+
+/**
+ * A resized/re-encoded variant of a photo, stored in MinIO under {@code storageKey}. A {@code width} or
+ * {@code height} of zero means that side was derived from the aspect ratio.
+ */
+@Data
+@Builder
+public class Rendition {
+    private String name;
+    private String storageKey;
+    private String contentType;
+    private long fileSize;
+    private int width;
+    private int height;
+    private String format;
+}
@@ -0,0 +1,23 @@
+package dev.amirgol.biterate.domain.dto;
+
+import dev.amirgol.biterate.domain.enums.CuisineType;
+import lombok.Builder;
+import lombok.Data;
+
+/**
+ * The slice of a restaurant shown in list and map cards; only these fields are fetched from the index.
+ */
+@Data
+@Builder
+public class RestaurantCard {
+    private String id;
+    private String name;
+    private CuisineType cuisineType;
+    private Float averageRating;
+    private double latitude;
+    private double longitude;
+    private String city;
+    private String coverPhotoId; // Shown through /api/v1/photos/view/{id} with a thumbnail size
+    private double distanceKm;
+    private Boolean openNow; // Null when the restaurant has no opening hours
+}
@@ -0,0 +1,28 @@
+package dev.amirgol.biterate.domain.dto;
+
+import dev.amirgol.biterate.domain.entites.Address;
+import dev.amirgol.biterate.domain.entites.OperatingHours;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * One restaurant as supplied by a partner catalog. Records without an id get a generated one, so re-importing
+ * the same file only updates in place when the partner provides stable ids.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class RestaurantImportRecord {
+    private String id;
+    private String name;
+    private String cuisineType;
+    private String contactInformation;
+    private Double latitude;
+    private Double longitude;
+    private String coverPhotoId;
+    private Address address;
+    private OperatingHours operatingHours;
+}
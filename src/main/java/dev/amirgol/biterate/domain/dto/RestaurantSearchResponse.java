@@ -0,0 +1,13 @@
+package dev.amirgol.biterate.domain.dto;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@Builder
+public class RestaurantSearchResponse {
+    private List<RestaurantCard> items;
+    private String nextCursor;
+}
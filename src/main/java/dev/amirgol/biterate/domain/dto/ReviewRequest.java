@@ -0,0 +1,20 @@
+package dev.amirgol.biterate.domain.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReviewRequest {
+    private String content;
+    private Integer rating;
+    @Builder.Default
+    private List<String> photoIds = new ArrayList<>(); // Ids of photos already uploaded via /api/v1/photos
+}
@@ -0,0 +1,23 @@
+package dev.amirgol.biterate.domain.dto;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * An object that has been streamed to a temporary key in MinIO but not yet committed to its
+ * content-addressed name. Produced by {@code MinioService#stageFile} and consumed by
+ * {@code MinioService#commitFile} or {@code MinioService#discardFile}. A large file is staged as separate parts
+ * named in {@code partNames}, which are composed straight into the content-addressed name on commit.
+ */
+@Data
+@Builder
+public class StagedObject {
+    private String temporaryName;
+    private String contentHash;
+    private String contentType;
+    private String fileExtension;
+    private long fileSize;
+    private List<String> partNames;
+}
@@ -0,0 +1,17 @@
+package dev.amirgol.biterate.domain.dto;
+
+import lombok.Builder;
+import lombok.Data;
+
+/**
+ * Everything needed to serve an immutable stored object over HTTP, with caching and range support.
+ */
+@Data
+@Builder
+public class StoredContent {
+    private String storageKey;
+    private String contentType;
+    private long fileSize;
+    private String eTag;
+    private long lastModified;
+}
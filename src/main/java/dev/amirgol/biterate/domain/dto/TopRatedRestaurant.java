@@ -0,0 +1,13 @@
+package dev.amirgol.biterate.domain.dto;
+
+import lombok.Builder;
+import lombok.Data;
+
+@Data
+@Builder
+public class TopRatedRestaurant {
+    private String restaurantId;
+    private String name;
+    private double averageRating;
+    private long reviewCount;
+}
@@ -6,6 +6,8 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 import org.springframework.data.elasticsearch.annotations.Field;
 import org.springframework.data.elasticsearch.annotations.FieldType;
+import org.springframework.data.elasticsearch.annotations.InnerField;
+import org.springframework.data.elasticsearch.annotations.MultiField;
 
 
 /**
@@ -28,7 +30,8 @@ import org.springframework.data.elasticsearch.annotations.FieldType;
  * <ul>
  *   <li>Fields like {@code streetNumber}, {@code unit}, {@code postalCode} use {@code Keyword} because partial
  *   search is not required.</li>
- *   <li>{@code streetName} uses {@code Text} to support flexible full-text search queries.</li>
+ *   <li>{@code streetName} uses {@code Text} to support flexible full-text search queries, plus a
+ *   {@code streetName.suggest} search-as-you-type subfield for autocomplete.</li>
  * </ul>
  *
  * <p><b>Example:</b></p>
@@ -53,7 +56,10 @@ import org.springframework.data.elasticsearch.annotations.FieldType;
 public class Address {
     @Field(type = FieldType.Keyword)
     private String streetNumber;
-    @Field(type = FieldType.Text)
+    @MultiField(
+            mainField = @Field(type = FieldType.Text),
+            otherFields = @InnerField(suffix = "suggest", type = FieldType.Search_As_You_Type)
+    )
     private String streetName;
     @Field(type = FieldType.Keyword)
     private String unit;
@@ -0,0 +1,17 @@
+package dev.amirgol.biterate.domain.entites;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Half-open range {@code [gte, lt)} of minutes since Monday 00:00, stored as an Elasticsearch
+ * {@code integer_range}; the property names are the range bounds ES expects.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class MinuteRange {
+    private int gte;
+    private int lt;
+}
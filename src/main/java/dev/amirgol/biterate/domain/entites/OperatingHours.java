@@ -1,5 +1,6 @@
 package dev.amirgol.biterate.domain.entites;
 
+import com.fasterxml.jackson.annotation.JsonFormat;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -7,25 +8,189 @@ import lombok.NoArgsConstructor;
 import org.springframework.data.elasticsearch.annotations.Field;
 import org.springframework.data.elasticsearch.annotations.FieldType;
 
+import java.time.DateTimeException;
+import java.time.DayOfWeek;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Weekly opening hours, any number of shifts per day, in the restaurant's local time.
+ * <p>
+ * {@link #getTimeZone()} names the zone that local time is in, so whether a restaurant is open now is decided on its
+ * own clock rather than the server's. Hours without a zone are read in the server's zone.
+ * </p>
+ * <p>
+ * The shifts are what clients read and write. For searching they are flattened into {@link #getOpenRanges()}:
+ * sorted, non-overlapping minute-of-week ranges indexed as {@code integer_range}, so "open at Friday 22:00" is a
+ * single term query on one field. Overnight shifts carry into the next day and Sunday night wraps to Monday.
+ * Call {@link #indexRanges()} after changing the shifts.
+ * </p>
+ */
 @Data
 @Builder
 @AllArgsConstructor
 @NoArgsConstructor
 public class OperatingHours {
-    @Field(type = FieldType.Nested)
-    private TimeRange monday;
-    @Field(type = FieldType.Nested)
-    private TimeRange tuesday;
-    @Field(type = FieldType.Nested)
-    private TimeRange wednesday;
-    @Field(type = FieldType.Nested)
-    private TimeRange thursday;
-    @Field(type = FieldType.Nested)
-    private TimeRange friday;
-    @Field(type = FieldType.Nested)
-    private TimeRange saturday;
-    @Field(type = FieldType.Nested)
-    private TimeRange sunday;
-}
+    public static final int MINUTES_PER_DAY = 24 * 60;
+    public static final int MINUTES_PER_WEEK = 7 * MINUTES_PER_DAY;
+
+    @JsonFormat(with = JsonFormat.Feature.ACCEPT_SINGLE_VALUE_AS_ARRAY)
+    @Field(type = FieldType.Object)
+    private List<TimeRange> monday;
+    @JsonFormat(with = JsonFormat.Feature.ACCEPT_SINGLE_VALUE_AS_ARRAY)
+    @Field(type = FieldType.Object)
+    private List<TimeRange> tuesday;
+    @JsonFormat(with = JsonFormat.Feature.ACCEPT_SINGLE_VALUE_AS_ARRAY)
+    @Field(type = FieldType.Object)
+    private List<TimeRange> wednesday;
+    @JsonFormat(with = JsonFormat.Feature.ACCEPT_SINGLE_VALUE_AS_ARRAY)
+    @Field(type = FieldType.Object)
+    private List<TimeRange> thursday;
+    @JsonFormat(with = JsonFormat.Feature.ACCEPT_SINGLE_VALUE_AS_ARRAY)
+    @Field(type = FieldType.Object)
+    private List<TimeRange> friday;
+    @JsonFormat(with = JsonFormat.Feature.ACCEPT_SINGLE_VALUE_AS_ARRAY)
+    @Field(type = FieldType.Object)
+    private List<TimeRange> saturday;
+    @JsonFormat(with = JsonFormat.Feature.ACCEPT_SINGLE_VALUE_AS_ARRAY)
+    @Field(type = FieldType.Object)
+    private List<TimeRange> sunday;
+
+    /**
+     * IANA zone id such as {@code Europe/Amsterdam}.
+     */
+    @Field(type = FieldType.Keyword, index = false)
+    private String timeZone;
+
+    @Field(type = FieldType.Integer_Range)
+    private List<MinuteRange> openRanges;
+
+    public static int minuteOfWeek(DayOfWeek day, LocalTime time) {
+        return (day.getValue() - 1) * MINUTES_PER_DAY + time.getHour() * 60 + time.getMinute();
+    }
+
+    public static int minuteOfWeek(LocalDateTime at) {
+        return minuteOfWeek(at.getDayOfWeek(), at.toLocalTime());
+    }
 
+    /**
+     * The zone the shifts are in, or the server's zone when none is set.
+     *
+     * @throws IllegalArgumentException if {@link #getTimeZone()} is not a valid zone id
+     */
+    public ZoneId zone() {
+        return zoneOf(timeZone);
+    }
 
+    public static ZoneId zoneOf(String timeZone) {
+        if (timeZone == null || timeZone.isBlank()) {
+            return ZoneId.systemDefault();
+        }
+        try {
+            return ZoneId.of(timeZone.trim());
+        } catch (DateTimeException e) {
+            throw new IllegalArgumentException("Unknown time zone: " + timeZone, e);
+        }
+    }
+
+    public List<TimeRange> shiftsOn(DayOfWeek day) {
+        return switch (day) {
+            case MONDAY -> monday;
+            case TUESDAY -> tuesday;
+            case WEDNESDAY -> wednesday;
+            case THURSDAY -> thursday;
+            case FRIDAY -> friday;
+            case SATURDAY -> saturday;
+            case SUNDAY -> sunday;
+        };
+    }
+
+    /**
+     * Recomputes {@link #getOpenRanges()} from the daily shifts.
+     *
+     * @return this, for chaining
+     * @throws IllegalArgumentException if {@link #getTimeZone()} is not a valid zone id
+     */
+    public OperatingHours indexRanges() {
+        zone();
+        List<MinuteRange> ranges = new ArrayList<>();
+        for (DayOfWeek day : DayOfWeek.values()) {
+            List<TimeRange> shifts = shiftsOn(day);
+            if (shifts == null) {
+                continue;
+            }
+            for (TimeRange shift : shifts) {
+                if (shift == null || shift.getOpenTime() == null || shift.getCloseTime() == null) {
+                    continue;
+                }
+                int start = minuteOfWeek(day, shift.getOpenTime());
+                int length = minuteOfWeek(day, shift.getCloseTime()) - start;
+                if (length <= 0) {
+                    length += MINUTES_PER_DAY; // Past midnight, or around the clock when equal
+                }
+                int end = start + length;
+                if (end <= MINUTES_PER_WEEK) {
+                    ranges.add(new MinuteRange(start, end));
+                } else {
+                    ranges.add(new MinuteRange(start, MINUTES_PER_WEEK));
+                    ranges.add(new MinuteRange(0, end - MINUTES_PER_WEEK));
+                }
+            }
+        }
+        this.openRanges = merge(ranges);
+        return this;
+    }
+
+    public boolean isOpenAt(LocalDateTime at) {
+        return isOpenAt(minuteOfWeek(at));
+    }
+
+    /**
+     * Whether the restaurant is open at the given instant, on the clock of its {@link #zone()}.
+     */
+    public boolean isOpenAt(Instant instant) {
+        return isOpenAt(LocalDateTime.ofInstant(instant, zone()));
+    }
+
+    /**
+     * Binary search over {@link #getOpenRanges()}, which {@link #indexRanges()} keeps sorted and disjoint.
+     */
+    public boolean isOpenAt(int minuteOfWeek) {
+        if (openRanges == null) {
+            indexRanges();
+        }
+        int low = 0;
+        int high = openRanges.size() - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            MinuteRange range = openRanges.get(mid);
+            if (minuteOfWeek < range.getGte()) {
+                high = mid - 1;
+            } else if (minuteOfWeek >= range.getLt()) {
+                low = mid + 1;
+            } else {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static List<MinuteRange> merge(List<MinuteRange> ranges) {
+        ranges.sort(Comparator.comparingInt(MinuteRange::getGte));
+        List<MinuteRange> merged = new ArrayList<>(ranges.size());
+        for (MinuteRange range : ranges) {
+            MinuteRange last = merged.isEmpty() ? null : merged.get(merged.size() - 1);
+            if (last != null && range.getGte() <= last.getLt()) {
+                last.setLt(Math.max(last.getLt(), range.getLt()));
+            } else {
+                merged.add(new MinuteRange(range.getGte(), range.getLt()));
+            }
+        }
+        return merged;
+    }
+}
@@ -1,5 +1,6 @@
 package dev.amirgol.biterate.domain.entites;
 
+import dev.amirgol.biterate.domain.enums.RenditionStatus;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -10,6 +11,7 @@ import org.springframework.data.elasticsearch.annotations.Field;
 import org.springframework.data.elasticsearch.annotations.FieldType;
 
 import java.time.LocalDateTime;
+import java.util.List;
 
 import static org.springframework.data.elasticsearch.annotations.DateFormat.date_hour_minute_second;
 
@@ -17,7 +19,7 @@ import static org.springframework.data.elasticsearch.annotations.DateFormat.date
 @Builder
 @NoArgsConstructor
 @AllArgsConstructor
-@Document(indexName = "photos")
+@Document(indexName = "photos", createIndex = false)
 public class Photo {
     @Id
     private String id;
@@ -26,14 +28,32 @@ public class Photo {
     private String storageKey; // The hashed filename in MinIO
 
     @Field(type = FieldType.Keyword)
-    private String originalFilename; // Original filename uploaded by user
+    private String contentHash; // Id of the shared PhotoBlob
+
+    @Field(type = FieldType.Keyword)
+    private String restaurantId; // Set once the photo is attached to a restaurant or review
 
     @Field(type = FieldType.Keyword)
+    private String reviewId;
+
+    @Field(type = FieldType.Keyword, index = false, docValues = false)
+    private String originalFilename; // Original filename uploaded by user
+
+    @Field(type = FieldType.Keyword, index = false, docValues = false)
     private String contentType;
 
-    @Field(type = FieldType.Long)
+    @Field(type = FieldType.Long, index = false, docValues = false)
     private long fileSize;
 
     @Field(type = FieldType.Date, format = date_hour_minute_second)
     private LocalDateTime uploadDate;
+
+    @Field(type = FieldType.Keyword)
+    private RenditionStatus renditionStatus;
+
+    @Field(type = FieldType.Integer)
+    private Integer renditionAttempts; // Failed generation attempts, retried while below the pipeline's maxAttempts
+
+    @Field(type = FieldType.Object)
+    private List<PhotoRendition> renditions;
 }
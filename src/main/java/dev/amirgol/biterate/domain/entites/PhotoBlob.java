@@ -0,0 +1,47 @@
+package dev.amirgol.biterate.domain.entites;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.elasticsearch.annotations.Document;
+import org.springframework.data.elasticsearch.annotations.Field;
+import org.springframework.data.elasticsearch.annotations.FieldType;
+
+import java.time.LocalDateTime;
+
+import static org.springframework.data.elasticsearch.annotations.DateFormat.date_hour_minute_second;
+
+/**
+ * Content-hash index entry for a blob stored in MinIO.
+ * <p>
+ * The document id is the MD5 content hash of the blob, so every distinct image is stored exactly once no matter
+ * how many {@link Photo} documents point at it. {@code referenceCount} tracks those photos and is only ever
+ * changed through scripted updates; the MinIO object is removed when the count drops to zero.
+ * </p>
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(indexName = "photo_blobs", createIndex = false)
+public class PhotoBlob {
+    @Id
+    private String id; // The MD5 content hash
+
+    @Field(type = FieldType.Keyword)
+    private String storageKey;
+
+    @Field(type = FieldType.Keyword, index = false, docValues = false)
+    private String contentType;
+
+    @Field(type = FieldType.Long, index = false, docValues = false)
+    private long fileSize;
+
+    @Field(type = FieldType.Long)
+    private long referenceCount;
+
+    @Field(type = FieldType.Date, format = date_hour_minute_second)
+    private LocalDateTime createdDate;
+}
@@ -0,0 +1,32 @@
+package dev.amirgol.biterate.domain.entites;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.elasticsearch.annotations.Field;
+import org.springframework.data.elasticsearch.annotations.FieldType;
+
+/**
+ * A standard rendition (e.g. thumb, card, full) recorded on its {@link Photo}. {@code width} and {@code height}
+ * are the actual pixel dimensions of the stored image. Renditions are only read back with their photo, so none of
+ * the fields is indexed.
+ */
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class PhotoRendition {
+    @Field(type = FieldType.Keyword, index = false, docValues = false)
+    private String name;
+    @Field(type = FieldType.Keyword, index = false, docValues = false)
+    private String storageKey;
+    @Field(type = FieldType.Keyword, index = false, docValues = false)
+    private String contentType;
+    @Field(type = FieldType.Long, index = false, docValues = false)
+    private long fileSize;
+    @Field(type = FieldType.Integer, index = false, docValues = false)
+    private int width;
+    @Field(type = FieldType.Integer, index = false, docValues = false)
+    private int height;
+}
@@ -0,0 +1,36 @@
+package dev.amirgol.biterate.domain.entites;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.elasticsearch.annotations.Field;
+import org.springframework.data.elasticsearch.annotations.FieldType;
+
+import java.util.List;
+
+/**
+ * Number of reviews per star rating. Kept as named fields rather than an array so each bucket can be summed and
+ * sorted on directly; the field names are also the keys used by the rating update script.
+ */
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class RatingHistogram {
+    /**
+     * Field names indexed by {@code rating - 1}.
+     */
+    public static final List<String> BUCKETS = List.of("oneStar", "twoStars", "threeStars", "fourStars", "fiveStars");
+
+    @Field(type = FieldType.Long, index = false)
+    private long oneStar;
+    @Field(type = FieldType.Long, index = false)
+    private long twoStars;
+    @Field(type = FieldType.Long, index = false)
+    private long threeStars;
+    @Field(type = FieldType.Long, index = false)
+    private long fourStars;
+    @Field(type = FieldType.Long, index = false)
+    private long fiveStars;
+}
@@ -10,41 +10,50 @@ import org.springframework.data.elasticsearch.annotations.Document;
 import org.springframework.data.elasticsearch.annotations.Field;
 import org.springframework.data.elasticsearch.annotations.FieldType;
 import org.springframework.data.elasticsearch.annotations.GeoPointField;
+import org.springframework.data.elasticsearch.annotations.InnerField;
+import org.springframework.data.elasticsearch.annotations.MultiField;
 import org.springframework.data.elasticsearch.core.geo.GeoPoint;
 
-import java.util.ArrayList;
-import java.util.List;
-
 /**
  * Represents a restaurant listed in the RestaurantReview application.
  * <p>
  * This entity is indexed in Elasticsearch under the "restaurant" index. It includes core restaurant metadata
- * such as name, cuisine type, contact information, location, ratings, operating hours, and related entities
- * like photos and reviews.
+ * such as name, cuisine type, contact information, location, ratings and operating hours.
+ * </p>
+ * <p>
+ * Reviews and photos are not embedded: they are separate documents in the {@code reviews} and {@code photos}
+ * indices keyed by {@code restaurantId}, so adding a review never rewrites the restaurant document.
  * </p>
  *
  * <p><b>Indexing Notes:</b></p>
  * <ul>
- *   <li>{@code @Document(indexName = "restaurant")} – Defines the Elasticsearch index name.</li>
+ *   <li>{@code @Document(indexName = "restaurant", createIndex = false)} – The index name is an alias; the versioned
+ *   index behind it is created by {@code IndexLifecycleManager}.</li>
  *   <li>{@code @Id} – Uniquely identifies each restaurant document.</li>
  *   <li>{@code @Field(type = FieldType.Keyword)} – Used for fields requiring exact match or aggregations (e.g., cuisine type).</li>
- *   <li>{@code @Field(type = FieldType.Text)} – Used for full-text search fields (e.g., name, contact info).</li>
+ *   <li>{@code @Field(type = FieldType.Text)} – Used for full-text search fields (e.g., name).</li>
+ *   <li>{@code index = false} – Used for fields that are only displayed or aggregated (e.g., contact info, rating
+ *   sums); they are kept in {@code _source} or doc values but get no inverted index.</li>
  *   <li>{@code @GeoPointField} – Used for location-based geospatial queries.</li>
- *   <li>{@code @Field(type = FieldType.Nested)} – Used for structured sub-documents (e.g., address, photos, reviews).</li>
+ *   <li>{@code @Field(type = FieldType.Nested)} – Used for structured sub-documents (e.g., address).</li>
+ *   <li>{@code @Field(type = FieldType.Object)} – Used where sub-fields are queried on their own (e.g., operating hours)
+ *   and for single sub-objects that are never matched as a unit (e.g., the creator).</li>
  * </ul>
  *
  * <p><b>Key Fields:</b></p>
  * <ul>
  *   <li><b>id</b> – Unique restaurant identifier.</li>
- *   <li><b>name</b> – Human-readable name of the restaurant. Indexed for full-text search.</li>
+ *   <li><b>name</b> – Human-readable name of the restaurant. Indexed for full-text search, with a
+ *   {@code name.suggest} search-as-you-type subfield for autocomplete.</li>
  *   <li><b>cuisineType</b> – Enum representing the restaurant’s cuisine. Indexed as keyword for filtering.</li>
- *   <li><b>contactInformation</b> – Optional string for phone, email, or website.</li>
+ *   <li><b>contactInformation</b> – Optional string for phone, email, or website. Display only, not searchable.</li>
  *   <li><b>averageRating</b> – Precomputed average from associated reviews, indexed as float for sorting/filtering.</li>
+ *   <li><b>ratingSum</b>, <b>ratingCount</b>, <b>ratingHistogram</b> – Aggregates of all review ratings, recomputed
+ *   from the reviews index by scripted updates; {@code averageRating} is derived from them.</li>
  *   <li><b>geoLocation</b> – Latitude and longitude for geospatial queries.</li>
+ *   <li><b>coverPhotoId</b> – Photo whose thumbnail represents the restaurant in list and map cards.</li>
  *   <li><b>address</b> – Structured location object, nested to preserve hierarchy.</li>
- *   <li><b>operatingHours</b> – Object representing opening and closing hours per day.</li>
- *   <li><b>photos</b> – List of image metadata or URLs related to the restaurant.</li>
- *   <li><b>reviews</b> – Embedded list of user-submitted reviews.</li>
+ *   <li><b>operatingHours</b> – Shifts per day plus derived minute-of-week ranges for "open at" queries.</li>
  *   <li><b>createdBy</b> – Reference to the user who submitted or created the restaurant entry.</li>
  * </ul>
  *
@@ -70,38 +79,47 @@ import java.util.List;
 @Builder
 @NoArgsConstructor
 @AllArgsConstructor
-@Document(indexName = "restaurant")
+@Document(indexName = "restaurant", createIndex = false)
 public class Restaurant {
     @Id
     private String id;
 
-    @Field(type = FieldType.Text)
+    @MultiField(
+            mainField = @Field(type = FieldType.Text),
+            otherFields = @InnerField(suffix = "suggest", type = FieldType.Search_As_You_Type)
+    )
     private String name;
 
     @Field(type = FieldType.Keyword)
     private CuisineType cuisineType;
 
-    @Field(type = FieldType.Text)
+    @Field(type = FieldType.Keyword, index = false, docValues = false)
     private String contactInformation;
 
     @Field(type = FieldType.Float)
     private Float averageRating;
 
+    @Field(type = FieldType.Long, index = false)
+    private Long ratingSum;
+
+    @Field(type = FieldType.Long, index = false)
+    private Long ratingCount;
+
+    @Field(type = FieldType.Object)
+    private RatingHistogram ratingHistogram;
+
     @GeoPointField
     private GeoPoint geoLocation;
 
+    @Field(type = FieldType.Keyword)
+    private String coverPhotoId;
+
     @Field(type = FieldType.Nested)
     private Address address;
 
-    @Field(type = FieldType.Nested)
+    @Field(type = FieldType.Object)
     private OperatingHours operatingHours;
 
-    @Field(type = FieldType.Nested)
-    private List<Photo> photos = new ArrayList<>();
-
-    @Field(type = FieldType.Nested)
-    private List<Review> reviews = new ArrayList<>();
-
-    @Field(type = FieldType.Nested)
+    @Field(type = FieldType.Object)
     private User createdBy;
 }
@@ -4,7 +4,9 @@ import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
 import org.springframework.data.elasticsearch.annotations.DateFormat;
+import org.springframework.data.elasticsearch.annotations.Document;
 import org.springframework.data.elasticsearch.annotations.Field;
 import org.springframework.data.elasticsearch.annotations.FieldType;
 
@@ -16,19 +18,23 @@ import java.util.List;
 @Builder
 @AllArgsConstructor
 @NoArgsConstructor
+@Document(indexName = "reviews", createIndex = false)
 public class Review {
-    @Field(type = FieldType.Keyword)
+    @Id
     private String id;
+    @Field(type = FieldType.Keyword)
+    private String restaurantId;
     @Field(type = FieldType.Text)
     private String content;
     @Field(type = FieldType.Integer)
-    private String rating;
+    private int rating; // 1 to 5; 0 only on migrated reviews that never had one
     @Field(type = FieldType.Date, format = DateFormat.date_hour_minute_second)
     private LocalDateTime datePosted;
-    @Field(type = FieldType.Date, format = DateFormat.date_hour_minute_second)
+    @Field(type = FieldType.Date, format = DateFormat.date_hour_minute_second, index = false, docValues = false)
     private LocalDateTime lastEdited;
-    @Field(type = FieldType.Nested)
-    private List<Photo> photos = new ArrayList<>();
-    @Field(type = FieldType.Nested)
+    @Builder.Default
+    @Field(type = FieldType.Keyword)
+    private List<String> photoIds = new ArrayList<>(); // Photos live in the photos index
+    @Field(type = FieldType.Object)
     private User writtenBy;
 }
@@ -4,12 +4,23 @@ import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.springframework.data.elasticsearch.annotations.DateFormat;
+import org.springframework.data.elasticsearch.annotations.Field;
+import org.springframework.data.elasticsearch.annotations.FieldType;
 
+import java.time.LocalTime;
+
+/**
+ * One shift. A {@code closeTime} at or before {@code openTime} runs past midnight into the next day; equal times
+ * mean open around the clock. Not searched directly, see {@link OperatingHours#getOpenRanges()}.
+ */
 @Data
 @Builder
 @AllArgsConstructor
 @NoArgsConstructor
 public class TimeRange {
-    private String openTime;
-    private String closeTime;
+    @Field(type = FieldType.Date, format = DateFormat.hour_minute, index = false)
+    private LocalTime openTime;
+    @Field(type = FieldType.Date, format = DateFormat.hour_minute, index = false)
+    private LocalTime closeTime;
 }
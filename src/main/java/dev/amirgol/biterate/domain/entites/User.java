@@ -11,20 +11,20 @@ import org.springframework.data.elasticsearch.annotations.FieldType;
 /**
  * Represents a user within the system.
  * <p>
- * This class is intended for indexing in Elasticsearch and uses {@code Text} field types to enable
- * full-text search capabilities on all user-identifiable fields.
+ * Users are not indexed on their own; they are embedded as a single object in the documents they created or wrote,
+ * such as restaurants and reviews.
  * </p>
  *
  * <p><b>Field Annotations:</b></p>
  * <ul>
- *   <li>{@code id}: A unique user identifier. Treated as {@code Text} to support flexible querying across IDs if needed.</li>
- *   <li>{@code username}: The handle or login name for the user. Indexed as {@code Text} to support search by partial matches.</li>
+ *   <li>{@code id}: A unique user identifier. Indexed as {@code Keyword} for exact-match lookups and aggregations.</li>
+ *   <li>{@code username}: The handle or login name for the user. Indexed as {@code Keyword}, so it is matched exactly.</li>
  *   <li>{@code firstName} / {@code familyName}: Personal identity fields, indexed as {@code Text} to support user-friendly lookup.</li>
  * </ul>
  *
  * <p><b>Design Notes:</b></p>
  * <ul>
- *   <li>All fields are indexed as {@code Text} to allow for partial, case-insensitive, and language-analyzed search.</li>
+ *   <li>Identifiers are not analyzed: a tokenized id cannot be matched or aggregated exactly and wastes index space.</li>
  *   <li>This entity is likely used as part of document ownership, audit trails, or user-related metadata in other domain models.</li>
  * </ul>
  *
@@ -44,10 +44,10 @@ import org.springframework.data.elasticsearch.annotations.FieldType;
 @AllArgsConstructor
 @NoArgsConstructor
 public class User {
-    @Field(type = FieldType.Text)
+    @Field(type = FieldType.Keyword)
     private String id;
 
-    @Field(type = FieldType.Text)
+    @Field(type = FieldType.Keyword)
     private String username;
 
     @Field(type = FieldType.Text)
@@ -0,0 +1,10 @@
+package dev.amirgol.biterate.domain.enums;
+
+/**
+ * Indices that can be exported as NDJSON.
+ */
+public enum ExportTarget {
+    RESTAURANTS,
+    REVIEWS,
+    PHOTOS
+}
@@ -0,0 +1,14 @@
+package dev.amirgol.biterate.domain.enums;
+
+/**
+ * Formats accepted by the restaurant import.
+ * <p>
+ * {@code NDJSON} expects one restaurant object per line. {@code CSV} expects a header row whose column names are
+ * the record's property paths, e.g. {@code name}, {@code latitude}, {@code address.city},
+ * {@code operatingHours.monday.openTime}.
+ * </p>
+ */
+public enum ImportFormat {
+    NDJSON,
+    CSV
+}
@@ -0,0 +1,10 @@
+package dev.amirgol.biterate.domain.enums;
+
+/**
+ * Progress of the standard renditions generated for a photo after upload.
+ */
+public enum RenditionStatus {
+    PENDING,
+    COMPLETED,
+    FAILED
+}
@@ -0,0 +1,15 @@
+package dev.amirgol.biterate.domain.enums;
+
+/**
+ * Naming schemes for stored photo objects, see {@code ObjectKeyLayout}.
+ * <p>
+ * {@code TIMESTAMP_PREFIX} is the original layout, prefixed with the first six digits of the upload time.
+ * {@code HASH_PREFIX} shards by the leading hex digits of the content hash. {@code DATE_PARTITIONED} prefixes with
+ * the upload date and then shards by hash within the day.
+ * </p>
+ */
+public enum StorageKeyLayout {
+    TIMESTAMP_PREFIX,
+    HASH_PREFIX,
+    DATE_PARTITIONED
+}
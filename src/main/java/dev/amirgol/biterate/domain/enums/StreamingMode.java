@@ -0,0 +1,13 @@
+package dev.amirgol.biterate.domain.enums;
+
+/**
+ * Where streamed response bodies, such as photos and exports, are copied to the client.
+ * <p>
+ * {@code ASYNC} releases the request thread as soon as the headers are decided and copies on the bounded streaming
+ * executor. {@code BLOCKING} copies on the request thread itself, holding it for the whole transfer.
+ * </p>
+ */
+public enum StreamingMode {
+    ASYNC,
+    BLOCKING
+}
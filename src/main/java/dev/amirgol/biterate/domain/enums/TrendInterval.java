@@ -0,0 +1,10 @@
+package dev.amirgol.biterate.domain.enums;
+
+/**
+ * Calendar bucket size of rating trends.
+ */
+public enum TrendInterval {
+    DAY,
+    WEEK,
+    MONTH
+}
@@ -0,0 +1,9 @@
+package dev.amirgol.biterate.domain.enums;
+
+/**
+ * Outcome of a single item in a batch upload.
+ */
+public enum UploadStatus {
+    SUCCEEDED,
+    FAILED
+}
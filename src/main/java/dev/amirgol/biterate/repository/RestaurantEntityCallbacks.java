@@ -0,0 +1,22 @@
+package dev.amirgol.biterate.repository;
+
+import dev.amirgol.biterate.domain.entites.Restaurant;
+import org.springframework.data.elasticsearch.core.event.BeforeConvertCallback;
+import org.springframework.data.elasticsearch.core.mapping.IndexCoordinates;
+import org.springframework.stereotype.Component;
+
+/**
+ * Keeps derived restaurant fields in step with the fields they are computed from on every save through the
+ * repository or {@code ElasticsearchOperations}. Bulk imports bypass entity callbacks and derive them themselves.
+ */
+@Component
+public class RestaurantEntityCallbacks implements BeforeConvertCallback<Restaurant> {
+
+    @Override
+    public Restaurant onBeforeConvert(Restaurant restaurant, IndexCoordinates index) {
+        if (restaurant.getOperatingHours() != null) {
+            restaurant.getOperatingHours().indexRanges();
+        }
+        return restaurant;
+    }
+}
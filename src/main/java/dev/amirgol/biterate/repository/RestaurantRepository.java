@@ -5,6 +5,5 @@ import org.springframework.data.elasticsearch.repository.ElasticsearchRepository
 import org.springframework.stereotype.Repository;
 
 @Repository
-public interface RestaurantRepository extends ElasticsearchRepository<Restaurant, String> {
-    // TODO: Custom Queries that might happen
+public interface RestaurantRepository extends ElasticsearchRepository<Restaurant, String>, RestaurantSearchRepository {
 }
@@ -0,0 +1,36 @@
+package dev.amirgol.biterate.repository;
+
+import dev.amirgol.biterate.domain.dto.AutocompleteSuggestion;
+import dev.amirgol.biterate.domain.dto.NearbySearchRequest;
+import dev.amirgol.biterate.domain.dto.RestaurantCard;
+import dev.amirgol.biterate.domain.dto.RestaurantSearchResponse;
+
+import java.util.List;
+
+/**
+ * Custom search queries on the restaurant index that derived query methods cannot express.
+ */
+public interface RestaurantSearchRepository {
+
+    /**
+     * Finds restaurants inside a radius or bounding box, nearest first, one page at a time.
+     * Pages are chained with {@code search_after}, so the cost of a page does not grow with its depth.
+     */
+    RestaurantSearchResponse searchNearby(NearbySearchRequest request);
+
+    /**
+     * Loads the cards of restaurants found elsewhere, e.g. by the in-process geo index, in the order given.
+     * Restaurants that no longer exist are left out.
+     *
+     * @param distancesKm the distance to report for the id at the same position
+     */
+    List<RestaurantCard> findCards(List<String> ids, double[] distancesKm);
+
+    /**
+     * Matches restaurants whose name or street starts with the typed text, ranking nearby ones first when a
+     * location is given.
+     *
+     * @param latitude  may be {@code null}, together with {@code longitude}, to rank by text relevance only
+     */
+    List<AutocompleteSuggestion> autocomplete(String prefix, Double latitude, Double longitude, int size);
+}
@@ -0,0 +1,221 @@
+package dev.amirgol.biterate.repository;
+
+import co.elastic.clients.elasticsearch._types.DistanceUnit;
+import co.elastic.clients.elasticsearch._types.FieldValue;
+import co.elastic.clients.elasticsearch._types.GeoDistanceType;
+import co.elastic.clients.elasticsearch._types.GeoLocation;
+import co.elastic.clients.elasticsearch._types.SortOrder;
+import co.elastic.clients.elasticsearch._types.query_dsl.ChildScoreMode;
+import co.elastic.clients.elasticsearch._types.query_dsl.FunctionBoostMode;
+import co.elastic.clients.elasticsearch._types.query_dsl.Query;
+import co.elastic.clients.elasticsearch._types.query_dsl.TextQueryType;
+import dev.amirgol.biterate.config.AutocompleteProperties;
+import dev.amirgol.biterate.domain.dto.AutocompleteSuggestion;
+import dev.amirgol.biterate.domain.dto.NearbySearchRequest;
+import dev.amirgol.biterate.domain.dto.RestaurantCard;
+import dev.amirgol.biterate.domain.dto.RestaurantSearchResponse;
+import dev.amirgol.biterate.domain.entites.OperatingHours;
+import dev.amirgol.biterate.domain.entites.Restaurant;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.elasticsearch.client.elc.NativeQuery;
+import org.springframework.data.elasticsearch.core.ElasticsearchOperations;
+import org.springframework.data.elasticsearch.core.MultiGetItem;
+import org.springframework.data.elasticsearch.core.SearchHit;
+import org.springframework.data.elasticsearch.core.SearchHits;
+import org.springframework.data.elasticsearch.core.geo.GeoPoint;
+import org.springframework.data.elasticsearch.core.query.FetchSourceFilterBuilder;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * {@link RestaurantSearchRepository} backed by a native query.
+ * <p>
+ * Every criterion runs in filter context, so nothing is scored and the filters are cacheable; the hits are
+ * ordered purely by the geo_distance sort with the document id as a tiebreaker. Total hits are not tracked
+ * and only the card fields are read from {@code _source}.
+ * </p>
+ */
+@RequiredArgsConstructor
+public class RestaurantSearchRepositoryImpl implements RestaurantSearchRepository {
+
+    private static final String GEO_FIELD = "geoLocation";
+    private static final String OPEN_RANGES_FIELD = "operatingHours.openRanges";
+    private static final String[] CARD_FIELDS =
+            {"name", "cuisineType", "averageRating", GEO_FIELD, "address.city", "coverPhotoId", OPEN_RANGES_FIELD,
+                    "operatingHours.timeZone"};
+    private static final List<String> NAME_SUGGEST_FIELDS =
+            List.of("name.suggest", "name.suggest._2gram", "name.suggest._3gram");
+    private static final List<String> STREET_SUGGEST_FIELDS =
+            List.of("address.streetName.suggest", "address.streetName.suggest._2gram", "address.streetName.suggest._3gram");
+    private static final String[] SUGGESTION_FIELDS = {"name", "address.streetName", "address.city"};
+
+    private final ElasticsearchOperations elasticsearchOperations;
+    private final AutocompleteProperties autocompleteProperties;
+
+    @Override
+    public RestaurantSearchResponse searchNearby(NearbySearchRequest request) {
+        var builder = NativeQuery.builder()
+                .withQuery(q -> q.bool(b -> b.filter(filtersFor(request))))
+                .withSort(s -> s.geoDistance(g -> g
+                        .field(GEO_FIELD)
+                        .location(l -> l.latlon(ll -> ll.lat(request.getLatitude()).lon(request.getLongitude())))
+                        .distanceType(GeoDistanceType.Plane)
+                        .unit(DistanceUnit.Kilometers)
+                        .order(SortOrder.Asc)))
+                .withSort(s -> s.field(f -> f.field("id").order(SortOrder.Asc)))
+                .withSourceFilter(new FetchSourceFilterBuilder().withIncludes(CARD_FIELDS).build())
+                .withPageable(PageRequest.of(0, request.getSize()))
+                .withTrackTotalHits(false);
+        if (request.getCursor() != null) {
+            SearchCursor cursor = SearchCursor.decode(request.getCursor());
+            builder.withSearchAfter(List.of(cursor.distanceKm(), cursor.id()));
+        }
+
+        SearchHits<Restaurant> hits = elasticsearchOperations.search(builder.build(), Restaurant.class);
+
+        List<RestaurantCard> cards = new ArrayList<>(hits.getSearchHits().size());
+        List<Object> lastSortValues = null;
+        Instant now = Instant.now();
+        for (SearchHit<Restaurant> hit : hits) {
+            cards.add(toCard(hit.getId(), hit.getContent(), ((Number) hit.getSortValues().get(0)).doubleValue(), now));
+            lastSortValues = hit.getSortValues();
+        }
+        String nextCursor = cards.size() == request.getSize() && lastSortValues != null
+                ? new SearchCursor(((Number) lastSortValues.get(0)).doubleValue(), lastSortValues.get(1).toString()).encode()
+                : null;
+        return RestaurantSearchResponse.builder()
+                .items(cards)
+                .nextCursor(nextCursor)
+                .build();
+    }
+
+    /**
+     * Multi-get by id, which is realtime and does not fan out to every shard like a search.
+     */
+    @Override
+    public List<RestaurantCard> findCards(List<String> ids, double[] distancesKm) {
+        NativeQuery query = NativeQuery.builder()
+                .withIds(ids)
+                .withSourceFilter(new FetchSourceFilterBuilder().withIncludes(CARD_FIELDS).build())
+                .build();
+        List<MultiGetItem<Restaurant>> items = elasticsearchOperations.multiGet(query, Restaurant.class);
+
+        List<RestaurantCard> cards = new ArrayList<>(ids.size());
+        Instant now = Instant.now();
+        for (int i = 0; i < items.size(); i++) {
+            MultiGetItem<Restaurant> item = items.get(i);
+            if (item.hasItem()) {
+                cards.add(toCard(ids.get(i), item.getItem(), distancesKm[i], now));
+            }
+        }
+        return cards;
+    }
+
+    /**
+     * {@code bool_prefix} over the search-as-you-type subfields treats every typed term but the last as a whole
+     * word and the last one as a prefix, served from precomputed edge n-grams instead of expanding terms at query
+     * time. Name matches weigh more than street matches.
+     */
+    @Override
+    public List<AutocompleteSuggestion> autocomplete(String prefix, Double latitude, Double longitude, int size) {
+        Query textQuery = Query.of(q -> q.bool(b -> b
+                .should(s -> s.multiMatch(m -> m
+                        .query(prefix)
+                        .type(TextQueryType.BoolPrefix)
+                        .fields(NAME_SUGGEST_FIELDS)
+                        .boost(2.0f)))
+                .should(s -> s.nested(n -> n
+                        .path("address")
+                        .scoreMode(ChildScoreMode.Max)
+                        .query(inner -> inner.multiMatch(m -> m
+                                .query(prefix)
+                                .type(TextQueryType.BoolPrefix)
+                                .fields(STREET_SUGGEST_FIELDS)))))
+                .minimumShouldMatch("1")));
+
+        Query query = latitude == null || longitude == null ? textQuery : Query.of(q -> q.functionScore(f -> f
+                .query(textQuery)
+                .functions(fn -> fn.gauss(d -> d.geo(g -> g
+                        .field(GEO_FIELD)
+                        .placement(p -> p
+                                .origin(GeoLocation.of(l -> l.latlon(ll -> ll.lat(latitude).lon(longitude))))
+                                .offset(autocompleteProperties.getDecayOffset())
+                                .scale(autocompleteProperties.getDecayScale())
+                                .decay(0.5)))))
+                .boostMode(FunctionBoostMode.Multiply)));
+
+        NativeQuery nativeQuery = NativeQuery.builder()
+                .withQuery(query)
+                .withSourceFilter(new FetchSourceFilterBuilder().withIncludes(SUGGESTION_FIELDS).build())
+                .withPageable(PageRequest.of(0, size))
+                .withTrackTotalHits(false)
+                .build();
+
+        List<AutocompleteSuggestion> suggestions = new ArrayList<>(size);
+        for (SearchHit<Restaurant> hit : elasticsearchOperations.search(nativeQuery, Restaurant.class)) {
+            Restaurant restaurant = hit.getContent();
+            suggestions.add(AutocompleteSuggestion.builder()
+                    .id(hit.getId())
+                    .name(restaurant.getName())
+                    .streetName(restaurant.getAddress() != null ? restaurant.getAddress().getStreetName() : null)
+                    .city(restaurant.getAddress() != null ? restaurant.getAddress().getCity() : null)
+                    .build());
+        }
+        return suggestions;
+    }
+
+    private static List<Query> filtersFor(NearbySearchRequest request) {
+        List<Query> filters = new ArrayList<>(4);
+        if (request.hasBoundingBox()) {
+            filters.add(Query.of(q -> q.geoBoundingBox(g -> g
+                    .field(GEO_FIELD)
+                    .boundingBox(bb -> bb.tlbr(t -> t
+                            .topLeft(l -> l.latlon(ll -> ll.lat(request.getTop()).lon(request.getLeft())))
+                            .bottomRight(l -> l.latlon(ll -> ll.lat(request.getBottom()).lon(request.getRight()))))))));
+        } else {
+            filters.add(Query.of(q -> q.geoDistance(g -> g
+                    .field(GEO_FIELD)
+                    .distance(request.getRadiusKm() + "km")
+                    .distanceType(GeoDistanceType.Plane)
+                    .location(l -> l.latlon(ll -> ll.lat(request.getLatitude()).lon(request.getLongitude()))))));
+        }
+        if (request.getCuisineType() != null) {
+            filters.add(Query.of(q -> q.term(t -> t
+                    .field("cuisineType")
+                    .value(FieldValue.of(request.getCuisineType().name())))));
+        }
+        if (request.getMinRating() != null) {
+            filters.add(Query.of(q -> q.range(r -> r.number(n -> n
+                    .field("averageRating")
+                    .gte(request.getMinRating().doubleValue())))));
+        }
+        if (request.getOpenAt() != null) {
+            // A term query on a range field matches documents with a range containing the value
+            int minuteOfWeek = OperatingHours.minuteOfWeek(request.getOpenAt());
+            filters.add(Query.of(q -> q.term(t -> t
+                    .field(OPEN_RANGES_FIELD)
+                    .value(FieldValue.of(minuteOfWeek)))));
+        }
+        return filters;
+    }
+
+    private static RestaurantCard toCard(String id, Restaurant restaurant, double distanceKm, Instant now) {
+        GeoPoint location = restaurant.getGeoLocation();
+        OperatingHours hours = restaurant.getOperatingHours();
+        return RestaurantCard.builder()
+                .id(id)
+                .name(restaurant.getName())
+                .cuisineType(restaurant.getCuisineType())
+                .averageRating(restaurant.getAverageRating())
+                .latitude(location != null ? location.getLat() : 0)
+                .longitude(location != null ? location.getLon() : 0)
+                .city(restaurant.getAddress() != null ? restaurant.getAddress().getCity() : null)
+                .coverPhotoId(restaurant.getCoverPhotoId())
+                .distanceKm(distanceKm)
+                .openNow(hours != null && hours.getOpenRanges() != null ? hours.isOpenAt(now) : null)
+                .build();
+    }
+}
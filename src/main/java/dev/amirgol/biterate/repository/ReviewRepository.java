@@ -0,0 +1,12 @@
+package dev.amirgol.biterate.repository;
+
+import dev.amirgol.biterate.domain.entites.Review;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.elasticsearch.repository.ElasticsearchRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface ReviewRepository extends ElasticsearchRepository<Review, String> {
+    Page<Review> findByRestaurantId(String restaurantId, Pageable pageable);
+}
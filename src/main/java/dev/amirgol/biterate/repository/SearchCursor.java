@@ -0,0 +1,41 @@
+package dev.amirgol.biterate.repository;
+
+import dev.amirgol.biterate.exception.BiteRateException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Opaque nearby-search cursor carrying the last hit's sort values (distance, id), so the next page resumes right
+ * after it whether it is answered by Elasticsearch or by the in-process geo index. The distance is written with
+ * full precision; a rounded value could skip or repeat hits.
+ */
+public record SearchCursor(double distanceKm, String id) {
+    private static final String SEPARATOR = ":";
+
+    public String encode() {
+        String raw = distanceKm + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static SearchCursor decode(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] parts = raw.split(SEPARATOR, 2);
+            if (parts.length != 2) {
+                throw new BiteRateException("Invalid cursor");
+            }
+            return new SearchCursor(Double.parseDouble(parts[0]), parts[1]);
+        } catch (IllegalArgumentException e) {
+            throw new BiteRateException("Invalid cursor", e);
+        }
+    }
+
+    /**
+     * @return whether a hit sorts strictly after this cursor, i.e. belongs on a later page
+     */
+    public boolean precedes(double hitDistanceKm, String hitId) {
+        int byDistance = Double.compare(hitDistanceKm, distanceKm);
+        return byDistance > 0 || (byDistance == 0 && hitId.compareTo(id) > 0);
+    }
+}
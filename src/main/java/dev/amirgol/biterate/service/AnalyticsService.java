@@ -0,0 +1,27 @@
+package dev.amirgol.biterate.service;
+
+import dev.amirgol.biterate.domain.dto.RatingDistribution;
+import dev.amirgol.biterate.domain.dto.RatingTrendPoint;
+import dev.amirgol.biterate.domain.dto.TopRatedRestaurant;
+import dev.amirgol.biterate.domain.enums.TrendInterval;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface AnalyticsService {
+    RatingDistribution restaurantDistribution(String restaurantId);
+
+    List<RatingDistribution> cuisineDistributions();
+
+    /**
+     * @param restaurantId {@code null} for all restaurants
+     * @param from         {@code null} for the default range before {@code to}
+     * @param to           {@code null} for now
+     */
+    List<RatingTrendPoint> trend(String restaurantId, TrendInterval interval, LocalDateTime from, LocalDateTime to);
+
+    /**
+     * @param since {@code null} for all time
+     */
+    List<TopRatedRestaurant> topRated(LocalDateTime since, int minReviews, int size);
+}
@@ -0,0 +1,354 @@
+package dev.amirgol.biterate.service;
+
+import co.elastic.clients.elasticsearch.ElasticsearchClient;
+import co.elastic.clients.elasticsearch._helpers.bulk.BulkIngester;
+import co.elastic.clients.elasticsearch._helpers.bulk.BulkListener;
+import co.elastic.clients.elasticsearch.core.BulkRequest;
+import co.elastic.clients.elasticsearch.core.BulkResponse;
+import co.elastic.clients.elasticsearch.core.bulk.BulkResponseItem;
+import co.elastic.clients.transport.BackoffPolicy;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.amirgol.biterate.config.IndexLifecycleProperties;
+import dev.amirgol.biterate.config.RestaurantImportProperties;
+import dev.amirgol.biterate.domain.dto.ImportError;
+import dev.amirgol.biterate.domain.dto.ImportReport;
+import dev.amirgol.biterate.domain.dto.RestaurantImportRecord;
+import dev.amirgol.biterate.domain.entites.Restaurant;
+import dev.amirgol.biterate.domain.enums.CuisineType;
+import dev.amirgol.biterate.domain.enums.ImportFormat;
+import dev.amirgol.biterate.exception.BiteRateException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.elasticsearch.core.ElasticsearchOperations;
+import org.springframework.data.elasticsearch.core.document.Document;
+import org.springframework.data.elasticsearch.core.geo.GeoPoint;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Streams partner catalogs into the restaurant index through the client's {@link BulkIngester}.
+ * <p>
+ * The file is read one record at a time and each record is handed to the ingester as soon as it is parsed; the
+ * ingester blocks the reader while {@code maxConcurrentRequests} bulk requests are in flight, so at most a few
+ * bulk requests' worth of documents are ever held in memory, and no record may exceed {@code maxRecordLength}
+ * characters. Index refresh is switched off while any import runs and restored to the index's configured interval,
+ * followed by one explicit refresh, when the last one finishes. Records that cannot be parsed or indexed are counted
+ * and reported individually (up to {@code maxReportedErrors}) without stopping the import.
+ * </p>
+ * <p>
+ * Each record is written as a partial update with {@code doc_as_upsert}, carrying only the fields the file sets: a
+ * new restaurant is created from them, and an existing one keeps everything else, such as its rating aggregates,
+ * cover photo or operating hours.
+ * </p>
+ */
+@Service
+@Slf4j
+public class BulkRestaurantImportService implements RestaurantImportService {
+    private final ElasticsearchClient elasticsearchClient;
+    private final ElasticsearchOperations elasticsearchOperations;
+    private final ObjectMapper objectMapper;
+    private final RestaurantImportProperties properties;
+    private final IndexLifecycleProperties indexLifecycleProperties;
+    private final ApplicationEventPublisher eventPublisher;
+    private final AtomicInteger runningImports = new AtomicInteger();
+    private final Counter indexedCounter;
+    private final Counter failedCounter;
+
+    public BulkRestaurantImportService(ElasticsearchClient elasticsearchClient,
+                                       ElasticsearchOperations elasticsearchOperations,
+                                       ObjectMapper objectMapper,
+                                       RestaurantImportProperties properties,
+                                       IndexLifecycleProperties indexLifecycleProperties,
+                                       ApplicationEventPublisher eventPublisher,
+                                       MeterRegistry meterRegistry) {
+        this.elasticsearchClient = elasticsearchClient;
+        this.elasticsearchOperations = elasticsearchOperations;
+        this.objectMapper = objectMapper;
+        this.properties = properties;
+        this.indexLifecycleProperties = indexLifecycleProperties;
+        this.eventPublisher = eventPublisher;
+        this.indexedCounter = Counter.builder("restaurants.import.indexed")
+                .description("Restaurants indexed by bulk imports")
+                .register(meterRegistry);
+        this.failedCounter = Counter.builder("restaurants.import.failed")
+                .description("Import records that could not be parsed or indexed")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public ImportReport importRestaurants(InputStream content, ImportFormat format) {
+        String index = elasticsearchOperations.getIndexCoordinatesFor(Restaurant.class).getIndexName();
+        Progress progress = new Progress();
+        long started = System.nanoTime();
+
+        suspendRefresh(index);
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(content, StandardCharsets.UTF_8))) {
+            try (BulkIngester<Long> ingester = BulkIngester.of(b -> b
+                    .client(elasticsearchClient)
+                    .maxOperations(properties.getMaxOperations())
+                    .maxSize(properties.getMaxRequestSize().toBytes())
+                    .maxConcurrentRequests(properties.getMaxConcurrentRequests())
+                    .flushInterval(properties.getFlushInterval().toMillis(), TimeUnit.MILLISECONDS)
+                    .backoffPolicy(BackoffPolicy.exponentialBackoff(
+                            properties.getInitialBackoff().toMillis(), properties.getMaxRetries()))
+                    .listener(progress))) {
+                if (format == ImportFormat.CSV) {
+                    readCsv(reader, ingester, index, progress);
+                } else {
+                    readNdjson(reader, ingester, index, progress);
+                }
+            } // Closing the ingester flushes and waits for all in-flight requests
+        } catch (IOException e) {
+            throw new BiteRateException("Failed to read import file: " + e.getMessage(), e);
+        } finally {
+            resumeRefresh(index);
+        }
+
+        long durationMillis = Math.max(1, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+        ImportReport report = ImportReport.builder()
+                .format(format)
+                .records(progress.records)
+                .indexed(progress.indexed.get())
+                .failed(progress.failed.get())
+                .durationMillis(durationMillis)
+                .recordsPerSecond(progress.records * 1000.0 / durationMillis)
+                .errors(List.copyOf(progress.errors))
+                .build();
+        log.info("Imported {} of {} restaurants ({} failed) in {} ms", report.getIndexed(), report.getRecords(),
+                report.getFailed(), durationMillis);
+        return report;
+    }
+
+    private void readNdjson(BufferedReader reader, BulkIngester<Long> ingester, String index, Progress progress)
+            throws IOException {
+        StringBuilder line = new StringBuilder();
+        while (true) {
+            boolean complete;
+            try {
+                complete = readLine(reader, line);
+            } catch (IllegalArgumentException e) {
+                progress.rejected(++progress.records, e.getMessage());
+                continue;
+            }
+            if (!complete) {
+                return;
+            }
+            if (line.toString().isBlank()) {
+                continue;
+            }
+            String json = line.toString();
+            submit(ingester, index, progress, () -> objectMapper.readValue(json, RestaurantImportRecord.class));
+        }
+    }
+
+    /**
+     * Reads one line into {@code line}, without holding more than {@code maxRecordLength} characters of it.
+     *
+     * @return false at end of input
+     * @throws IllegalArgumentException if the line is too long; it is skipped, so the next call reads the next line
+     */
+    private boolean readLine(BufferedReader reader, StringBuilder line) throws IOException {
+        line.setLength(0);
+        boolean tooLong = false;
+        int c;
+        while ((c = reader.read()) != -1 && c != '\n') {
+            if (line.length() >= properties.getMaxRecordLength()) {
+                tooLong = true;
+                line.setLength(0);
+            }
+            if (!tooLong) {
+                line.append((char) c);
+            }
+        }
+        if (tooLong) {
+            throw new IllegalArgumentException("Record exceeds " + properties.getMaxRecordLength() + " characters");
+        }
+        if (c == -1 && line.isEmpty()) {
+            return false;
+        }
+        if (!line.isEmpty() && line.charAt(line.length() - 1) == '\r') {
+            line.setLength(line.length() - 1);
+        }
+        return true;
+    }
+
+    private void readCsv(BufferedReader reader, BulkIngester<Long> ingester, String index, Progress progress)
+            throws IOException {
+        CsvRecordReader csv = new CsvRecordReader(reader, properties.getMaxRecordLength());
+        while (true) {
+            Map<String, String> row;
+            try {
+                row = csv.next();
+            } catch (IllegalArgumentException e) {
+                progress.rejected(++progress.records, e.getMessage());
+                continue;
+            } catch (IOException e) {
+                // An unterminated quote or an oversized row leaves no trustworthy row boundary after it
+                progress.rejected(++progress.records, e.getMessage());
+                return;
+            }
+            if (row == null) {
+                return;
+            }
+            submit(ingester, index, progress, () -> objectMapper.convertValue(nest(row), RestaurantImportRecord.class));
+        }
+    }
+
+    private void submit(BulkIngester<Long> ingester, String index, Progress progress, RecordParser parser) {
+        long recordNumber = ++progress.records;
+        Restaurant restaurant;
+        try {
+            restaurant = toRestaurant(parser.parse());
+        } catch (IOException | IllegalArgumentException e) {
+            progress.rejected(recordNumber, e.getMessage());
+            return;
+        }
+
+        // Fields the record leaves out are null and not mapped, so the update leaves them untouched
+        Document fields = elasticsearchOperations.getElasticsearchConverter().mapObject(restaurant);
+        ingester.add(op -> op.update(u -> u
+                .index(index)
+                .id(restaurant.getId())
+                .action(a -> a.doc(fields).docAsUpsert(true))), recordNumber);
+    }
+
+    private static Restaurant toRestaurant(RestaurantImportRecord record) {
+        if (record.getName() == null || record.getName().isBlank()) {
+            throw new IllegalArgumentException("name is required");
+        }
+        if (record.getLatitude() == null || record.getLongitude() == null
+                || Math.abs(record.getLatitude()) > 90 || Math.abs(record.getLongitude()) > 180) {
+            throw new IllegalArgumentException("valid latitude and longitude are required");
+        }
+        CuisineType cuisineType = record.getCuisineType() != null
+                ? CuisineType.valueOf(record.getCuisineType().trim().toUpperCase(Locale.ROOT))
+                : null;
+
+        return Restaurant.builder()
+                .id(record.getId() != null ? record.getId() : UUID.randomUUID().toString())
+                .name(record.getName())
+                .cuisineType(cuisineType)
+                .contactInformation(record.getContactInformation())
+                .geoLocation(new GeoPoint(record.getLatitude(), record.getLongitude()))
+                .coverPhotoId(record.getCoverPhotoId())
+                .address(record.getAddress())
+                .operatingHours(record.getOperatingHours() != null ? record.getOperatingHours().indexRanges() : null)
+                .build();
+    }
+
+    /**
+     * Turns dotted CSV column names ({@code address.city}) into the nested structure of the record.
+     */
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> nest(Map<String, String> row) {
+        Map<String, Object> root = new LinkedHashMap<>();
+        row.forEach((column, value) -> {
+            String[] path = column.split("\\.");
+            Map<String, Object> node = root;
+            for (int i = 0; i < path.length - 1; i++) {
+                node = (Map<String, Object>) node.computeIfAbsent(path[i], key -> new LinkedHashMap<String, Object>());
+            }
+            node.put(path[path.length - 1], value);
+        });
+        return root;
+    }
+
+    private void suspendRefresh(String index) {
+        if (runningImports.getAndIncrement() == 0) {
+            putRefreshInterval(index, "-1");
+        }
+    }
+
+    private void resumeRefresh(String index) {
+        if (runningImports.decrementAndGet() == 0) {
+            putRefreshInterval(index, indexLifecycleProperties.settingsFor(index).getRefreshInterval());
+            try {
+                elasticsearchClient.indices().refresh(r -> r.index(index));
+            } catch (IOException e) {
+                log.warn("Failed to refresh {} after import: {}", index, e.getMessage());
+            }
+        }
+    }
+
+    private void putRefreshInterval(String index, String interval) {
+        try {
+            elasticsearchClient.indices().putSettings(s -> s
+                    .index(index)
+                    .settings(settings -> settings.refreshInterval(t -> t.time(interval))));
+        } catch (IOException e) {
+            log.warn("Failed to set refresh_interval={} on {}: {}", interval, index, e.getMessage());
+        }
+    }
+
+    @FunctionalInterface
+    private interface RecordParser {
+        RestaurantImportRecord parse() throws IOException;
+    }
+
+    /**
+     * Tracks one import. Bulk responses arrive on the client's threads, hence the atomic counters; the record
+     * counter is only touched by the reading thread.
+     */
+    private class Progress implements BulkListener<Long> {
+        private final AtomicLong indexed = new AtomicLong();
+        private final AtomicLong failed = new AtomicLong();
+        private final List<ImportError> errors = Collections.synchronizedList(new ArrayList<>());
+        private long records;
+
+        void rejected(long recordNumber, String message) {
+            failed.incrementAndGet();
+            failedCounter.increment();
+            synchronized (errors) {
+                if (errors.size() < properties.getMaxReportedErrors()) {
+                    errors.add(new ImportError(recordNumber, message));
+                }
+            }
+        }
+
+        @Override
+        public void beforeBulk(long executionId, BulkRequest request, List<Long> contexts) {
+        }
+
+        @Override
+        public void afterBulk(long executionId, BulkRequest request, List<Long> contexts, BulkResponse response) {
+            List<BulkResponseItem> items = response.items();
+            List<String> succeeded = new ArrayList<>(items.size());
+            for (int i = 0; i < items.size(); i++) {
+                BulkResponseItem item = items.get(i);
+                if (item.error() != null) {
+                    rejected(contexts.get(i), item.error().reason());
+                } else {
+                    succeeded.add(item.id());
+                }
+            }
+            indexed.addAndGet(succeeded.size());
+            indexedCounter.increment(succeeded.size());
+            if (!succeeded.isEmpty()) {
+                eventPublisher.publishEvent(new RestaurantsChangedEvent(succeeded));
+            }
+        }
+
+        @Override
+        public void afterBulk(long executionId, BulkRequest request, List<Long> contexts, Throwable failure) {
+            log.warn("Bulk request {} with {} restaurants failed: {}", executionId, contexts.size(), failure.getMessage());
+            contexts.forEach(recordNumber -> rejected(recordNumber, failure.getMessage()));
+        }
+    }
+}
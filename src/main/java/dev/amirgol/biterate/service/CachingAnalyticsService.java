@@ -0,0 +1,92 @@
+package dev.amirgol.biterate.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import dev.amirgol.biterate.config.AnalyticsCacheProperties;
+import dev.amirgol.biterate.domain.dto.RatingDistribution;
+import dev.amirgol.biterate.domain.dto.RatingTrendPoint;
+import dev.amirgol.biterate.domain.dto.TopRatedRestaurant;
+import dev.amirgol.biterate.domain.enums.TrendInterval;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Answers repeated analytics queries from memory for a short TTL.
+ * <p>
+ * Entries are keyed by the query exactly as requested, so an open-ended trend ("the last 90 days") is cached as
+ * such and moves forward when it expires. Like the other caches, values are loaded outside of the cache's compute,
+ * and hit ratio is published as {@code cache.*} meters tagged {@code cache=analytics}.
+ * </p>
+ */
+@Service
+@Primary
+@ConditionalOnProperty(prefix = "biterate.analytics-cache", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class CachingAnalyticsService implements AnalyticsService {
+    private final ElasticsearchAnalyticsService delegate;
+    private final Cache<Object, Object> results;
+
+    public CachingAnalyticsService(ElasticsearchAnalyticsService delegate,
+                                   AnalyticsCacheProperties properties,
+                                   MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        this.results = Caffeine.newBuilder()
+                .maximumSize(properties.getMaximumSize())
+                .expireAfterWrite(properties.getTtl())
+                .recordStats()
+                .build();
+
+        CaffeineCacheMetrics.monitor(meterRegistry, results, "analytics");
+    }
+
+    @Override
+    public RatingDistribution restaurantDistribution(String restaurantId) {
+        return cached(new RestaurantDistributionKey(restaurantId), () -> delegate.restaurantDistribution(restaurantId));
+    }
+
+    @Override
+    public List<RatingDistribution> cuisineDistributions() {
+        return cached(CuisineDistributionsKey.INSTANCE, () -> List.copyOf(delegate.cuisineDistributions()));
+    }
+
+    @Override
+    public List<RatingTrendPoint> trend(String restaurantId, TrendInterval interval, LocalDateTime from, LocalDateTime to) {
+        return cached(new TrendKey(restaurantId, interval, from, to),
+                () -> List.copyOf(delegate.trend(restaurantId, interval, from, to)));
+    }
+
+    @Override
+    public List<TopRatedRestaurant> topRated(LocalDateTime since, int minReviews, int size) {
+        return cached(new TopRatedKey(since, minReviews, size), () -> List.copyOf(delegate.topRated(since, minReviews, size)));
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> T cached(Object key, Supplier<T> loader) {
+        Object cached = results.getIfPresent(key);
+        if (cached != null) {
+            return (T) cached;
+        }
+        T loaded = loader.get();
+        results.put(key, loaded);
+        return loaded;
+    }
+
+    private record RestaurantDistributionKey(String restaurantId) {
+    }
+
+    private enum CuisineDistributionsKey {
+        INSTANCE
+    }
+
+    private record TrendKey(String restaurantId, TrendInterval interval, LocalDateTime from, LocalDateTime to) {
+    }
+
+    private record TopRatedKey(LocalDateTime since, int minReviews, int size) {
+    }
+}
@@ -0,0 +1,506 @@
+package dev.amirgol.biterate.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import dev.amirgol.biterate.config.BlobCacheProperties;
+import dev.amirgol.biterate.domain.dto.PresignedUpload;
+import dev.amirgol.biterate.domain.dto.StagedObject;
+import dev.amirgol.biterate.exception.BiteRateException;
+import dev.amirgol.biterate.config.BlockingIoExecutors;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import io.minio.GetObjectResponse;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.ByteArrayInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+
+/**
+ * Read-through, two-tier blob cache decorating {@link MinioStorageService}.
+ * <p>
+ * Small objects are held on the heap; larger ones are written to a local cache directory and served as
+ * memory-mapped regions, so hits never leave the node. Both tiers are bounded by total bytes and evict with
+ * Caffeine's size-aware W-TinyLFU policy. Stored objects are content-addressed and never rewritten in place, so the
+ * only invalidation needed is on {@link #deleteFile(String)}. Hit, miss and eviction counts are published as
+ * {@code cache.*} meters tagged {@code cache=blobCache.memory} and {@code cache=blobCache.disk}.
+ * </p>
+ * <p>
+ * A miss does not wait for the whole object. One fill per object copies it from MinIO into its tier on the
+ * {@code blob-cache-fill} executor, at MinIO's pace rather than the client's, and every request for the object
+ * while the fill runs, the first one included, streams the bytes already copied. Concurrent misses on the same
+ * object therefore share a single download. When every fill slot is busy, a miss streams straight from MinIO
+ * uncached instead of waiting for one.
+ * </p>
+ */
+@Service
+@Primary
+@ConditionalOnProperty(prefix = "biterate.blob-cache", name = "enabled", havingValue = "true", matchIfMissing = true)
+@Slf4j
+public class CachingMinioService implements MinioService {
+    private static final String CACHE_FILE_SUFFIX = ".blob";
+
+    private final MinioStorageService delegate;
+    private final BlobCacheProperties properties;
+    private final Cache<String, byte[]> memoryTier;
+    private final Cache<String, CachedFile> diskTier;
+    private final ConcurrentMap<String, Fill> fills = new ConcurrentHashMap<>();
+    private final ExecutorService fillExecutor;
+
+    public CachingMinioService(MinioStorageService delegate,
+                               BlobCacheProperties properties,
+                               BlockingIoExecutors blockingIoExecutors,
+                               MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        this.properties = properties;
+        // A fill that cannot start right away is not worth waiting for: the miss is served straight from MinIO
+        this.fillExecutor = blockingIoExecutors.createRejecting(
+                "blob-cache-fill", properties.getFillConcurrency(), Duration.ZERO);
+
+        this.memoryTier = Caffeine.newBuilder()
+                .maximumWeight(properties.getMemory().getMaxSize().toBytes())
+                .weigher((String objectName, byte[] bytes) -> bytes.length)
+                .recordStats()
+                .build();
+        this.diskTier = Caffeine.newBuilder()
+                .maximumWeight(properties.getDisk().getMaxSize().toBytes())
+                .weigher((String objectName, CachedFile file) -> (int) file.size())
+                .removalListener((String objectName, CachedFile file, RemovalCause cause) -> deleteQuietly(file))
+                .recordStats()
+                .build();
+
+        CaffeineCacheMetrics.monitor(meterRegistry, memoryTier, "blobCache.memory");
+        CaffeineCacheMetrics.monitor(meterRegistry, diskTier, "blobCache.disk");
+    }
+
+    @PostConstruct
+    public void init() {
+        if (!properties.getDisk().isEnabled()) {
+            return;
+        }
+        Path directory = properties.getDisk().getDirectory();
+        try {
+            Files.createDirectories(directory);
+            // The index is in-memory only, so files left behind by a previous run can never be hit again
+            try (Stream<Path> leftovers = Files.list(directory)) {
+                leftovers.filter(path -> path.toString().endsWith(CACHE_FILE_SUFFIX))
+                        .forEach(path -> deleteQuietly(new CachedFile(path, 0)));
+            }
+            log.info("Blob disk cache initialized at: {}", directory);
+        } catch (IOException exception) {
+            throw new BiteRateException("Failed to initialize blob cache directory: " + directory, exception);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        fillExecutor.shutdownNow();
+    }
+
+    @Override
+    public String uploadFile(MultipartFile file) {
+        return delegate.uploadFile(file);
+    }
+
+    @Override
+    public StagedObject stageFile(MultipartFile file) {
+        return delegate.stageFile(file);
+    }
+
+    @Override
+    public String commitFile(StagedObject stagedObject) {
+        return delegate.commitFile(stagedObject);
+    }
+
+    @Override
+    public void discardFile(StagedObject stagedObject) {
+        delegate.discardFile(stagedObject);
+    }
+
+    @Override
+    public PresignedUpload presignUpload(Duration ttl) {
+        return delegate.presignUpload(ttl);
+    }
+
+    @Override
+    public StagedObject stageUploaded(String uploadId, String originalFilename) {
+        return delegate.stageUploaded(uploadId, originalFilename);
+    }
+
+    @Override
+    public String presignDownload(String objectName, String attachmentFilename, Duration ttl) {
+        return delegate.presignDownload(objectName, attachmentFilename, ttl);
+    }
+
+    @Override
+    public void copyFile(String sourceName, String targetName) {
+        delegate.copyFile(sourceName, targetName);
+    }
+
+    @Override
+    public void storeFile(String objectName, InputStream inputStream, long size, String contentType) {
+        delegate.storeFile(objectName, inputStream, size, contentType);
+    }
+
+    @Override
+    public Optional<Long> getFileSize(String objectName) {
+        return delegate.getFileSize(objectName);
+    }
+
+    @Override
+    public InputStream downloadFile(String objectName) {
+        // A fill puts its object into the tier before it is removed from the map, so checking in this order never
+        // misses both
+        Fill running = fills.get(objectName);
+        if (running != null) {
+            InputStream following = running.follow();
+            if (following != null) {
+                return following;
+            }
+        }
+
+        byte[] bytes = memoryTier.getIfPresent(objectName);
+        if (bytes != null) {
+            return new ByteArrayInputStream(bytes);
+        }
+
+        InputStream cached = readDiskTier(objectName, 0, Long.MAX_VALUE);
+        if (cached != null) {
+            return cached;
+        }
+
+        InputStream inputStream = delegate.downloadFile(objectName);
+        long size = contentLength(inputStream);
+        boolean memory = size >= 0 && size <= properties.getMemory().getMaxObjectSize().toBytes();
+        boolean disk = !memory && size >= 0
+                && properties.getDisk().isEnabled() && size <= properties.getDisk().getMaxObjectSize().toBytes();
+        if (!memory && !disk) {
+            return inputStream;
+        }
+
+        Fill fill;
+        try {
+            fill = new Fill(objectName, inputStream, size, memory);
+        } catch (IOException exception) {
+            log.warn("Failed to create blob cache file for {}: {}", objectName, exception.getMessage());
+            return inputStream;
+        }
+        Fill existing = fills.putIfAbsent(objectName, fill);
+        if (existing != null) {
+            // Another request started the same fill meanwhile; follow that one instead of downloading twice
+            fill.discard();
+            closeQuietly(inputStream);
+            InputStream following = existing.follow();
+            return following != null ? following : delegate.downloadFile(objectName);
+        }
+        try {
+            fillExecutor.execute(fill);
+        } catch (RejectedExecutionException exception) {
+            // Every fill slot is busy; pass the download through uncached rather than copy it on this thread
+            fills.remove(objectName, fill);
+            fill.discard();
+            return inputStream;
+        }
+        InputStream following = fill.follow();
+        return following != null ? following : delegate.downloadFile(objectName);
+    }
+
+    /**
+     * Serves ranges of cached objects locally; ranges of uncached objects go straight to MinIO without populating
+     * the cache, since a partial read cannot be cached as the whole object.
+     */
+    @Override
+    public InputStream downloadFile(String objectName, long offset, long length) {
+        byte[] bytes = memoryTier.getIfPresent(objectName);
+        if (bytes != null) {
+            return new ByteArrayInputStream(bytes, (int) offset, (int) Math.min(length, bytes.length - offset));
+        }
+
+        InputStream cached = readDiskTier(objectName, offset, length);
+        if (cached != null) {
+            return cached;
+        }
+        return delegate.downloadFile(objectName, offset, length);
+    }
+
+    @Override
+    public void deleteFile(String objectName) {
+        delegate.deleteFile(objectName);
+        Fill fill = fills.get(objectName);
+        if (fill != null) {
+            fill.discard();
+        }
+        memoryTier.invalidate(objectName);
+        diskTier.invalidate(objectName);
+    }
+
+    @Override
+    public void deleteFiles(String prefix) {
+        delegate.deleteFiles(prefix);
+        fills.forEach((objectName, fill) -> {
+            if (objectName.startsWith(prefix)) {
+                fill.discard();
+            }
+        });
+        memoryTier.asMap().keySet().removeIf(objectName -> objectName.startsWith(prefix));
+        diskTier.asMap().keySet().removeIf(objectName -> objectName.startsWith(prefix));
+    }
+
+    private InputStream readDiskTier(String objectName, long offset, long length) {
+        CachedFile file = diskTier.getIfPresent(objectName);
+        if (file == null) {
+            return null;
+        }
+
+        InputStream cached = mapRegion(file, offset, Math.min(length, file.size() - offset));
+        if (cached == null) {
+            diskTier.invalidate(objectName);
+        }
+        return cached;
+    }
+
+    private InputStream mapRegion(CachedFile file, long offset, long length) {
+        try (FileChannel channel = FileChannel.open(file.path(), StandardOpenOption.READ)) {
+            // The mapping stays valid after the channel is closed and even after the file is evicted and unlinked
+            return new ByteBufferInputStream(channel.map(FileChannel.MapMode.READ_ONLY, offset, length));
+        } catch (IOException exception) {
+            log.warn("Failed to read cached blob: {}, Error: {}", file.path(), exception.getMessage());
+            return null;
+        }
+    }
+
+    private long contentLength(InputStream inputStream) {
+        if (inputStream instanceof GetObjectResponse response) {
+            String contentLength = response.headers().get("Content-Length");
+            if (contentLength != null) {
+                return Long.parseLong(contentLength);
+            }
+        }
+        return -1;
+    }
+
+    private void closeQuietly(InputStream inputStream) {
+        try {
+            inputStream.close();
+        } catch (IOException exception) {
+            log.debug("Failed to close MinIO stream: {}", exception.getMessage());
+        }
+    }
+
+    private void deleteQuietly(CachedFile file) {
+        try {
+            Files.deleteIfExists(file.path());
+        } catch (IOException exception) {
+            log.warn("Failed to delete cached blob: {}, Error: {}", file.path(), exception.getMessage());
+        }
+    }
+
+    private record CachedFile(Path path, long size) {
+    }
+
+    /**
+     * Copies one object from MinIO into a heap array or a cache file, and lets readers follow the copy.
+     */
+    private final class Fill implements Runnable {
+        private final String objectName;
+        private final InputStream source;
+        private final long size;
+        private final byte[] bytes;
+        private final CachedFile file;
+        private final Lock lock = new ReentrantLock();
+        private final Condition progressed = lock.newCondition();
+        private long copied;
+        private boolean finished;
+        private IOException failure;
+        private volatile boolean discarded;
+
+        private Fill(String objectName, InputStream source, long size, boolean memory) throws IOException {
+            this.objectName = objectName;
+            this.source = source;
+            this.size = size;
+            this.bytes = memory ? new byte[(int) size] : null;
+            // Every fill gets its own file, so replacing an entry never deletes a file another reader just opened
+            this.file = memory ? null : new CachedFile(
+                    properties.getDisk().getDirectory().resolve(UUID.randomUUID() + CACHE_FILE_SUFFIX), size);
+            if (file != null) {
+                Files.createFile(file.path());
+            }
+        }
+
+        @Override
+        public void run() {
+            try (source; FileChannel out = file == null ? null : FileChannel.open(file.path(), StandardOpenOption.WRITE)) {
+                byte[] buffer = bytes != null ? bytes : new byte[64 * 1024];
+                while (copied < size && !discarded) {
+                    int offset = bytes != null ? (int) copied : 0;
+                    int read = source.read(buffer, offset, (int) Math.min(buffer.length - offset, size - copied));
+                    if (read < 0) {
+                        throw new EOFException("Object ended after " + copied + " of " + size + " bytes");
+                    }
+                    if (out != null) {
+                        ByteBuffer chunk = ByteBuffer.wrap(buffer, 0, read);
+                        while (chunk.hasRemaining()) {
+                            out.write(chunk);
+                        }
+                    }
+                    advance(read);
+                }
+                if (discarded) {
+                    throw new IOException("Object was deleted while it was being cached");
+                }
+                if (bytes != null) {
+                    memoryTier.put(objectName, bytes);
+                } else {
+                    diskTier.put(objectName, file);
+                }
+                // A delete that raced with the put above must not leave the object cached
+                if (discarded) {
+                    memoryTier.invalidate(objectName);
+                    diskTier.invalidate(objectName);
+                }
+                finish(null);
+            } catch (IOException | RuntimeException exception) {
+                log.warn("Failed to cache blob {}: {}", objectName, exception.getMessage());
+                if (file != null) {
+                    deleteQuietly(file);
+                }
+                finish(exception instanceof IOException io ? io : new IOException(exception));
+            } finally {
+                fills.remove(objectName, this);
+            }
+        }
+
+        private void discard() {
+            discarded = true;
+            if (file != null && fills.get(objectName) != this) {
+                deleteQuietly(file); // Never started
+            }
+        }
+
+        private void advance(int read) {
+            lock.lock();
+            try {
+                copied += read;
+                progressed.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private void finish(IOException exception) {
+            lock.lock();
+            try {
+                failure = exception;
+                finished = true;
+                progressed.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        /**
+         * Blocks until more than {@code position} bytes are copied or the fill ends, and returns the bytes copied.
+         * Readers are usually virtual threads, which a lock condition does not pin while they wait.
+         */
+        private long awaitBeyond(long position) throws IOException {
+            lock.lock();
+            try {
+                while (copied <= position && !finished) {
+                    progressed.await();
+                }
+                if (failure != null) {
+                    throw new IOException("MinIO download of " + objectName + " failed", failure);
+                }
+                return copied;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while waiting for " + objectName);
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        /**
+         * A stream over the whole object that returns bytes as soon as they are copied, or {@code null} if the
+         * cache file is already gone.
+         */
+        private InputStream follow() {
+            if (bytes != null) {
+                return new FollowingInputStream(this, null);
+            }
+            try {
+                return new FollowingInputStream(this, FileChannel.open(file.path(), StandardOpenOption.READ));
+            } catch (IOException exception) {
+                return null;
+            }
+        }
+    }
+
+    private static final class FollowingInputStream extends InputStream {
+        private final Fill fill;
+        private final FileChannel channel;
+        private long position;
+
+        private FollowingInputStream(Fill fill, FileChannel channel) {
+            this.fill = fill;
+            this.channel = channel;
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] single = new byte[1];
+            return read(single, 0, 1) < 0 ? -1 : single[0] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            if (length == 0) {
+                return 0;
+            }
+            if (position >= fill.size) {
+                return -1;
+            }
+            long copied = fill.awaitBeyond(position);
+            int count = (int) Math.min(length, copied - position);
+            if (channel == null) {
+                System.arraycopy(fill.bytes, (int) position, buffer, offset, count);
+            } else {
+                count = channel.read(ByteBuffer.wrap(buffer, offset, count), position);
+            }
+            position += count;
+            return count;
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (channel != null) {
+                channel.close();
+            }
+        }
+    }
+}
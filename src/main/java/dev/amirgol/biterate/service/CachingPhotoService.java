@@ -0,0 +1,156 @@
+package dev.amirgol.biterate.service;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import dev.amirgol.biterate.config.PhotoCacheProperties;
+import dev.amirgol.biterate.domain.dto.BatchUploadItem;
+import dev.amirgol.biterate.domain.entites.Photo;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.annotation.Primary;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * Bounded in-process cache of {@link Photo} metadata keyed by id, decorating {@link ElasticsearchPhotoService}.
+ * <p>
+ * Photo metadata does not change after upload, so reads are served without an Elasticsearch round-trip until the
+ * entry expires. Misses are cached as empty results for {@code negativeTtl} so repeated 404s stay cheap. Size and
+ * hit ratio are published as {@code cache.*} meters tagged {@code cache=photoMetadata}.
+ * </p>
+ */
+@Service
+@Primary
+@ConditionalOnProperty(prefix = "biterate.photo-cache", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class CachingPhotoService implements PhotoService {
+    private final ElasticsearchPhotoService delegate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final AsyncCache<String, Optional<Photo>> photos;
+
+    public CachingPhotoService(ElasticsearchPhotoService delegate,
+                               PhotoCacheProperties properties,
+                               ApplicationEventPublisher eventPublisher,
+                               MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        this.eventPublisher = eventPublisher;
+
+        long ttlNanos = properties.getTtl().toNanos();
+        long negativeTtlNanos = properties.getNegativeTtl().toNanos();
+        this.photos = Caffeine.newBuilder()
+                .maximumSize(properties.getMaximumSize())
+                .expireAfter(new Expiry<String, Optional<Photo>>() {
+                    @Override
+                    public long expireAfterCreate(String id, Optional<Photo> photo, long currentTime) {
+                        return photo.isPresent() ? ttlNanos : negativeTtlNanos;
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String id, Optional<Photo> photo, long currentTime, long currentDuration) {
+                        return expireAfterCreate(id, photo, currentTime);
+                    }
+
+                    @Override
+                    public long expireAfterRead(String id, Optional<Photo> photo, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .recordStats()
+                .buildAsync();
+
+        CaffeineCacheMetrics.monitor(meterRegistry, photos.synchronous(), "photoMetadata");
+    }
+
+    @Override
+    public Photo upload(MultipartFile file) {
+        Photo photo = delegate.upload(file);
+        photos.synchronous().invalidate(photo.getId());
+        return photo;
+    }
+
+    @Override
+    public Photo completeUpload(String uploadId, String originalFilename) {
+        Photo photo = delegate.completeUpload(uploadId, originalFilename);
+        photos.synchronous().invalidate(photo.getId());
+        return photo;
+    }
+
+    @Override
+    public List<BatchUploadItem> uploadAll(List<MultipartFile> files) {
+        List<BatchUploadItem> items = delegate.uploadAll(files);
+        items.stream()
+                .filter(item -> item.getPhoto() != null)
+                .forEach(item -> photos.synchronous().invalidate(item.getPhoto().getId()));
+        return items;
+    }
+
+    /**
+     * A miss registers an incomplete future and loads on the calling thread, outside of any cache compute, so the
+     * blocking Elasticsearch call never holds a map lock, which would pin the carrier on virtual threads. Concurrent
+     * misses wait for that one load. An invalidation during the load removes the future, and Caffeine does not put
+     * a completed future back once it was removed, so a deleted or changed photo is never cached by a load that
+     * started before the change.
+     */
+    @Override
+    public Optional<Photo> findById(String id) {
+        CompletableFuture<Optional<Photo>> cached = photos.getIfPresent(id);
+        if (cached == null) {
+            CompletableFuture<Optional<Photo>> loading = new CompletableFuture<>();
+            cached = photos.asMap().putIfAbsent(id, loading);
+            if (cached == null) {
+                return load(id, loading);
+            }
+        }
+        try {
+            return cached.join();
+        } catch (CompletionException exception) {
+            throw exception.getCause() instanceof RuntimeException cause ? cause : exception;
+        }
+    }
+
+    private Optional<Photo> load(String id, CompletableFuture<Optional<Photo>> loading) {
+        try {
+            Optional<Photo> photo = delegate.findById(id);
+            loading.complete(photo);
+            return photo;
+        } catch (RuntimeException exception) {
+            loading.completeExceptionally(exception); // Removed from the cache, so the next read retries
+            throw exception;
+        }
+    }
+
+    /**
+     * Listings are not cached; they change with every upload and are cheap paged queries.
+     */
+    @Override
+    public Page<Photo> findByRestaurantId(String restaurantId, Pageable pageable) {
+        return delegate.findByRestaurantId(restaurantId, pageable);
+    }
+
+    @Override
+    public boolean delete(String id) {
+        boolean deleted = delegate.delete(id);
+        invalidate(id);
+        return deleted;
+    }
+
+    @EventListener
+    public void onPhotoInvalidated(PhotoInvalidatedEvent event) {
+        photos.synchronous().invalidate(event.photoId());
+    }
+
+    private void invalidate(String id) {
+        photos.synchronous().invalidate(id);
+        eventPublisher.publishEvent(new PhotoInvalidatedEvent(id));
+    }
+}
@@ -0,0 +1,98 @@
+package dev.amirgol.biterate.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import dev.amirgol.biterate.config.AutocompleteCacheProperties;
+import dev.amirgol.biterate.config.AutocompleteProperties;
+import dev.amirgol.biterate.domain.dto.AutocompleteSuggestion;
+import dev.amirgol.biterate.domain.dto.NearbySearchRequest;
+import dev.amirgol.biterate.domain.dto.RestaurantSearchResponse;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+
+/**
+ * Answers repeated autocomplete keystrokes from memory.
+ * <p>
+ * Entries are keyed by the normalized prefix, the requested size and the caller's location snapped to a grid
+ * cell, and the snapped location is what gets queried, so every user in a cell sees the same ranking whether it
+ * came from the cache or not. Short prefixes typed by many users stay resident under the cache's frequency-based
+ * admission; long, rare ones are evicted first. Hit ratio is published as {@code cache.*} meters tagged
+ * {@code cache=autocomplete}. Nearby search is not cached and passes straight through.
+ * </p>
+ */
+@Service
+@Primary
+@ConditionalOnProperty(prefix = "biterate.autocomplete-cache", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class CachingRestaurantService implements RestaurantService {
+    private final ElasticsearchRestaurantService delegate;
+    private final AutocompleteProperties autocompleteProperties;
+    private final double cellDegrees;
+    private final Cache<AutocompleteKey, List<AutocompleteSuggestion>> suggestions;
+
+    public CachingRestaurantService(ElasticsearchRestaurantService delegate,
+                                    AutocompleteProperties autocompleteProperties,
+                                    AutocompleteCacheProperties properties,
+                                    MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        this.autocompleteProperties = autocompleteProperties;
+        this.cellDegrees = properties.getCellDegrees();
+        this.suggestions = Caffeine.newBuilder()
+                .maximumSize(properties.getMaximumSize())
+                .expireAfterWrite(properties.getTtl())
+                .recordStats()
+                .build();
+
+        CaffeineCacheMetrics.monitor(meterRegistry, suggestions, "autocomplete");
+    }
+
+    @Override
+    public RestaurantSearchResponse searchNearby(NearbySearchRequest request) {
+        return delegate.searchNearby(request);
+    }
+
+    /**
+     * Loads outside of the cache's compute, like the photo metadata cache, so no map lock is held across the
+     * Elasticsearch call. The location is validated before it is snapped, since snapping would pull an out-of-range
+     * coordinate back into range, and the key holds the effective size so every size beyond the maximum shares one
+     * entry.
+     */
+    @Override
+    public List<AutocompleteSuggestion> autocomplete(String prefix, Double latitude, Double longitude, int size) {
+        String normalized = ElasticsearchRestaurantService.normalizePrefix(prefix, autocompleteProperties.getMaxPrefixLength());
+        if (normalized.isEmpty()) {
+            return List.of();
+        }
+        ElasticsearchRestaurantService.validateOptionalLocation(latitude, longitude);
+        int limit = ElasticsearchRestaurantService.autocompleteLimit(size, autocompleteProperties);
+        Double cellLatitude = snap(latitude, 90);
+        Double cellLongitude = snap(longitude, 180);
+        AutocompleteKey key = new AutocompleteKey(normalized, cellLatitude, cellLongitude, limit);
+
+        List<AutocompleteSuggestion> cached = suggestions.getIfPresent(key);
+        if (cached != null) {
+            return cached;
+        }
+        List<AutocompleteSuggestion> loaded = List.copyOf(delegate.autocomplete(normalized, cellLatitude, cellLongitude, limit));
+        suggestions.put(key, loaded);
+        return loaded;
+    }
+
+    /**
+     * Snaps to the centre of the grid cell so the queried origin is never more than half a cell off.
+     */
+    private Double snap(Double coordinate, double bound) {
+        if (coordinate == null) {
+            return null;
+        }
+        double centre = (Math.floor(coordinate / cellDegrees) + 0.5) * cellDegrees;
+        return Math.max(-bound, Math.min(bound, centre));
+    }
+
+    private record AutocompleteKey(String prefix, Double latitude, Double longitude, int size) {
+    }
+}
@@ -0,0 +1,116 @@
+package dev.amirgol.biterate.service;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Minimal streaming RFC 4180 reader: comma separated, fields optionally quoted, {@code ""} escaping a quote inside
+ * a quoted field, and line breaks allowed inside quotes. Rows are read one at a time and keyed by the header row,
+ * and a row longer than {@code maxRowLength} characters is rejected instead of being buffered.
+ */
+class CsvRecordReader {
+    private final Reader reader;
+    private final int maxRowLength;
+    private final List<String> header;
+    private int lookahead = -2;
+
+    CsvRecordReader(Reader reader, int maxRowLength) throws IOException {
+        this.reader = reader;
+        this.maxRowLength = maxRowLength;
+        List<String> columns = readRow();
+        if (columns == null) {
+            throw new IOException("CSV has no header row");
+        }
+        this.header = columns.stream().map(String::trim).toList();
+    }
+
+    /**
+     * @return the next row keyed by column name, with empty cells omitted, or {@code null} at end of input
+     * @throws IllegalArgumentException if the row has more fields than the header; the following rows are unaffected
+     * @throws IOException if the input ends inside a quoted field or the row exceeds {@code maxRowLength}
+     */
+    Map<String, String> next() throws IOException {
+        List<String> row;
+        do {
+            row = readRow();
+            if (row == null) {
+                return null;
+            }
+        } while (row.size() == 1 && row.get(0).isEmpty()); // Blank line
+
+        if (row.size() > header.size()) {
+            throw new IllegalArgumentException("Row has " + row.size() + " fields but the header has " + header.size());
+        }
+        Map<String, String> values = new LinkedHashMap<>();
+        for (int i = 0; i < row.size(); i++) {
+            if (!row.get(i).isEmpty()) {
+                values.put(header.get(i), row.get(i));
+            }
+        }
+        return values;
+    }
+
+    private List<String> readRow() throws IOException {
+        int c = read();
+        if (c == -1) {
+            return null;
+        }
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        int length = 0;
+        while (true) {
+            if (++length > maxRowLength) {
+                throw new IOException("Row exceeds " + maxRowLength + " characters");
+            }
+            if (quoted) {
+                if (c == -1) {
+                    throw new IOException("Unterminated quoted field");
+                }
+                if (c == '"') {
+                    int following = read();
+                    if (following == '"') {
+                        field.append('"');
+                    } else {
+                        quoted = false;
+                        c = following;
+                        continue;
+                    }
+                } else {
+                    field.append((char) c);
+                }
+            } else if (c == '"' && field.isEmpty()) {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else if (c == '\n' || c == -1) {
+                break;
+            } else if (c == '\r') {
+                int following = read();
+                if (following != '\n') {
+                    lookahead = following;
+                }
+                break;
+            } else {
+                field.append((char) c);
+            }
+            c = read();
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+
+    private int read() throws IOException {
+        if (lookahead != -2) {
+            int c = lookahead;
+            lookahead = -2;
+            return c;
+        }
+        return reader.read();
+    }
+}
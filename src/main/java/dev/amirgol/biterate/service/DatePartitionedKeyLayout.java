@@ -0,0 +1,48 @@
+package dev.amirgol.biterate.service;
+
+import dev.amirgol.biterate.config.MinioProperties;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.regex.Pattern;
+
+/**
+ * Partitions by upload day (UTC) and shards by hash within the day: {@code 2025/06/09/ab/<hash>_<millis>.<ext>}.
+ * A whole day, month or year can be targeted by one prefix, while the hash levels still spread the day's writes.
+ */
+@Component
+@ConditionalOnProperty(prefix = "minio.layout", name = "strategy", havingValue = "DATE_PARTITIONED")
+public class DatePartitionedKeyLayout implements ObjectKeyLayout {
+    private static final DateTimeFormatter DAY = DateTimeFormatter.ofPattern("yyyy/MM/dd/").withZone(ZoneOffset.UTC);
+    private static final int DAY_PREFIX_LENGTH = "yyyy/MM/dd/".length();
+
+    private final int shardDepth;
+    private final Pattern name;
+
+    public DatePartitionedKeyLayout(MinioProperties minioProperties) {
+        this.shardDepth = minioProperties.getLayout().getShardDepth();
+        this.name = Pattern.compile("\\d{4}/\\d{2}/\\d{2}/([0-9a-f]{2}/){" + shardDepth + "}[0-9a-f]{32}_\\d+\\.[^/]+");
+    }
+
+    @Override
+    public String objectName(String contentHash, String fileExtension, Instant storedAt) {
+        return DAY.format(storedAt) + HashPrefixKeyLayout.shardPrefix(contentHash, shardDepth)
+                + contentHash + "_" + storedAt.toEpochMilli() + "." + fileExtension;
+    }
+
+    @Override
+    public boolean matches(String objectName) {
+        return name.matcher(objectName).matches();
+    }
+
+    @Override
+    public String partitionOf(String objectName) {
+        if (!matches(objectName)) {
+            throw new IllegalArgumentException("Not a date-partitioned object name: " + objectName);
+        }
+        return objectName.substring(0, DAY_PREFIX_LENGTH);
+    }
+}
@@ -0,0 +1,38 @@
+package dev.amirgol.biterate.service;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+/**
+ * One-off migration that reindexes the indices {@link IndexLifecycleManager} found drifted at startup.
+ * <p>
+ * Enabled with {@code biterate.migration.reindex-drifted-indices=true}, which also lets startup proceed on a
+ * drifted index instead of failing. It runs on a single instance after the application context is up. Each drifted
+ * alias keeps serving its current index until its documents are copied and the alias is moved. It is safe to
+ * re-run: an index already moved matches its mapping and is not reindexed again, and a partial copy left by an
+ * interrupted run is dropped and started over.
+ * </p>
+ */
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(prefix = "biterate.migration", name = "reindex-drifted-indices", havingValue = "true")
+public class DriftedIndexMigration implements ApplicationRunner {
+    static final String ENABLED_PROPERTY = "biterate.migration.reindex-drifted-indices";
+
+    private final IndexLifecycleManager indexLifecycleManager;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        try {
+            indexLifecycleManager.reindexDrifted();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to reindex drifted indices", e);
+        }
+    }
+}
@@ -0,0 +1,323 @@
+package dev.amirgol.biterate.service;
+
+import co.elastic.clients.elasticsearch.ElasticsearchClient;
+import co.elastic.clients.elasticsearch._types.FieldValue;
+import co.elastic.clients.elasticsearch._types.SortOrder;
+import co.elastic.clients.elasticsearch._types.aggregations.Aggregate;
+import co.elastic.clients.elasticsearch._types.aggregations.Aggregation;
+import co.elastic.clients.elasticsearch._types.aggregations.CalendarInterval;
+import co.elastic.clients.elasticsearch._types.aggregations.CompositeAggregate;
+import co.elastic.clients.elasticsearch._types.aggregations.CompositeAggregationSource;
+import co.elastic.clients.elasticsearch._types.aggregations.CompositeBucket;
+import co.elastic.clients.elasticsearch._types.aggregations.DateHistogramBucket;
+import co.elastic.clients.elasticsearch._types.aggregations.FieldDateMath;
+import co.elastic.clients.elasticsearch._types.aggregations.LongTermsBucket;
+import co.elastic.clients.elasticsearch._types.aggregations.StringTermsBucket;
+import co.elastic.clients.elasticsearch._types.query_dsl.Query;
+import dev.amirgol.biterate.config.AnalyticsProperties;
+import dev.amirgol.biterate.domain.dto.RatingDistribution;
+import dev.amirgol.biterate.domain.dto.RatingTrendPoint;
+import dev.amirgol.biterate.domain.dto.TopRatedRestaurant;
+import dev.amirgol.biterate.domain.entites.RatingHistogram;
+import dev.amirgol.biterate.domain.entites.Restaurant;
+import dev.amirgol.biterate.domain.entites.Review;
+import dev.amirgol.biterate.domain.enums.CuisineType;
+import dev.amirgol.biterate.domain.enums.TrendInterval;
+import dev.amirgol.biterate.exception.BiteRateException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.elasticsearch.client.elc.NativeQuery;
+import org.springframework.data.elasticsearch.core.ElasticsearchOperations;
+import org.springframework.data.elasticsearch.core.MultiGetItem;
+import org.springframework.data.elasticsearch.core.query.FetchSourceFilterBuilder;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * Rating analytics computed by Elasticsearch aggregations, so no review or restaurant is loaded into the JVM.
+ * <p>
+ * Per-restaurant distributions, trends and top-N rankings aggregate the {@code reviews} index; per-cuisine
+ * distributions sum the running rating aggregates already kept on each restaurant, which is one bucket per cuisine
+ * instead of a join from reviews to restaurants. Reviews without a rating (migrated ones only) are left out.
+ * </p>
+ * <p>
+ * All-time rankings sort restaurants by their maintained {@code averageRating} and {@code ratingCount}. Rankings over
+ * a window page through a composite aggregation of every restaurant reviewed in it and keep the best in a bounded
+ * heap. A terms aggregation ordered by average would be cheaper, but each shard would rank its own top buckets
+ * before the review-count threshold applies, so restaurants with a single five-star review could push qualifying
+ * ones out; paging through all buckets is exact however the reviews are spread over shards.
+ * </p>
+ */
+@Service
+public class ElasticsearchAnalyticsService implements AnalyticsService {
+    private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss");
+    private static final String AVERAGE = "average";
+    private static final String RATINGS = "ratings";
+    private static final int RANKING_PAGE_SIZE = 1000;
+    private static final Comparator<TopRatedRestaurant> RANKING = Comparator
+            .comparingDouble(TopRatedRestaurant::getAverageRating)
+            .thenComparingLong(TopRatedRestaurant::getReviewCount);
+
+    private final ElasticsearchClient elasticsearchClient;
+    private final ElasticsearchOperations elasticsearchOperations;
+    private final AnalyticsProperties properties;
+    private final String reviewIndex;
+    private final String restaurantIndex;
+
+    public ElasticsearchAnalyticsService(ElasticsearchClient elasticsearchClient,
+                                         ElasticsearchOperations elasticsearchOperations,
+                                         AnalyticsProperties properties) {
+        this.elasticsearchClient = elasticsearchClient;
+        this.elasticsearchOperations = elasticsearchOperations;
+        this.properties = properties;
+        this.reviewIndex = elasticsearchOperations.getIndexCoordinatesFor(Review.class).getIndexName();
+        this.restaurantIndex = elasticsearchOperations.getIndexCoordinatesFor(Restaurant.class).getIndexName();
+    }
+
+    @Override
+    public RatingDistribution restaurantDistribution(String restaurantId) {
+        Map<String, Aggregate> aggregations = aggregate(reviewIndex, ratedReviews(restaurantId, null, null), Map.of(
+                RATINGS, Aggregation.of(a -> a.terms(t -> t.field("rating").size(RatingHistogram.BUCKETS.size()))),
+                AVERAGE, Aggregation.of(a -> a.avg(avg -> avg.field("rating")))));
+
+        Map<Integer, Long> counts = emptyCounts();
+        long total = 0;
+        for (LongTermsBucket bucket : aggregations.get(RATINGS).lterms().buckets().array()) {
+            counts.put((int) bucket.key(), bucket.docCount());
+            total += bucket.docCount();
+        }
+        return RatingDistribution.builder()
+                .key(restaurantId)
+                .count(total)
+                .averageRating(valueOf(aggregations.get(AVERAGE).avg().value()))
+                .countsByRating(counts)
+                .build();
+    }
+
+    @Override
+    public List<RatingDistribution> cuisineDistributions() {
+        Map<String, Aggregation> sums = new LinkedHashMap<>();
+        sums.put("ratingSum", sumOf("ratingSum"));
+        sums.put("ratingCount", sumOf("ratingCount"));
+        RatingHistogram.BUCKETS.forEach(bucket -> sums.put(bucket, sumOf("ratingHistogram." + bucket)));
+        Map<String, Aggregate> aggregations = aggregate(restaurantIndex, Query.of(q -> q.matchAll(m -> m)), Map.of(
+                "cuisines", Aggregation.of(a -> a
+                        .terms(t -> t.field("cuisineType").size(CuisineType.values().length))
+                        .aggregations(sums))));
+
+        List<RatingDistribution> distributions = new ArrayList<>();
+        for (StringTermsBucket bucket : aggregations.get("cuisines").sterms().buckets().array()) {
+            Map<String, Aggregate> bucketSums = bucket.aggregations();
+            Map<Integer, Long> counts = emptyCounts();
+            for (int i = 0; i < RatingHistogram.BUCKETS.size(); i++) {
+                counts.put(i + 1, (long) bucketSums.get(RatingHistogram.BUCKETS.get(i)).sum().value());
+            }
+            long count = (long) bucketSums.get("ratingCount").sum().value();
+            double sum = bucketSums.get("ratingSum").sum().value();
+            distributions.add(RatingDistribution.builder()
+                    .key(bucket.key().stringValue())
+                    .count(count)
+                    .averageRating(count > 0 ? sum / count : null)
+                    .countsByRating(counts)
+                    .build());
+        }
+        return distributions;
+    }
+
+    @Override
+    public List<RatingTrendPoint> trend(String restaurantId, TrendInterval interval, LocalDateTime from, LocalDateTime to) {
+        LocalDateTime end = to != null ? to : LocalDateTime.now(); // Reviews are dated in server time
+        LocalDateTime start = from != null ? from : end.minus(properties.getDefaultTrendRange());
+        if (!start.isBefore(end)) {
+            throw new BiteRateException("Trend start must be before its end");
+        }
+        if (start.until(end, unitOf(interval)) >= properties.getMaxTrendBuckets()) {
+            throw new BiteRateException("A trend can have at most " + properties.getMaxTrendBuckets() + " buckets");
+        }
+
+        Map<String, Aggregate> aggregations = aggregate(reviewIndex, ratedReviews(restaurantId, start, end), Map.of(
+                "periods", Aggregation.of(a -> a
+                        .dateHistogram(d -> d
+                                .field("datePosted")
+                                .calendarInterval(calendarIntervalOf(interval))
+                                .minDocCount(0)
+                                .extendedBounds(b -> b
+                                        .min(FieldDateMath.of(m -> m.expr(DATE_FORMAT.format(start))))
+                                        .max(FieldDateMath.of(m -> m.expr(DATE_FORMAT.format(end.minusSeconds(1)))))))
+                        .aggregations(AVERAGE, avg -> avg.avg(v -> v.field("rating"))))));
+
+        List<RatingTrendPoint> points = new ArrayList<>();
+        for (DateHistogramBucket bucket : aggregations.get("periods").dateHistogram().buckets().array()) {
+            points.add(RatingTrendPoint.builder()
+                    .periodStart(LocalDateTime.ofInstant(Instant.ofEpochMilli(bucket.key()), ZoneOffset.UTC))
+                    .count(bucket.docCount())
+                    .averageRating(valueOf(bucket.aggregations().get(AVERAGE).avg().value()))
+                    .build());
+        }
+        return points;
+    }
+
+    @Override
+    public List<TopRatedRestaurant> topRated(LocalDateTime since, int minReviews, int size) {
+        int limit = size <= 0 ? properties.getDefaultTopSize() : Math.min(size, properties.getMaxTopSize());
+        long threshold = Math.max(1, minReviews);
+        return since == null ? topRatedOfAllTime(threshold, limit) : topRatedSince(since, threshold, limit);
+    }
+
+    private List<TopRatedRestaurant> topRatedOfAllTime(long minReviews, int limit) {
+        NativeQuery query = NativeQuery.builder()
+                .withQuery(q -> q.range(r -> r.number(n -> n.field("ratingCount").gte((double) minReviews))))
+                .withSort(sort -> sort.field(f -> f.field("averageRating").order(SortOrder.Desc)))
+                .withSort(sort -> sort.field(f -> f.field("ratingCount").order(SortOrder.Desc)))
+                .withSourceFilter(new FetchSourceFilterBuilder().withIncludes("name", "averageRating", "ratingCount").build())
+                .withPageable(PageRequest.of(0, limit))
+                .withTrackTotalHits(false)
+                .build();
+        return elasticsearchOperations.search(query, Restaurant.class).getSearchHits().stream()
+                .map(hit -> TopRatedRestaurant.builder()
+                        .restaurantId(hit.getId())
+                        .name(hit.getContent().getName())
+                        .averageRating(hit.getContent().getAverageRating())
+                        .reviewCount(hit.getContent().getRatingCount())
+                        .build())
+                .toList();
+    }
+
+    private List<TopRatedRestaurant> topRatedSince(LocalDateTime since, long minReviews, int limit) {
+        PriorityQueue<TopRatedRestaurant> best = new PriorityQueue<>(RANKING);
+        Query reviews = ratedReviews(null, since, null);
+        Map<String, FieldValue> after = null;
+        do {
+            Map<String, FieldValue> afterKey = after;
+            CompositeAggregate page = aggregate(reviewIndex, reviews, Map.of(
+                    "restaurants", Aggregation.of(a -> a
+                            .composite(c -> {
+                                c.size(RANKING_PAGE_SIZE).sources(List.of(Map.of("restaurantId",
+                                        CompositeAggregationSource.of(source -> source.terms(t -> t.field("restaurantId"))))));
+                                if (afterKey != null) {
+                                    c.after(afterKey);
+                                }
+                                return c;
+                            })
+                            .aggregations(AVERAGE, avg -> avg.avg(v -> v.field("rating")))))).get("restaurants").composite();
+            for (CompositeBucket bucket : page.buckets().array()) {
+                if (bucket.docCount() < minReviews) {
+                    continue;
+                }
+                best.add(TopRatedRestaurant.builder()
+                        .restaurantId(bucket.key().get("restaurantId").stringValue())
+                        .averageRating(bucket.aggregations().get(AVERAGE).avg().value())
+                        .reviewCount(bucket.docCount())
+                        .build());
+                if (best.size() > limit) {
+                    best.poll();
+                }
+            }
+            after = page.buckets().array().isEmpty() ? null : page.afterKey();
+        } while (after != null && !after.isEmpty());
+
+        List<TopRatedRestaurant> ranked = new ArrayList<>(best);
+        ranked.sort(RANKING.reversed());
+        if (!ranked.isEmpty()) {
+            Map<String, String> names = namesOf(ranked.stream().map(TopRatedRestaurant::getRestaurantId).toList());
+            ranked.forEach(restaurant -> restaurant.setName(names.get(restaurant.getRestaurantId())));
+        }
+        return ranked;
+    }
+
+    private Map<String, Aggregate> aggregate(String index, Query query, Map<String, Aggregation> aggregations) {
+        try {
+            return elasticsearchClient.search(s -> s
+                    .index(index)
+                    .size(0)
+                    .trackTotalHits(t -> t.enabled(false))
+                    .query(query)
+                    .aggregations(aggregations), Void.class).aggregations();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Rating aggregation on " + index + " failed", e);
+        }
+    }
+
+    private static Query ratedReviews(String restaurantId, LocalDateTime from, LocalDateTime to) {
+        List<Query> filters = new ArrayList<>(3);
+        filters.add(Query.of(q -> q.range(r -> r.number(n -> n.field("rating").gte(1.0)))));
+        if (restaurantId != null) {
+            filters.add(Query.of(q -> q.term(t -> t.field("restaurantId").value(FieldValue.of(restaurantId)))));
+        }
+        if (from != null || to != null) {
+            filters.add(Query.of(q -> q.range(r -> r.date(d -> {
+                d.field("datePosted");
+                if (from != null) {
+                    d.gte(DATE_FORMAT.format(from));
+                }
+                if (to != null) {
+                    d.lt(DATE_FORMAT.format(to));
+                }
+                return d;
+            }))));
+        }
+        return Query.of(q -> q.bool(b -> b.filter(filters)));
+    }
+
+    private Map<String, String> namesOf(List<String> restaurantIds) {
+        NativeQuery query = NativeQuery.builder()
+                .withIds(restaurantIds)
+                .withSourceFilter(new FetchSourceFilterBuilder().withIncludes("name").build())
+                .build();
+        Map<String, String> names = new LinkedHashMap<>();
+        List<MultiGetItem<Restaurant>> items = elasticsearchOperations.multiGet(query, Restaurant.class);
+        for (int i = 0; i < items.size(); i++) {
+            if (items.get(i).hasItem()) {
+                names.put(restaurantIds.get(i), items.get(i).getItem().getName());
+            }
+        }
+        return names;
+    }
+
+    private static Aggregation sumOf(String field) {
+        return Aggregation.of(a -> a.sum(s -> s.field(field)));
+    }
+
+    private static Map<Integer, Long> emptyCounts() {
+        Map<Integer, Long> counts = new LinkedHashMap<>();
+        for (int rating = 1; rating <= RatingHistogram.BUCKETS.size(); rating++) {
+            counts.put(rating, 0L);
+        }
+        return counts;
+    }
+
+    /**
+     * Metric aggregations over no documents report NaN rather than null.
+     */
+    private static Double valueOf(double value) {
+        return Double.isNaN(value) ? null : value;
+    }
+
+    private static CalendarInterval calendarIntervalOf(TrendInterval interval) {
+        return switch (interval) {
+            case DAY -> CalendarInterval.Day;
+            case WEEK -> CalendarInterval.Week;
+            case MONTH -> CalendarInterval.Month;
+        };
+    }
+
+    private static ChronoUnit unitOf(TrendInterval interval) {
+        return switch (interval) {
+            case DAY -> ChronoUnit.DAYS;
+            case WEEK -> ChronoUnit.WEEKS;
+            case MONTH -> ChronoUnit.MONTHS;
+        };
+    }
+}
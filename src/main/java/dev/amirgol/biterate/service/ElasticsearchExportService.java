@@ -0,0 +1,197 @@
+package dev.amirgol.biterate.service;
+
+import co.elastic.clients.elasticsearch.ElasticsearchClient;
+import co.elastic.clients.elasticsearch._types.FieldValue;
+import co.elastic.clients.elasticsearch._types.SortOrder;
+import co.elastic.clients.elasticsearch.core.SearchResponse;
+import co.elastic.clients.elasticsearch.core.search.Hit;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import dev.amirgol.biterate.config.BlockingIoExecutors;
+import dev.amirgol.biterate.config.ExportProperties;
+import dev.amirgol.biterate.domain.entites.Photo;
+import dev.amirgol.biterate.domain.entites.Restaurant;
+import dev.amirgol.biterate.domain.entites.Review;
+import dev.amirgol.biterate.domain.enums.ExportTarget;
+import dev.amirgol.biterate.exception.BiteRateException;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.elasticsearch.core.ElasticsearchOperations;
+import org.springframework.stereotype.Service;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Exports an index through a point-in-time, paging with {@code search_after} on {@code _shard_doc}.
+ * <p>
+ * Unlike {@code from/size}, every page costs the same no matter how deep the export is, and the point-in-time
+ * gives a consistent snapshot while writes continue. With more than one slice, each slice walks its own disjoint
+ * part of the point-in-time on a separate thread. Only one page per slice is held in memory: a page is serialized
+ * and written before the next one is requested, so a slow reader of {@code out} throttles the export instead of
+ * letting it buffer.
+ * </p>
+ */
+@Service
+@Slf4j
+public class ElasticsearchExportService implements ExportService {
+    private final ElasticsearchClient elasticsearchClient;
+    private final ElasticsearchOperations elasticsearchOperations;
+    private final ObjectMapper objectMapper;
+    private final ExportProperties properties;
+    private final ExecutorService sliceExecutor;
+
+    public ElasticsearchExportService(ElasticsearchClient elasticsearchClient,
+                                      ElasticsearchOperations elasticsearchOperations,
+                                      ObjectMapper objectMapper,
+                                      ExportProperties properties,
+                                      BlockingIoExecutors blockingIoExecutors) {
+        this.elasticsearchClient = elasticsearchClient;
+        this.elasticsearchOperations = elasticsearchOperations;
+        this.objectMapper = objectMapper;
+        this.properties = properties;
+        this.sliceExecutor = blockingIoExecutors.create("export-slice", properties.getMaxSlices());
+    }
+
+    @Override
+    public long export(ExportTarget target, int slices, OutputStream out) throws IOException {
+        if (slices < 1 || slices > properties.getMaxSlices()) {
+            throw new BiteRateException("Slices must be between 1 and " + properties.getMaxSlices());
+        }
+        String index = elasticsearchOperations.getIndexCoordinatesFor(entityOf(target)).getIndexName();
+        String keepAlive = properties.getKeepAlive().toSeconds() + "s";
+        String pitId = elasticsearchClient.openPointInTime(p -> p.index(index).keepAlive(t -> t.time(keepAlive))).id();
+
+        AtomicLong written = new AtomicLong();
+        AtomicBoolean aborted = new AtomicBoolean();
+        Lock outLock = new ReentrantLock();
+        List<CompletableFuture<Void>> others = new ArrayList<>(slices - 1);
+        Throwable failure = null;
+        try {
+            for (int slice = 1; slice < slices; slice++) {
+                int sliceId = slice;
+                others.add(CompletableFuture.runAsync(
+                        () -> exportSlice(pitId, keepAlive, sliceId, slices, out, outLock, written, aborted), sliceExecutor));
+            }
+            exportSlice(pitId, keepAlive, 0, slices, out, outLock, written, aborted);
+        } catch (RuntimeException e) {
+            aborted.set(true);
+            failure = e;
+        }
+        // Every slice writes to out, so none may still be running when this returns, on failure least of all
+        Throwable sliceFailure = CompletableFuture.allOf(others.toArray(CompletableFuture[]::new))
+                .handle((ignored, t) -> t)
+                .join();
+        closePointInTime(pitId);
+        if (failure == null && sliceFailure != null) {
+            failure = sliceFailure instanceof CompletionException ? sliceFailure.getCause() : sliceFailure;
+        }
+        if (failure instanceof UncheckedIOException io) {
+            throw io.getCause();
+        } else if (failure instanceof RuntimeException runtime) {
+            throw runtime;
+        } else if (failure instanceof Error error) {
+            throw error;
+        }
+        out.flush();
+        log.info("Exported {} documents from {} in {} slices", written.get(), index, slices);
+        return written.get();
+    }
+
+    private void exportSlice(String pitId, String keepAlive, int sliceId, int slices, OutputStream out, Lock outLock,
+                             AtomicLong written, AtomicBoolean aborted) {
+        List<FieldValue> searchAfter = null;
+        String currentPitId = pitId;
+        try {
+            while (!aborted.get()) {
+                List<FieldValue> after = searchAfter;
+                String pit = currentPitId;
+                SearchResponse<ObjectNode> response = elasticsearchClient.search(s -> {
+                    s.pit(p -> p.id(pit).keepAlive(t -> t.time(keepAlive)))
+                            .size(properties.getPageSize())
+                            .sort(o -> o.field(f -> f.field("_shard_doc").order(SortOrder.Asc)))
+                            .trackTotalHits(t -> t.enabled(false));
+                    if (slices > 1) {
+                        s.slice(sl -> sl.id(String.valueOf(sliceId)).max(slices));
+                    }
+                    if (after != null) {
+                        s.searchAfter(after);
+                    }
+                    return s;
+                }, ObjectNode.class);
+
+                List<Hit<ObjectNode>> hits = response.hits().hits();
+                if (hits.isEmpty()) {
+                    return;
+                }
+                writePage(hits, out, outLock);
+                written.addAndGet(hits.size());
+                searchAfter = hits.get(hits.size() - 1).sort();
+                if (response.pitId() != null) {
+                    currentPitId = response.pitId();
+                }
+            }
+        } catch (IOException e) {
+            aborted.set(true);
+            throw new UncheckedIOException(e);
+        } catch (RuntimeException e) {
+            aborted.set(true);
+            throw e;
+        }
+    }
+
+    private void writePage(List<Hit<ObjectNode>> hits, OutputStream out, Lock outLock) throws IOException {
+        ByteArrayOutputStream page = new ByteArrayOutputStream(hits.size() * 512);
+        for (Hit<ObjectNode> hit : hits) {
+            ObjectNode source = hit.source();
+            if (source == null) {
+                continue;
+            }
+            if (!source.has("id")) {
+                source.put("id", hit.id());
+            }
+            objectMapper.writeValue(page, source);
+            page.write('\n');
+        }
+        // Pages from different slices are interleaved, but lines never are. A lock rather than a monitor, so a slice
+        // blocked on a slow client does not pin its virtual thread's carrier
+        outLock.lock();
+        try {
+            page.writeTo(out);
+        } finally {
+            outLock.unlock();
+        }
+    }
+
+    private void closePointInTime(String pitId) {
+        try {
+            elasticsearchClient.closePointInTime(c -> c.id(pitId));
+        } catch (IOException | RuntimeException e) {
+            log.warn("Failed to close point-in-time, it expires on its own: {}", e.getMessage());
+        }
+    }
+
+    private static Class<?> entityOf(ExportTarget target) {
+        return switch (target) {
+            case RESTAURANTS -> Restaurant.class;
+            case REVIEWS -> Review.class;
+            case PHOTOS -> Photo.class;
+        };
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        sliceExecutor.shutdownNow();
+    }
+}
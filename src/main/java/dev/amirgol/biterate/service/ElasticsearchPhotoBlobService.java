@@ -0,0 +1,127 @@
+package dev.amirgol.biterate.service;
+
+import dev.amirgol.biterate.domain.dto.StagedObject;
+import dev.amirgol.biterate.domain.entites.PhotoBlob;
+import dev.amirgol.biterate.exception.BiteRateException;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.elasticsearch.core.ElasticsearchOperations;
+import org.springframework.data.elasticsearch.core.document.Document;
+import org.springframework.data.elasticsearch.core.query.UpdateQuery;
+import org.springframework.data.elasticsearch.core.query.UpdateResponse;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+
+/**
+ * Reference-counted, content-addressed blob store backed by the {@code photo_blobs} index.
+ * <p>
+ * All reference count changes are Painless scripted updates so concurrent uploads and deletes of the same
+ * content never lose an increment. The scripts run as scripted upserts and turn themselves into a no-op when the
+ * blob document does not exist, which lets callers tell "already stored" from "not stored" without a separate
+ * lookup.
+ * </p>
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ElasticsearchPhotoBlobService implements PhotoBlobService {
+    private static final String ACQUIRE_SCRIPT =
+            "if (ctx.op == 'create') { ctx.op = 'none' } else { ctx._source.referenceCount += 1 }";
+    private static final String REGISTER_SCRIPT =
+            "ctx._source.referenceCount += 1";
+    private static final String RELEASE_SCRIPT =
+            "if (ctx.op == 'create') { ctx.op = 'none' } "
+                    + "else { ctx._source.referenceCount -= 1; if (ctx._source.referenceCount <= 0) { ctx.op = 'delete' } }";
+    private static final int RETRY_ON_CONFLICT = 5;
+
+    private final ElasticsearchOperations elasticsearchOperations;
+    private final MinioService minIOService;
+
+    /**
+     * Stores a staged object, or reuses the existing blob with the same content hash.
+     *
+     * @return the storage key of the blob the caller now holds a reference to
+     */
+    @Override
+    public String store(StagedObject stagedObject) {
+        String contentHash = stagedObject.getContentHash();
+
+        if (acquireExisting(contentHash)) {
+            minIOService.discardFile(stagedObject);
+            log.info("Deduplicated upload with content hash: {}", contentHash);
+            return getStorageKey(contentHash);
+        }
+
+        String storageKey = minIOService.commitFile(stagedObject);
+        PhotoBlob blob = PhotoBlob.builder()
+                .id(contentHash)
+                .storageKey(storageKey)
+                .contentType(stagedObject.getContentType())
+                .fileSize(stagedObject.getFileSize())
+                .referenceCount(1)
+                .createdDate(LocalDateTime.now())
+                .build();
+
+        UpdateQuery registerQuery = UpdateQuery.builder(contentHash)
+                .withScript(REGISTER_SCRIPT)
+                .withLang("painless")
+                .withUpsert(elasticsearchOperations.getElasticsearchConverter().mapObject(blob))
+                .withRetryOnConflict(RETRY_ON_CONFLICT)
+                .build();
+        UpdateResponse response = elasticsearchOperations.update(registerQuery, elasticsearchOperations.getIndexCoordinatesFor(PhotoBlob.class));
+        if (response.getResult() == UpdateResponse.Result.CREATED) {
+            return storageKey;
+        }
+
+        // A concurrent upload of the same content registered its blob first; keep theirs and drop ours
+        String existingKey = getStorageKey(contentHash);
+        if (!storageKey.equals(existingKey)) {
+            minIOService.deleteFile(storageKey);
+        }
+        return existingKey;
+    }
+
+    /**
+     * Drops one reference to the blob and removes the MinIO object once the last reference is gone.
+     */
+    @Override
+    public void release(String contentHash) {
+        UpdateQuery releaseQuery = UpdateQuery.builder(contentHash)
+                .withScript(RELEASE_SCRIPT)
+                .withLang("painless")
+                .withScriptedUpsert(true)
+                .withUpsert(Document.create())
+                .withRetryOnConflict(RETRY_ON_CONFLICT)
+                .build();
+
+        PhotoBlob blob = elasticsearchOperations.get(contentHash, PhotoBlob.class);
+        UpdateResponse response = elasticsearchOperations.update(releaseQuery, elasticsearchOperations.getIndexCoordinatesFor(PhotoBlob.class));
+        if (response.getResult() == UpdateResponse.Result.DELETED && blob != null) {
+            minIOService.deleteFile(blob.getStorageKey());
+            minIOService.deleteFiles(RenditionService.renditionPrefix(blob.getStorageKey()));
+            log.info("Removed blob {} after its last reference was released", blob.getStorageKey());
+        }
+    }
+
+    private boolean acquireExisting(String contentHash) {
+        UpdateQuery acquireQuery = UpdateQuery.builder(contentHash)
+                .withScript(ACQUIRE_SCRIPT)
+                .withLang("painless")
+                .withScriptedUpsert(true)
+                .withUpsert(Document.create())
+                .withRetryOnConflict(RETRY_ON_CONFLICT)
+                .build();
+
+        UpdateResponse response = elasticsearchOperations.update(acquireQuery, elasticsearchOperations.getIndexCoordinatesFor(PhotoBlob.class));
+        return response.getResult() == UpdateResponse.Result.UPDATED;
+    }
+
+    private String getStorageKey(String contentHash) {
+        PhotoBlob blob = elasticsearchOperations.get(contentHash, PhotoBlob.class);
+        if (blob == null) {
+            throw new BiteRateException("Blob disappeared while being referenced: " + contentHash);
+        }
+        return blob.getStorageKey();
+    }
+}
@@ -0,0 +1,255 @@
+package dev.amirgol.biterate.service;
+
+import co.elastic.clients.elasticsearch.ElasticsearchClient;
+import co.elastic.clients.elasticsearch._types.Result;
+import dev.amirgol.biterate.config.BatchUploadProperties;
+import dev.amirgol.biterate.config.BlockingIoExecutors;
+import dev.amirgol.biterate.config.PresignedUrlProperties;
+import dev.amirgol.biterate.domain.dto.BatchUploadItem;
+import dev.amirgol.biterate.domain.dto.StagedObject;
+import dev.amirgol.biterate.domain.entites.Photo;
+import dev.amirgol.biterate.domain.enums.RenditionStatus;
+import dev.amirgol.biterate.domain.enums.UploadStatus;
+import dev.amirgol.biterate.exception.BiteRateException;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.elasticsearch.BulkFailureException;
+import org.springframework.data.elasticsearch.core.ElasticsearchOperations;
+import org.springframework.data.elasticsearch.core.SearchHitSupport;
+import org.springframework.data.elasticsearch.core.SearchHits;
+import org.springframework.data.elasticsearch.core.query.Criteria;
+import org.springframework.data.elasticsearch.core.query.CriteriaQuery;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+
+@Service
+@Slf4j
+public class ElasticsearchPhotoService implements PhotoService {
+    private final MinioService minIOService;
+    private final PhotoBlobService photoBlobService;
+    private final ElasticsearchOperations elasticsearchOperations;
+    private final ElasticsearchClient elasticsearchClient;
+    private final ThumbnailPipeline thumbnailPipeline;
+    private final BatchUploadProperties batchUploadProperties;
+    private final PresignedUrlProperties presignedUrlProperties;
+    private final ExecutorService batchUploadExecutor;
+
+    public ElasticsearchPhotoService(MinioService minIOService,
+                                     PhotoBlobService photoBlobService,
+                                     ElasticsearchOperations elasticsearchOperations,
+                                     ElasticsearchClient elasticsearchClient,
+                                     ThumbnailPipeline thumbnailPipeline,
+                                     BatchUploadProperties batchUploadProperties,
+                                     PresignedUrlProperties presignedUrlProperties,
+                                     BlockingIoExecutors blockingIoExecutors) {
+        this.minIOService = minIOService;
+        this.photoBlobService = photoBlobService;
+        this.elasticsearchOperations = elasticsearchOperations;
+        this.elasticsearchClient = elasticsearchClient;
+        this.thumbnailPipeline = thumbnailPipeline;
+        this.batchUploadProperties = batchUploadProperties;
+        this.presignedUrlProperties = presignedUrlProperties;
+
+        this.batchUploadExecutor = blockingIoExecutors.create("batch-upload", batchUploadProperties.getParallelism());
+    }
+
+    @Override
+    public Photo upload(MultipartFile file) {
+        return save(storeBlob(file));
+    }
+
+    /**
+     * Registers an object the client has already PUT through a presigned URL. From here on it goes through the same
+     * deduplicating blob store as a regular upload, so an identical photo uploaded either way shares one object.
+     */
+    @Override
+    public Photo completeUpload(String uploadId, String originalFilename) {
+        StagedObject stagedObject = minIOService.stageUploaded(uploadId, originalFilename);
+        if (stagedObject.getFileSize() > presignedUrlProperties.getMaxUploadSize().toBytes()) {
+            minIOService.discardFile(stagedObject);
+            throw new BiteRateException("Upload exceeds the maximum size of " + presignedUrlProperties.getMaxUploadSize());
+        }
+        return save(storeBlob(stagedObject, originalFilename));
+    }
+
+    private Photo save(Photo photo) {
+        Photo savedPhoto;
+        try {
+            savedPhoto = elasticsearchOperations.save(photo);
+        } catch (RuntimeException exception) {
+            photoBlobService.release(photo.getContentHash());
+            throw exception;
+        }
+
+        if (savedPhoto.getRenditionStatus() == RenditionStatus.PENDING) {
+            thumbnailPipeline.submit(savedPhoto);
+        }
+        return savedPhoto;
+    }
+
+    /**
+     * Uploads many files in one go.
+     * <p>
+     * Blobs are stored concurrently on the bounded batch upload pool, then every {@link Photo} document whose blob
+     * made it is written with a single bulk request. A file that fails at either step is reported as failed, and
+     * its blob reference is released, without affecting the rest of the batch.
+     * </p>
+     */
+    @Override
+    public List<BatchUploadItem> uploadAll(List<MultipartFile> files) {
+        if (files.size() > batchUploadProperties.getMaxFiles()) {
+            throw new BiteRateException("A batch upload may contain at most " + batchUploadProperties.getMaxFiles() + " files");
+        }
+
+        List<CompletableFuture<Photo>> storedBlobs = files.stream()
+                .map(file -> CompletableFuture.supplyAsync(() -> storeBlob(file), batchUploadExecutor))
+                .toList();
+
+        List<BatchUploadItem> items = new ArrayList<>(files.size());
+        Map<String, BatchUploadItem> itemsByPhotoId = new LinkedHashMap<>();
+        for (int index = 0; index < files.size(); index++) {
+            BatchUploadItem item = BatchUploadItem.builder()
+                    .index(index)
+                    .originalFilename(files.get(index).getOriginalFilename())
+                    .build();
+            try {
+                Photo photo = storedBlobs.get(index).join();
+                item.setPhoto(photo);
+                item.setStatus(UploadStatus.SUCCEEDED);
+                itemsByPhotoId.put(photo.getId(), item);
+            } catch (CompletionException exception) {
+                item.setStatus(UploadStatus.FAILED);
+                item.setError(exception.getCause().getMessage());
+            }
+            items.add(item);
+        }
+
+        if (!itemsByPhotoId.isEmpty()) {
+            indexAll(itemsByPhotoId);
+        }
+
+        itemsByPhotoId.values().stream()
+                .filter(item -> item.getStatus() == UploadStatus.SUCCEEDED)
+                .map(BatchUploadItem::getPhoto)
+                .filter(photo -> photo.getRenditionStatus() == RenditionStatus.PENDING)
+                .forEach(thumbnailPipeline::submit);
+        return items;
+    }
+
+    private void indexAll(Map<String, BatchUploadItem> itemsByPhotoId) {
+        List<Photo> photos = itemsByPhotoId.values().stream().map(BatchUploadItem::getPhoto).toList();
+        try {
+            elasticsearchOperations.save(photos);
+        } catch (BulkFailureException exception) {
+            exception.getFailedDocuments().forEach((photoId, failure) ->
+                    markFailed(itemsByPhotoId.get(photoId), failure.errorMessage()));
+        } catch (RuntimeException exception) {
+            log.error("Bulk indexing of {} photos failed: {}", photos.size(), exception.getMessage(), exception);
+            itemsByPhotoId.values().forEach(item -> markFailed(item, exception.getMessage()));
+        }
+    }
+
+    private void markFailed(BatchUploadItem item, String error) {
+        if (item == null) {
+            return;
+        }
+        photoBlobService.release(item.getPhoto().getContentHash());
+        item.setPhoto(null);
+        item.setStatus(UploadStatus.FAILED);
+        item.setError(error);
+    }
+
+    private Photo storeBlob(MultipartFile file) {
+        return storeBlob(minIOService.stageFile(file), file.getOriginalFilename());
+    }
+
+    private Photo storeBlob(StagedObject stagedObject, String originalFilename) {
+        String storageKey = photoBlobService.store(stagedObject);
+
+        return Photo.builder()
+                .id(UUID.randomUUID().toString())
+                .storageKey(storageKey)
+                .contentHash(stagedObject.getContentHash())
+                .originalFilename(originalFilename)
+                .contentType(stagedObject.getContentType())
+                .fileSize(stagedObject.getFileSize())
+                .uploadDate(LocalDateTime.now())
+                .renditionStatus(needsRenditions(stagedObject.getContentType()) ? RenditionStatus.PENDING : null)
+                .build();
+    }
+
+    private boolean needsRenditions(String contentType) {
+        return thumbnailPipeline.isEnabled()
+                && contentType != null
+                && contentType.startsWith("image/");
+    }
+
+    @Override
+    public Optional<Photo> findById(String id) {
+        return Optional.ofNullable(elasticsearchOperations.get(id, Photo.class));
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Page<Photo> findByRestaurantId(String restaurantId, Pageable pageable) {
+        CriteriaQuery query = new CriteriaQuery(new Criteria("restaurantId").is(restaurantId),
+                PageRequest.of(pageable.getPageNumber(), pageable.getPageSize(), Sort.by(Sort.Direction.DESC, "uploadDate")));
+        SearchHits<Photo> hits = elasticsearchOperations.search(query, Photo.class);
+        return (Page<Photo>) SearchHitSupport.unwrapSearchHits(SearchHitSupport.searchPageFor(hits, query.getPageable()));
+    }
+
+    /**
+     * Deletes the photo document and drops its reference to the underlying blob.
+     * <p>
+     * Photos uploaded before content-hash deduplication have no {@code contentHash} and own their object outright,
+     * so it is removed directly. Only the request whose delete actually removed the document releases the blob, so
+     * concurrent deletes of the same photo drop its reference once.
+     * </p>
+     */
+    @Override
+    public boolean delete(String id) {
+        Photo photo = elasticsearchOperations.get(id, Photo.class);
+        if (photo == null) {
+            return false;
+        }
+
+        String index = elasticsearchOperations.getIndexCoordinatesFor(Photo.class).getIndexName();
+        try {
+            if (elasticsearchClient.delete(d -> d.index(index).id(id)).result() != Result.Deleted) {
+                return false; // Deleted by a concurrent request, which released the blob
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to delete photo " + id, e);
+        }
+        if (photo.getContentHash() != null) {
+            photoBlobService.release(photo.getContentHash());
+        } else {
+            minIOService.deleteFile(photo.getStorageKey());
+            minIOService.deleteFiles(RenditionService.renditionPrefix(photo.getStorageKey()));
+        }
+        log.info("Deleted photo: {}", id);
+        return true;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        batchUploadExecutor.shutdown();
+    }
+}
@@ -0,0 +1,129 @@
+package dev.amirgol.biterate.service;
+
+import dev.amirgol.biterate.config.AutocompleteProperties;
+import dev.amirgol.biterate.domain.dto.AutocompleteSuggestion;
+import dev.amirgol.biterate.domain.dto.NearbySearchRequest;
+import dev.amirgol.biterate.domain.dto.RestaurantSearchResponse;
+import dev.amirgol.biterate.exception.BiteRateException;
+import dev.amirgol.biterate.repository.RestaurantRepository;
+import dev.amirgol.biterate.repository.SearchCursor;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.regex.Pattern;
+
+@Service
+@RequiredArgsConstructor
+public class ElasticsearchRestaurantService implements RestaurantService {
+    static final int DEFAULT_PAGE_SIZE = 20;
+    static final int MAX_PAGE_SIZE = 100;
+    static final double DEFAULT_RADIUS_KM = 5;
+    static final double MAX_RADIUS_KM = 100;
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    private final RestaurantRepository restaurantRepository;
+    private final AutocompleteProperties autocompleteProperties;
+    private final Optional<RestaurantGeoIndexMaintainer> geoIndex;
+
+    @Override
+    public RestaurantSearchResponse searchNearby(NearbySearchRequest request) {
+        validateCoordinates(request.getLatitude(), request.getLongitude());
+        if (request.hasBoundingBox()) {
+            validateCoordinates(request.getTop(), request.getLeft());
+            validateCoordinates(request.getBottom(), request.getRight());
+            if (request.getTop() < request.getBottom()) {
+                throw new BiteRateException("Bounding box top must not be below bottom");
+            }
+        } else if (request.getRadiusKm() == null) {
+            request.setRadiusKm(DEFAULT_RADIUS_KM);
+        } else if (request.getRadiusKm() <= 0 || request.getRadiusKm() > MAX_RADIUS_KM) {
+            throw new BiteRateException("Radius must be between 0 and " + MAX_RADIUS_KM + " km");
+        }
+
+        if (request.getSize() <= 0) {
+            request.setSize(DEFAULT_PAGE_SIZE);
+        }
+        request.setSize(Math.min(request.getSize(), MAX_PAGE_SIZE));
+
+        if (request.getOpenAt() == null && geoIndex.isPresent()) {
+            SearchCursor after = request.getCursor() != null ? SearchCursor.decode(request.getCursor()) : null;
+            Optional<List<RestaurantGeoIndex.Hit>> hits = geoIndex.get().search(request, after);
+            if (hits.isPresent()) {
+                return hydrate(hits.get(), request.getSize());
+            }
+        }
+        return restaurantRepository.searchNearby(request);
+    }
+
+    /**
+     * Builds the cards of hits found by the geo index, from the card store when it is kept and from Elasticsearch
+     * otherwise. The cursor comes from the last hit rather than the last card, so a restaurant deleted since the
+     * index last synced shortens the page without ending the pagination.
+     */
+    private RestaurantSearchResponse hydrate(List<RestaurantGeoIndex.Hit> hits, int size) {
+        if (hits.isEmpty()) {
+            return RestaurantSearchResponse.builder().items(List.of()).build();
+        }
+        List<String> ids = new ArrayList<>(hits.size());
+        double[] distancesKm = new double[hits.size()];
+        for (int i = 0; i < hits.size(); i++) {
+            ids.add(hits.get(i).id());
+            distancesKm[i] = hits.get(i).distanceKm();
+        }
+        RestaurantGeoIndex.Hit last = hits.get(hits.size() - 1);
+        return RestaurantSearchResponse.builder()
+                .items(geoIndex.get().cards(ids, distancesKm)
+                        .orElseGet(() -> restaurantRepository.findCards(ids, distancesKm)))
+                .nextCursor(hits.size() == size ? new SearchCursor(last.distanceKm(), last.id()).encode() : null)
+                .build();
+    }
+
+    @Override
+    public List<AutocompleteSuggestion> autocomplete(String prefix, Double latitude, Double longitude, int size) {
+        String normalized = normalizePrefix(prefix, autocompleteProperties.getMaxPrefixLength());
+        if (normalized.isEmpty()) {
+            return List.of();
+        }
+        validateOptionalLocation(latitude, longitude);
+        return restaurantRepository.autocomplete(normalized, latitude, longitude, autocompleteLimit(size, autocompleteProperties));
+    }
+
+    /**
+     * @return the number of suggestions to return for a requested size, where zero or less means the default
+     */
+    static int autocompleteLimit(int size, AutocompleteProperties properties) {
+        return size <= 0 ? properties.getDefaultSize() : Math.min(size, properties.getMaxSize());
+    }
+
+    static void validateOptionalLocation(Double latitude, Double longitude) {
+        if ((latitude == null) != (longitude == null)) {
+            throw new BiteRateException("Latitude and longitude must be given together");
+        }
+        if (latitude != null) {
+            validateCoordinates(latitude, longitude);
+        }
+    }
+
+    /**
+     * Trims, lower-cases and collapses whitespace so that equivalent keystrokes map to the same query (and cache
+     * entry).
+     */
+    static String normalizePrefix(String prefix, int maxLength) {
+        if (prefix == null) {
+            return "";
+        }
+        String normalized = WHITESPACE.matcher(prefix.strip()).replaceAll(" ").toLowerCase(Locale.ROOT);
+        return normalized.length() > maxLength ? normalized.substring(0, maxLength) : normalized;
+    }
+
+    private static void validateCoordinates(double latitude, double longitude) {
+        // Negated so that NaN, which fails every comparison, is rejected too
+        if (!(latitude >= -90 && latitude <= 90 && longitude >= -180 && longitude <= 180)) {
+            throw new BiteRateException("Invalid coordinates: " + latitude + "," + longitude);
+        }
+    }
+}
@@ -0,0 +1,240 @@
+package dev.amirgol.biterate.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import dev.amirgol.biterate.config.ReviewWriteProperties;
+import dev.amirgol.biterate.domain.dto.ReviewRequest;
+import dev.amirgol.biterate.domain.entites.Photo;
+import dev.amirgol.biterate.domain.entites.Review;
+import dev.amirgol.biterate.exception.BiteRateException;
+import dev.amirgol.biterate.repository.RestaurantRepository;
+import dev.amirgol.biterate.repository.ReviewRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.elasticsearch.BulkFailureException;
+import org.springframework.data.elasticsearch.VersionConflictException;
+import org.springframework.data.elasticsearch.core.ElasticsearchOperations;
+import org.springframework.data.elasticsearch.core.MultiGetItem;
+import org.springframework.data.elasticsearch.core.document.Document;
+import org.springframework.data.elasticsearch.core.query.IndexQuery;
+import org.springframework.data.elasticsearch.core.query.IndexQueryBuilder;
+import org.springframework.data.elasticsearch.core.query.Query;
+import org.springframework.data.elasticsearch.core.query.UpdateQuery;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Reviews are standalone documents in the {@code reviews} index, so adding one indexes a single small document
+ * instead of rewriting the restaurant together with every earlier review. The restaurant's rating aggregates are
+ * updated asynchronously by {@link RatingAggregator}.
+ * <p>
+ * With write-behind enabled, a validated review is handed to {@link WriteBehindReviewWriter} and acknowledged as soon
+ * as it is journaled; otherwise it is indexed in the request. Either way it is written with {@code create} under an
+ * id derived from the restaurant and the client's idempotency key, so a retried submission never creates a second
+ * review, and its rating and photos are applied on {@link ReviewsCreatedEvent}.
+ * </p>
+ */
+@Service
+@Slf4j
+public class ElasticsearchReviewService implements ReviewService {
+    static final int MAX_PHOTOS_PER_REVIEW = 20;
+
+    private final ElasticsearchOperations elasticsearchOperations;
+    private final ReviewRepository reviewRepository;
+    private final RestaurantRepository restaurantRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final RatingAggregator ratingAggregator;
+    private final Optional<WriteBehindReviewWriter> writeBehind;
+    private final ReviewWriteProperties properties;
+    private final Cache<String, Review> acceptedReviews;
+
+    public ElasticsearchReviewService(ElasticsearchOperations elasticsearchOperations,
+                                      ReviewRepository reviewRepository,
+                                      RestaurantRepository restaurantRepository,
+                                      ApplicationEventPublisher eventPublisher,
+                                      RatingAggregator ratingAggregator,
+                                      Optional<WriteBehindReviewWriter> writeBehind,
+                                      ReviewWriteProperties properties) {
+        this.elasticsearchOperations = elasticsearchOperations;
+        this.reviewRepository = reviewRepository;
+        this.restaurantRepository = restaurantRepository;
+        this.eventPublisher = eventPublisher;
+        this.ratingAggregator = ratingAggregator;
+        this.writeBehind = writeBehind;
+        this.properties = properties;
+        this.acceptedReviews = Caffeine.newBuilder()
+                .maximumSize(properties.getIdempotencyKeyCacheSize())
+                .expireAfterWrite(properties.getIdempotencyKeyTtl())
+                .build();
+    }
+
+    @Override
+    public Review addReview(String restaurantId, ReviewRequest request, String idempotencyKey) {
+        if (request.getRating() == null || request.getRating() < 1 || request.getRating() > 5) {
+            throw new BiteRateException("Rating must be between 1 and 5");
+        }
+        List<String> photoIds = request.getPhotoIds() != null ? List.copyOf(request.getPhotoIds()) : List.of();
+        if (photoIds.size() > MAX_PHOTOS_PER_REVIEW) {
+            throw new BiteRateException("A review can have at most " + MAX_PHOTOS_PER_REVIEW + " photos");
+        }
+        String reviewId = reviewIdFor(restaurantId, idempotencyKey);
+        Review accepted = acceptedReviews.getIfPresent(reviewId);
+        if (accepted != null) {
+            return accepted;
+        }
+        if (!restaurantRepository.existsById(restaurantId)) {
+            throw new BiteRateException("Restaurant not found: " + restaurantId);
+        }
+        requireExistingPhotos(photoIds);
+
+        Review review = Review.builder()
+                .id(reviewId)
+                .restaurantId(restaurantId)
+                .content(request.getContent())
+                .rating(request.getRating())
+                .datePosted(LocalDateTime.now())
+                .photoIds(photoIds)
+                .build();
+        if (writeBehind.isPresent()) {
+            writeBehind.get().submit(review);
+            log.debug("Accepted review {} for restaurant {}", reviewId, restaurantId);
+        } else if (!create(review)) {
+            Review existing = elasticsearchOperations.get(reviewId, Review.class);
+            if (existing == null) {
+                return review;
+            }
+            // Re-applied in case the request that created it failed before its event was handled
+            applyCreated(existing);
+            return existing;
+        }
+        if (idempotencyKey != null) {
+            acceptedReviews.put(reviewId, review);
+        }
+        return review;
+    }
+
+    /**
+     * Marks the restaurants of newly created reviews for rating recomputation and attaches their photos, with one
+     * bulk update for all of them. Both steps are idempotent, so the event may repeat for a review. A photo that can
+     * no longer be updated, e.g. because it was deleted meanwhile, is skipped; the event only fails when a photo
+     * could not be updated for a reason worth retrying.
+     */
+    @EventListener
+    public void onReviewsCreated(ReviewsCreatedEvent event) {
+        List<UpdateQuery> updates = new ArrayList<>();
+        for (Review review : event.reviews()) {
+            for (String photoId : review.getPhotoIds()) {
+                Document document = Document.create();
+                document.put("restaurantId", review.getRestaurantId());
+                document.put("reviewId", review.getId());
+                updates.add(UpdateQuery.builder(photoId).withDocument(document).build());
+            }
+            ratingAggregator.record(review.getRestaurantId());
+        }
+        if (updates.isEmpty()) {
+            return;
+        }
+        Map<String, BulkFailureException.FailureDetails> failed = Map.of();
+        try {
+            elasticsearchOperations.bulkUpdate(updates, Photo.class);
+        } catch (BulkFailureException exception) {
+            failed = exception.getFailedDocuments();
+        }
+        List<String> retryable = new ArrayList<>();
+        failed.forEach((photoId, failure) -> {
+            Integer status = failure.status();
+            if (status == null || status == 429 || status >= 500) {
+                retryable.add(photoId);
+            } else {
+                log.warn("Skipping photo {} of a created review: {}", photoId, failure.errorMessage());
+            }
+        });
+        for (UpdateQuery update : updates) {
+            if (!failed.containsKey(update.getId())) {
+                eventPublisher.publishEvent(new PhotoInvalidatedEvent(update.getId()));
+            }
+        }
+        if (!retryable.isEmpty()) {
+            throw new IllegalStateException("Failed to attach photos " + retryable + " to their reviews");
+        }
+    }
+
+    @Override
+    public Page<Review> findByRestaurantId(String restaurantId, Pageable pageable) {
+        Pageable newestFirst = PageRequest.of(pageable.getPageNumber(), pageable.getPageSize(),
+                Sort.by(Sort.Direction.DESC, "datePosted"));
+        return reviewRepository.findByRestaurantId(restaurantId, newestFirst);
+    }
+
+    private void requireExistingPhotos(List<String> photoIds) {
+        if (photoIds.isEmpty()) {
+            return;
+        }
+        List<MultiGetItem<Photo>> items = elasticsearchOperations.multiGet(Query.multiGetQuery(photoIds), Photo.class);
+        for (int i = 0; i < items.size(); i++) {
+            if (!items.get(i).hasItem()) {
+                throw new BiteRateException("Photo not found: " + photoIds.get(i));
+            }
+        }
+    }
+
+    /**
+     * Indexes the review in the request, through the template rather than the repository, which would refresh the
+     * index on every write.
+     *
+     * @return false when a review with the same id already exists
+     */
+    private boolean create(Review review) {
+        IndexQuery query = new IndexQueryBuilder()
+                .withId(review.getId())
+                .withObject(review)
+                .withOpType(IndexQuery.OpType.CREATE)
+                .build();
+        try {
+            elasticsearchOperations.index(query, elasticsearchOperations.getIndexCoordinatesFor(Review.class));
+        } catch (VersionConflictException e) {
+            return false;
+        }
+        log.info("Added review {} to restaurant {}", review.getId(), review.getRestaurantId());
+        applyCreated(review);
+        return true;
+    }
+
+    /**
+     * The review is stored either way, so a failure is logged rather than answered with an error; a retry with the
+     * same idempotency key applies it again.
+     */
+    private void applyCreated(Review review) {
+        try {
+            eventPublisher.publishEvent(new ReviewsCreatedEvent(List.of(review)));
+        } catch (RuntimeException exception) {
+            log.error("Failed to apply created review {}: {}", review.getId(), exception.getMessage(), exception);
+        }
+    }
+
+    /**
+     * Without a key every submission is a new review; with one, the id is derived from it, so retries of the same
+     * submission map to the same document.
+     */
+    private String reviewIdFor(String restaurantId, String idempotencyKey) {
+        if (idempotencyKey == null) {
+            return UUID.randomUUID().toString();
+        }
+        if (idempotencyKey.isBlank() || idempotencyKey.length() > properties.getMaxIdempotencyKeyLength()) {
+            throw new BiteRateException("Idempotency key must be 1 to " + properties.getMaxIdempotencyKeyLength() + " characters");
+        }
+        return UUID.nameUUIDFromBytes((restaurantId + "\n" + idempotencyKey).getBytes(StandardCharsets.UTF_8)).toString();
+    }
+}
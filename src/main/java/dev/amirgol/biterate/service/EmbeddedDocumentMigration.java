@@ -0,0 +1,156 @@
+package dev.amirgol.biterate.service;
+
+import co.elastic.clients.elasticsearch._types.query_dsl.Query;
+import dev.amirgol.biterate.domain.entites.Photo;
+import dev.amirgol.biterate.domain.entites.Restaurant;
+import dev.amirgol.biterate.domain.entites.Review;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.elasticsearch.client.elc.NativeQuery;
+import org.springframework.data.elasticsearch.core.ElasticsearchOperations;
+import org.springframework.data.elasticsearch.core.SearchHitsIterator;
+import org.springframework.data.elasticsearch.core.document.Document;
+import org.springframework.data.elasticsearch.core.query.FetchSourceFilterBuilder;
+import org.springframework.data.elasticsearch.core.query.UpdateQuery;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * One-off migration that moves reviews and photos embedded in restaurant documents into the {@code reviews} and
+ * {@code photos} indices, then strips them from the restaurant.
+ * <p>
+ * Enabled with {@code biterate.migration.split-embedded-documents=true}. It is safe to re-run: reviews keep their
+ * embedded id (or a deterministic one derived from the restaurant id), photos are upserted so documents that
+ * already exist in the {@code photos} index only gain their {@code restaurantId}/{@code reviewId}, and restaurants
+ * that were already stripped no longer match the query.
+ * </p>
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+@ConditionalOnProperty(prefix = "biterate.migration", name = "split-embedded-documents", havingValue = "true")
+public class EmbeddedDocumentMigration implements ApplicationRunner {
+    private static final int BATCH_SIZE = 100;
+    private static final String STRIP_SCRIPT = "ctx._source.remove('reviews'); ctx._source.remove('photos')";
+
+    private final ElasticsearchOperations elasticsearchOperations;
+    private final ApplicationEventPublisher eventPublisher;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        NativeQuery query = NativeQuery.builder()
+                .withQuery(q -> q.bool(b -> b
+                        .should(hasNested("reviews"), hasNested("photos"))
+                        .minimumShouldMatch("1")))
+                .withSourceFilter(new FetchSourceFilterBuilder().withIncludes("reviews", "photos").build())
+                .withPageable(PageRequest.of(0, BATCH_SIZE))
+                .build();
+
+        Batch batch = new Batch();
+        int restaurants = 0;
+        try (SearchHitsIterator<LegacyRestaurant> legacy = elasticsearchOperations.searchForStream(query, LegacyRestaurant.class)) {
+            while (legacy.hasNext()) {
+                LegacyRestaurant restaurant = legacy.next().getContent();
+                batch.add(restaurant);
+                restaurants++;
+                if (batch.restaurantIds.size() >= BATCH_SIZE) {
+                    flush(batch);
+                    batch = new Batch();
+                }
+            }
+        }
+        flush(batch);
+        log.info("Migrated embedded reviews and photos of {} restaurants", restaurants);
+    }
+
+    private static Query hasNested(String path) {
+        return Query.of(q -> q.nested(n -> n
+                .path(path)
+                .query(inner -> inner.exists(e -> e.field(path)))
+                .ignoreUnmapped(true)));
+    }
+
+    private void flush(Batch batch) {
+        if (batch.restaurantIds.isEmpty()) {
+            return;
+        }
+        // Restaurants are stripped last so a failed batch is retried as a whole on the next run
+        if (!batch.reviews.isEmpty()) {
+            elasticsearchOperations.save(batch.reviews);
+        }
+        if (!batch.photos.isEmpty()) {
+            elasticsearchOperations.bulkUpdate(batch.photos, Photo.class);
+            batch.photos.forEach(update -> eventPublisher.publishEvent(new PhotoInvalidatedEvent(update.getId())));
+        }
+        List<UpdateQuery> strips = batch.restaurantIds.stream()
+                .map(id -> UpdateQuery.builder(id).withScript(STRIP_SCRIPT).withLang("painless").build())
+                .toList();
+        elasticsearchOperations.bulkUpdate(strips, Restaurant.class);
+    }
+
+    private class Batch {
+        final List<String> restaurantIds = new ArrayList<>();
+        final List<Review> reviews = new ArrayList<>();
+        final List<UpdateQuery> photos = new ArrayList<>();
+
+        void add(LegacyRestaurant restaurant) {
+            String restaurantId = restaurant.getId();
+            restaurantIds.add(restaurantId);
+
+            List<LegacyRestaurant.LegacyReview> legacyReviews = nonNull(restaurant.getReviews());
+            for (int i = 0; i < legacyReviews.size(); i++) {
+                LegacyRestaurant.LegacyReview legacyReview = legacyReviews.get(i);
+                String reviewId = legacyReview.getId() != null ? legacyReview.getId() : restaurantId + "-review-" + i;
+
+                List<String> photoIds = new ArrayList<>();
+                List<Photo> reviewPhotos = nonNull(legacyReview.getPhotos());
+                for (int p = 0; p < reviewPhotos.size(); p++) {
+                    photoIds.add(addPhoto(reviewPhotos.get(p), reviewId + "-photo-" + p, restaurantId, reviewId));
+                }
+
+                reviews.add(Review.builder()
+                        .id(reviewId)
+                        .restaurantId(restaurantId)
+                        .content(legacyReview.getContent())
+                        .rating(legacyReview.getRating() != null ? legacyReview.getRating() : 0)
+                        .datePosted(legacyReview.getDatePosted())
+                        .lastEdited(legacyReview.getLastEdited())
+                        .photoIds(photoIds)
+                        .writtenBy(legacyReview.getWrittenBy())
+                        .build());
+            }
+
+            List<Photo> restaurantPhotos = nonNull(restaurant.getPhotos());
+            for (int p = 0; p < restaurantPhotos.size(); p++) {
+                addPhoto(restaurantPhotos.get(p), restaurantId + "-photo-" + p, restaurantId, null);
+            }
+        }
+
+        private String addPhoto(Photo photo, String fallbackId, String restaurantId, String reviewId) {
+            String photoId = photo.getId() != null ? photo.getId() : fallbackId;
+            photo.setId(photoId);
+            photo.setRestaurantId(restaurantId);
+            photo.setReviewId(reviewId);
+
+            Document link = Document.create();
+            link.put("restaurantId", restaurantId);
+            link.put("reviewId", reviewId);
+            photos.add(UpdateQuery.builder(photoId)
+                    .withDocument(link)
+                    .withUpsert(elasticsearchOperations.getElasticsearchConverter().mapObject(photo))
+                    .build());
+            return photoId;
+        }
+    }
+
+    private static <T> List<T> nonNull(List<T> list) {
+        return list != null ? list : List.of();
+    }
+}
@@ -0,0 +1,51 @@
+package dev.amirgol.biterate.service;
+
+import dev.amirgol.biterate.config.ExportProperties;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * One-shot export mode, see {@link ExportProperties}. Writes the file and shuts the application down with exit
+ * code 0 on success and 1 on failure.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+@ConditionalOnProperty(prefix = "biterate.export.cli", name = "target")
+public class ExportCommandLineRunner implements ApplicationRunner {
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final ExportService exportService;
+    private final ExportProperties properties;
+    private final ConfigurableApplicationContext context;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        ExportProperties.Cli cli = properties.getCli();
+        int exitCode = 0;
+        try (OutputStream file = new BufferedOutputStream(Files.newOutputStream(cli.getOutput()), BUFFER_SIZE);
+             OutputStream out = cli.getOutput().toString().endsWith(".gz")
+                     ? new GZIPOutputStream(file, BUFFER_SIZE)
+                     : file) {
+            long documents = exportService.export(cli.getTarget(), cli.getSlices(), out);
+            log.info("Exported {} {} documents to {}", documents, cli.getTarget(), cli.getOutput());
+        } catch (IOException | RuntimeException e) {
+            log.error("Export of {} to {} failed", cli.getTarget(), cli.getOutput(), e);
+            exitCode = 1;
+        }
+        int code = exitCode;
+        System.exit(SpringApplication.exit(context, () -> code));
+    }
+}
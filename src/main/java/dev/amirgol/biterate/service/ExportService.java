@@ -0,0 +1,15 @@
+package dev.amirgol.biterate.service;
+
+import dev.amirgol.biterate.domain.enums.ExportTarget;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+public interface ExportService {
+    /**
+     * Writes every document of the target index to {@code out}, one JSON object per line.
+     *
+     * @return the number of documents written
+     */
+    long export(ExportTarget target, int slices, OutputStream out) throws IOException;
+}
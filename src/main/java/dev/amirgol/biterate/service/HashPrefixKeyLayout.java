@@ -0,0 +1,51 @@
+package dev.amirgol.biterate.service;
+
+import dev.amirgol.biterate.config.MinioProperties;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.regex.Pattern;
+
+/**
+ * Shards by the content hash: {@code ab/cd/<hash>_<millis>.<ext>} with {@code shardDepth} levels. MD5 digits are
+ * uniformly distributed, so writes spread evenly over {@code 256^shardDepth} prefixes no matter when they happen.
+ * The partition is the first level.
+ */
+@Component
+@ConditionalOnProperty(prefix = "minio.layout", name = "strategy", havingValue = "HASH_PREFIX", matchIfMissing = true)
+public class HashPrefixKeyLayout implements ObjectKeyLayout {
+    private final int shardDepth;
+    private final Pattern name;
+
+    public HashPrefixKeyLayout(MinioProperties minioProperties) {
+        this.shardDepth = minioProperties.getLayout().getShardDepth();
+        this.name = Pattern.compile("([0-9a-f]{2}/){" + shardDepth + "}[0-9a-f]{32}_\\d+\\.[^/]+");
+    }
+
+    @Override
+    public String objectName(String contentHash, String fileExtension, Instant storedAt) {
+        return shardPrefix(contentHash, shardDepth) + contentHash + "_" + storedAt.toEpochMilli() + "." + fileExtension;
+    }
+
+    @Override
+    public boolean matches(String objectName) {
+        return name.matcher(objectName).matches();
+    }
+
+    @Override
+    public String partitionOf(String objectName) {
+        if (!matches(objectName)) {
+            throw new IllegalArgumentException("Not a hash-prefixed object name: " + objectName);
+        }
+        return objectName.substring(0, 3);
+    }
+
+    static String shardPrefix(String contentHash, int depth) {
+        StringBuilder prefix = new StringBuilder(depth * 3);
+        for (int level = 0; level < depth; level++) {
+            prefix.append(contentHash, level * 2, level * 2 + 2).append('/');
+        }
+        return prefix.toString();
+    }
+}
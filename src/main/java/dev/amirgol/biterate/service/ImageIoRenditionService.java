@@ -0,0 +1,366 @@
+package dev.amirgol.biterate.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import dev.amirgol.biterate.config.RenditionProperties;
+import dev.amirgol.biterate.domain.dto.Rendition;
+import dev.amirgol.biterate.domain.entites.Photo;
+import dev.amirgol.biterate.domain.entites.PhotoRendition;
+import dev.amirgol.biterate.exception.BiteRateException;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Color;
+import java.awt.Dimension;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Produces resized/re-encoded renditions with the JDK's ImageIO and Java2D, and stores them in MinIO under a
+ * deterministic key next to the original.
+ * <p>
+ * A rendition is generated at most once: later requests find it through a local cache of known rendition sizes
+ * or a MinIO stat. Concurrent requests for the same missing rendition share a single in-flight job, and all
+ * decoding and encoding runs on a bounded pool separate from the request threads.
+ * </p>
+ */
+@Service
+@Slf4j
+public class ImageIoRenditionService implements RenditionService {
+    private static final Map<String, String> CONTENT_TYPES = Map.of(
+            "jpg", "image/jpeg",
+            "png", "image/png"
+    );
+
+    private final MinioService minIOService;
+    private final RenditionProperties properties;
+    private final ExecutorService renditionExecutor;
+    private final ConcurrentMap<String, CompletableFuture<Long>> inFlight = new ConcurrentHashMap<>();
+    private final Cache<String, Long> knownRenditions;
+
+    public ImageIoRenditionService(MinioService minIOService, RenditionProperties properties) {
+        this.minIOService = minIOService;
+        this.properties = properties;
+        this.knownRenditions = Caffeine.newBuilder()
+                .maximumSize(properties.getKnownRenditionsCacheSize())
+                .build();
+
+        AtomicInteger threadCount = new AtomicInteger();
+        this.renditionExecutor = new ThreadPoolExecutor(
+                properties.getThreads(), properties.getThreads(),
+                60L, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(properties.getQueueCapacity()),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "rendition-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy()
+        );
+    }
+
+    @Override
+    public Rendition render(Photo photo, Integer width, Integer height, String format) {
+        int targetWidth = validateDimension("w", width);
+        int targetHeight = validateDimension("h", height);
+        String targetFormat = resolveFormat(format, photo.getContentType());
+
+        String name = targetWidth + "x" + targetHeight + "." + targetFormat;
+        String storageKey = RenditionService.renditionPrefix(photo.getStorageKey()) + name;
+
+        Long fileSize = knownRenditionSize(storageKey);
+        if (fileSize == null) {
+            fileSize = generateOnce(storageKey, () -> renderAndStore(photo, storageKey, targetWidth, targetHeight, targetFormat));
+        }
+
+        return Rendition.builder()
+                .name(name)
+                .storageKey(storageKey)
+                .contentType(CONTENT_TYPES.get(targetFormat))
+                .fileSize(fileSize)
+                .width(targetWidth)
+                .height(targetHeight)
+                .format(targetFormat)
+                .build();
+    }
+
+    /**
+     * Generates every configured standard rendition on the calling thread.
+     * <p>
+     * The original is decoded at most once for the whole set, and not at all when every rendition already exists
+     * (as it does for deduplicated uploads); in that case only the image header is read to report dimensions.
+     * </p>
+     */
+    @Override
+    public List<PhotoRendition> renderStandard(Photo photo) {
+        Dimension original = readDimensions(photo);
+        BufferedImage source = null;
+
+        List<PhotoRendition> renditions = new ArrayList<>();
+        for (RenditionProperties.StandardRendition standard : properties.getStandard()) {
+            String format = resolveFormat(standard.getFormat(), photo.getContentType());
+            String storageKey = RenditionService.renditionPrefix(photo.getStorageKey())
+                    + standard.getWidth() + "x" + standard.getHeight() + "." + format;
+
+            Long fileSize = knownRenditionSize(storageKey);
+            if (fileSize == null) {
+                if (source == null) {
+                    source = decode(photo);
+                }
+                fileSize = store(storageKey, scale(source, standard.getWidth(), standard.getHeight(), "jpg".equals(format)), format);
+            }
+
+            Dimension target = fit(original, standard.getWidth(), standard.getHeight());
+            renditions.add(PhotoRendition.builder()
+                    .name(standard.getName())
+                    .storageKey(storageKey)
+                    .contentType(CONTENT_TYPES.get(format))
+                    .fileSize(fileSize)
+                    .width(target.width)
+                    .height(target.height)
+                    .build());
+        }
+        return renditions;
+    }
+
+    /**
+     * Looks the size up outside of the cache's compute, so the blocking MinIO stat never runs under a map lock.
+     */
+    private Long knownRenditionSize(String storageKey) {
+        Long fileSize = knownRenditions.getIfPresent(storageKey);
+        if (fileSize == null) {
+            fileSize = minIOService.getFileSize(storageKey).orElse(null);
+            if (fileSize != null) {
+                knownRenditions.put(storageKey, fileSize);
+            }
+        }
+        return fileSize;
+    }
+
+    /**
+     * Runs {@code job} on the rendition pool unless a job for the same key is already running, in which case the
+     * caller waits for that one instead (single-flight).
+     */
+    private long generateOnce(String storageKey, Supplier<Long> job) {
+        CompletableFuture<Long> created = new CompletableFuture<>();
+        CompletableFuture<Long> existing = inFlight.putIfAbsent(storageKey, created);
+        if (existing != null) {
+            return await(existing);
+        }
+
+        try {
+            renditionExecutor.execute(() -> {
+                try {
+                    created.complete(job.get());
+                } catch (Throwable throwable) {
+                    created.completeExceptionally(throwable);
+                } finally {
+                    inFlight.remove(storageKey, created);
+                }
+            });
+        } catch (RejectedExecutionException exception) {
+            inFlight.remove(storageKey, created);
+            created.completeExceptionally(exception);
+            throw exception;
+        }
+        return await(created);
+    }
+
+    private long await(CompletableFuture<Long> future) {
+        try {
+            return future.join();
+        } catch (CompletionException exception) {
+            if (exception.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new BiteRateException("Rendition failed: " + exception.getCause().getMessage(), exception.getCause());
+        }
+    }
+
+    private long renderAndStore(Photo photo, String storageKey, int width, int height, String format) {
+        return store(storageKey, scale(decode(photo), width, height, "jpg".equals(format)), format);
+    }
+
+    private long store(String storageKey, BufferedImage image, String format) {
+        byte[] encoded = encode(image, format);
+
+        minIOService.storeFile(storageKey, new ByteArrayInputStream(encoded), encoded.length, CONTENT_TYPES.get(format));
+        knownRenditions.put(storageKey, (long) encoded.length);
+        log.info("Generated rendition: {} ({} bytes)", storageKey, encoded.length);
+        return encoded.length;
+    }
+
+    /**
+     * Decodes the original once its header has been checked: a small file can declare dimensions whose raster
+     * would not fit in the heap, so images over {@code maxSourcePixels} are rejected before any pixel is read.
+     */
+    BufferedImage decode(Photo photo) {
+        return withReader(photo, reader -> {
+            long pixels = (long) reader.getWidth(0) * reader.getHeight(0);
+            if (pixels > properties.getMaxSourcePixels()) {
+                throw new BiteRateException("Photo " + photo.getId() + " has " + pixels
+                        + " pixels, more than the maximum of " + properties.getMaxSourcePixels());
+            }
+            return reader.read(0, reader.getDefaultReadParam());
+        });
+    }
+
+    /**
+     * Reads only the image header to get the original dimensions.
+     */
+    Dimension readDimensions(Photo photo) {
+        return withReader(photo, reader -> new Dimension(reader.getWidth(0), reader.getHeight(0)));
+    }
+
+    private <T> T withReader(Photo photo, ImageReaderFunction<T> function) {
+        try (InputStream inputStream = minIOService.downloadFile(photo.getStorageKey());
+             ImageInputStream imageInputStream = ImageIO.createImageInputStream(inputStream)) {
+            Iterator<ImageReader> readers = imageInputStream == null ? null : ImageIO.getImageReaders(imageInputStream);
+            if (readers == null || !readers.hasNext()) {
+                throw new BiteRateException("Photo is not a decodable image: " + photo.getId());
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(imageInputStream, true, true);
+                return function.apply(reader);
+            } finally {
+                reader.dispose();
+            }
+        } catch (IOException exception) {
+            throw new BiteRateException("Failed to decode photo: " + photo.getId(), exception);
+        }
+    }
+
+    @FunctionalInterface
+    private interface ImageReaderFunction<T> {
+        T apply(ImageReader reader) throws IOException;
+    }
+
+    /**
+     * Fits {@code original} inside the requested box, preserving its aspect ratio and never upscaling. A zero
+     * width or height leaves that side unconstrained.
+     */
+    Dimension fit(Dimension original, int width, int height) {
+        double scale = 1.0;
+        if (width > 0) {
+            scale = Math.min(scale, (double) width / original.width);
+        }
+        if (height > 0) {
+            scale = Math.min(scale, (double) height / original.height);
+        }
+        return new Dimension(
+                Math.max(1, (int) Math.round(original.width * scale)),
+                Math.max(1, (int) Math.round(original.height * scale))
+        );
+    }
+
+    /**
+     * Fits the image inside the requested box, preserving its aspect ratio and never upscaling. Large reductions
+     * are done in successive halving steps, which keeps bilinear filtering from dropping detail.
+     */
+    BufferedImage scale(BufferedImage source, int width, int height, boolean opaque) {
+        Dimension target = fit(new Dimension(source.getWidth(), source.getHeight()), width, height);
+        int targetWidth = target.width;
+        int targetHeight = target.height;
+
+        BufferedImage current = source;
+        int currentWidth = source.getWidth();
+        int currentHeight = source.getHeight();
+        do {
+            currentWidth = Math.max(targetWidth, currentWidth / 2);
+            currentHeight = Math.max(targetHeight, currentHeight / 2);
+
+            BufferedImage next = new BufferedImage(currentWidth, currentHeight,
+                    opaque ? BufferedImage.TYPE_INT_RGB : BufferedImage.TYPE_INT_ARGB);
+            Graphics2D graphics = next.createGraphics();
+            try {
+                if (opaque) {
+                    // JPEG has no alpha channel; flatten transparency onto white instead of black
+                    graphics.setColor(Color.WHITE);
+                    graphics.fillRect(0, 0, currentWidth, currentHeight);
+                }
+                graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+                graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+                graphics.drawImage(current, 0, 0, currentWidth, currentHeight, null);
+            } finally {
+                graphics.dispose();
+            }
+            current = next;
+        } while (currentWidth != targetWidth || currentHeight != targetHeight);
+
+        return current;
+    }
+
+    byte[] encode(BufferedImage image, String format) {
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpg".equals(format) ? "jpeg" : format).next();
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        try (ImageOutputStream imageOutputStream = ImageIO.createImageOutputStream(outputStream)) {
+            ImageWriteParam writeParam = writer.getDefaultWriteParam();
+            if ("jpg".equals(format)) {
+                writeParam.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+                writeParam.setCompressionQuality(properties.getJpegQuality());
+            }
+            writer.setOutput(imageOutputStream);
+            writer.write(null, new IIOImage(image, null, null), writeParam);
+        } catch (IOException exception) {
+            throw new BiteRateException("Failed to encode rendition", exception);
+        } finally {
+            writer.dispose();
+        }
+        return outputStream.toByteArray();
+    }
+
+    int validateDimension(String name, Integer value) {
+        if (value == null) {
+            return 0;
+        }
+        if (value <= 0 || value > properties.getMaxDimension()) {
+            throw new BiteRateException("Parameter '" + name + "' must be between 1 and " + properties.getMaxDimension());
+        }
+        return value;
+    }
+
+    String resolveFormat(String format, String originalContentType) {
+        if (format == null) {
+            return "image/png".equals(originalContentType) ? "png" : "jpg";
+        }
+        String normalized = "jpeg".equalsIgnoreCase(format) ? "jpg" : format.toLowerCase();
+        if (!CONTENT_TYPES.containsKey(normalized)) {
+            throw new BiteRateException("Unsupported rendition format: " + format + ", expected one of " + CONTENT_TYPES.keySet());
+        }
+        return normalized;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        renditionExecutor.shutdown();
+    }
+}
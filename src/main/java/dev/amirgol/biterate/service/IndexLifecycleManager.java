@@ -0,0 +1,480 @@
+package dev.amirgol.biterate.service;
+
+import co.elastic.clients.elasticsearch.ElasticsearchClient;
+import co.elastic.clients.elasticsearch._types.Conflicts;
+import co.elastic.clients.elasticsearch._types.ElasticsearchException;
+import co.elastic.clients.elasticsearch._types.FieldValue;
+import co.elastic.clients.elasticsearch._types.SortOrder;
+import co.elastic.clients.elasticsearch._types.VersionType;
+import co.elastic.clients.elasticsearch._types.mapping.TypeMapping;
+import co.elastic.clients.elasticsearch.core.BulkResponse;
+import co.elastic.clients.elasticsearch.core.MgetResponse;
+import co.elastic.clients.elasticsearch.core.ReindexResponse;
+import co.elastic.clients.elasticsearch.core.SearchResponse;
+import co.elastic.clients.elasticsearch.core.mget.MultiGetResponseItem;
+import co.elastic.clients.elasticsearch.core.search.Hit;
+import co.elastic.clients.elasticsearch.indices.IndexSettings;
+import co.elastic.clients.elasticsearch.indices.IndexState;
+import co.elastic.clients.elasticsearch.tasks.GetTasksResponse;
+import co.elastic.clients.json.JsonData;
+import dev.amirgol.biterate.config.IndexLifecycleProperties;
+import dev.amirgol.biterate.config.IndexLifecycleProperties.ManagedIndex;
+import dev.amirgol.biterate.domain.entites.Photo;
+import dev.amirgol.biterate.domain.entites.PhotoBlob;
+import dev.amirgol.biterate.domain.entites.Restaurant;
+import dev.amirgol.biterate.domain.entites.Review;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.env.Environment;
+import org.springframework.data.elasticsearch.core.ElasticsearchOperations;
+import org.springframework.data.elasticsearch.core.IndexOperations;
+import org.springframework.data.elasticsearch.core.document.Document;
+import org.springframework.data.elasticsearch.core.mapping.IndexCoordinates;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Creates and validates the Elasticsearch indices of the document entities before anything reads or writes them.
+ * <p>
+ * Each entity's index name is an alias in front of a versioned index, {@code <alias>-v<revision>}, created from a
+ * composable index template that carries the entity's mapping and the shard, replica and refresh settings from
+ * {@link IndexLifecycleProperties}. The mapping's {@code _meta} records a fingerprint of the mapping and shard count
+ * it was created with. On startup a missing index is created, and an index whose fingerprint matches only gets its
+ * replica count and refresh interval updated.
+ * </p>
+ * <p>
+ * An index with another fingerprint, or none because it predates this class, is adopted when it has the current
+ * shard count and its mapping only lacks fields: the current mapping and fingerprint are put on it in place, which
+ * Elasticsearch rejects if any existing field would change. An unmanaged index named like the alias is adopted as
+ * revision 0. Any other index has drifted and startup fails with the differing fields, unless
+ * {@link DriftedIndexMigration} is enabled, which reindexes it once the application has started.
+ * </p>
+ * <p>
+ * A reindex copies the documents to the next revision while the alias keeps serving the current one. Writes to the
+ * current index are then blocked for a second pass that only copies documents changed during the first one, and the
+ * alias is moved in one atomic request. Reads never fail and writes fail only during the second pass, which also
+ * deletes from the new index the documents deleted during the first one. An unmanaged index is replaced by the
+ * alias.
+ * </p>
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class IndexLifecycleManager {
+    static final List<Class<?>> MANAGED_ENTITIES = List.of(Restaurant.class, Review.class, Photo.class, PhotoBlob.class);
+    private static final String FINGERPRINT = "fingerprint";
+    private static final String REVISION_SEPARATOR = "-v";
+    private static final String TEMPLATE_PREFIX = "biterate-";
+    private static final List<String> COMPARED_ATTRIBUTES = List.of("type", "index", "doc_values", "enabled", "format", "analyzer");
+    private static final String NOT_MAPPED = " is not mapped";
+    private static final int ID_SCAN_PAGE_SIZE = 1000;
+    private static final String ID_SCAN_KEEP_ALIVE = "1m";
+
+    private final ElasticsearchClient elasticsearchClient;
+    private final ElasticsearchOperations elasticsearchOperations;
+    private final IndexLifecycleProperties properties;
+    private final Environment environment;
+    private final List<Drift> drifted = new ArrayList<>();
+
+    @PostConstruct
+    public void manageIndices() {
+        for (Class<?> entity : MANAGED_ENTITIES) {
+            IndexOperations indexOperations = elasticsearchOperations.indexOps(entity);
+            String alias = indexOperations.getIndexCoordinates().getIndexName();
+            try {
+                if (properties.isEnabled()) {
+                    manage(alias, indexOperations.createMapping(entity));
+                } else if (!indexOperations.exists()) {
+                    indexOperations.createWithMapping();
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to manage index " + alias, e);
+            }
+        }
+        if (drifted.isEmpty()) {
+            return;
+        }
+        String report = drifted.stream()
+                .map(drift -> String.format("%s behind %s (%s)", drift.current(), drift.alias(), String.join("; ", drift.differences())))
+                .collect(Collectors.joining(", "));
+        if (!environment.getProperty(DriftedIndexMigration.ENABLED_PROPERTY, Boolean.class, false)) {
+            throw new IllegalStateException("Indices do not match their entity mapping: " + report + ". Start one instance with "
+                    + DriftedIndexMigration.ENABLED_PROPERTY + "=true to reindex them");
+        }
+        log.warn("Indices do not match their entity mapping, reindexing them once started: {}", report);
+    }
+
+    /**
+     * Moves every alias whose index drifted to a new revision with the current mapping. Run once by
+     * {@link DriftedIndexMigration}.
+     */
+    public synchronized void reindexDrifted() throws IOException {
+        while (!drifted.isEmpty()) {
+            Drift drift = drifted.getFirst();
+            log.info("Reindexing {} behind {}", drift.current(), drift.alias());
+            putTemplate(drift.alias(), drift.revision() + 1, drift.fingerprint(), drift.mapping(), drift.settings());
+            reindex(drift.alias(), drift.current(), drift.alias() + REVISION_SEPARATOR + (drift.revision() + 1), drift.carriedOver());
+            drifted.removeFirst();
+        }
+    }
+
+    private void manage(String alias, Document mapping) throws IOException {
+        ManagedIndex settings = properties.settingsFor(alias);
+        String fingerprint = fingerprint(mapping, settings);
+        mapping.put("_meta", Map.of(FINGERPRINT, fingerprint));
+
+        if (!elasticsearchClient.indices().exists(e -> e.index(alias)).value()) {
+            putTemplate(alias, 1, fingerprint, mapping, settings);
+            createFirst(alias);
+            return;
+        }
+        Map<String, IndexState> indices = elasticsearchClient.indices().get(g -> g.index(alias)).result();
+        if (indices.size() != 1) {
+            throw new IllegalStateException("Alias " + alias + " points to " + indices.keySet() + " instead of one index");
+        }
+        String current = indices.keySet().iterator().next();
+        IndexState state = indices.get(current);
+        int revision = revisionOf(alias, current);
+        if (fingerprint.equals(fingerprintOf(state))) {
+            putTemplate(alias, revision, fingerprint, mapping, settings);
+            updateDynamicSettings(current, settings);
+            return;
+        }
+
+        Map<String, Object> liveMapping = elasticsearchOperations.indexOps(IndexCoordinates.of(current)).getMapping();
+        List<String> differences = new ArrayList<>(differences(mapping, liveMapping));
+        String shards = shardsOf(state);
+        if (!String.valueOf(settings.getShards()).equals(shards)) {
+            differences.add("has " + shards + " shards instead of " + settings.getShards());
+        } else if (differences.stream().allMatch(difference -> difference.endsWith(NOT_MAPPED)) && adopt(current, mapping)) {
+            putTemplate(alias, revision, fingerprint, mapping, settings);
+            updateDynamicSettings(current, settings);
+            log.info("Adopted index {} behind {}{}", current, alias,
+                    differences.isEmpty() ? "" : ", added " + String.join("; ", differences).replace(NOT_MAPPED, ""));
+            return;
+        }
+        if (differences.isEmpty()) {
+            differences = List.of("mapped with parameters that cannot be updated in place");
+        }
+        drifted.add(new Drift(alias, current, revision, fingerprint, mapping, settings, carriedOver(mapping, liveMapping), differences));
+    }
+
+    /**
+     * Puts the current mapping, including its fingerprint, on an existing index.
+     *
+     * @return false when Elasticsearch rejects it because an existing field would change
+     */
+    private boolean adopt(String index, Document mapping) throws IOException {
+        try {
+            elasticsearchClient.indices().putMapping(p -> p
+                    .index(index)
+                    .withJson(new StringReader(mapping.toJson())));
+            return true;
+        } catch (ElasticsearchException e) {
+            if (!"illegal_argument_exception".equals(e.error().type())) {
+                throw e;
+            }
+            log.debug("Mapping of {} cannot be updated in place: {}", index, e.error().reason());
+            return false;
+        }
+    }
+
+    private void updateDynamicSettings(String index, ManagedIndex settings) throws IOException {
+        elasticsearchClient.indices().putSettings(s -> s
+                .index(index)
+                .settings(dynamicSettings -> dynamicSettings
+                        .numberOfReplicas(String.valueOf(settings.getReplicas()))
+                        .refreshInterval(t -> t.time(settings.getRefreshInterval()))));
+    }
+
+    private void createFirst(String alias) throws IOException {
+        String index = alias + REVISION_SEPARATOR + 1;
+        try {
+            elasticsearchClient.indices().create(c -> c
+                    .index(index)
+                    .aliases(alias, a -> a.isWriteIndex(true)));
+            log.info("Created index {} behind {}", index, alias);
+        } catch (ElasticsearchException e) {
+            // Another instance starting at the same time got there first
+            if (!"resource_already_exists_exception".equals(e.error().type())) {
+                throw e;
+            }
+        }
+    }
+
+    private void reindex(String alias, String current, String next, Document carriedOver) throws IOException {
+        // A leftover from an interrupted reindex is not behind the alias and can be dropped
+        if (elasticsearchClient.indices().exists(e -> e.index(next)).value()) {
+            elasticsearchClient.indices().delete(d -> d.index(next));
+        }
+        elasticsearchClient.indices().create(c -> c
+                .index(next)
+                .mappings(TypeMapping.of(m -> m.withJson(new StringReader(carriedOver.toJson())))));
+
+        copy(current, next);
+        blockWrites(current, true);
+        boolean moved = false;
+        try {
+            copy(current, next);
+            deleteMissing(current, next);
+            elasticsearchClient.indices().refresh(r -> r.index(next));
+            // An unmanaged index has the alias's name, so it has to go in the same request
+            boolean dropCurrent = current.equals(alias) || !properties.isKeepPreviousIndex();
+            elasticsearchClient.indices().updateAliases(u -> u
+                    .actions(a -> a.add(add -> add.index(next).alias(alias).isWriteIndex(true)))
+                    .actions(a -> dropCurrent
+                            ? a.removeIndex(remove -> remove.index(current))
+                            : a.remove(remove -> remove.index(current).alias(alias))));
+            moved = true;
+            log.info("Moved {} from {} to {}{}", alias, current, next, dropCurrent ? " and deleted " + current : "");
+        } finally {
+            if (!moved) {
+                blockWrites(current, false);
+            }
+        }
+    }
+
+    /**
+     * Copies documents that are missing from the target or older there. Versions are carried over as external
+     * versions, so a repeated copy skips every document that has not changed since the previous one.
+     */
+    private void copy(String source, String target) throws IOException {
+        String task = elasticsearchClient.reindex(r -> r
+                .source(s -> s.index(source))
+                .dest(d -> d.index(target).versionType(VersionType.External))
+                .conflicts(Conflicts.Proceed)
+                .waitForCompletion(false)).task();
+        GetTasksResponse status = elasticsearchClient.tasks().get(t -> t.taskId(task));
+        while (!status.completed()) {
+            try {
+                Thread.sleep(properties.getReindexPollInterval().toMillis());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while reindexing " + source + " into " + target, e);
+            }
+            status = elasticsearchClient.tasks().get(t -> t.taskId(task));
+        }
+        if (status.error() != null) {
+            throw new IllegalStateException("Reindexing " + source + " into " + target + " failed: " + status.error().reason());
+        }
+        ReindexResponse response = status.response().to(ReindexResponse.class, elasticsearchClient._jsonpMapper());
+        if (!response.failures().isEmpty()) {
+            throw new IllegalStateException("Reindexing " + source + " into " + target + " failed for "
+                    + response.failures().size() + " documents, first: " + response.failures().getFirst().cause().reason());
+        }
+        log.info("Copied {} into {}: {} created, {} updated, {} unchanged", source, target,
+                response.created(), response.updated(), response.versionConflicts());
+    }
+
+    /**
+     * Deletes documents from the target that no longer exist in the source, i.e. those deleted after the first copy
+     * picked them up. Only complete while writes to the source are blocked. The target is walked in pages of ids
+     * through a point-in-time, and each page is looked up in the source with a realtime multi-get, so documents
+     * not yet refreshed there still count as present.
+     */
+    private void deleteMissing(String source, String target) throws IOException {
+        elasticsearchClient.indices().refresh(r -> r.index(target));
+        String pitId = elasticsearchClient.openPointInTime(p -> p
+                .index(target)
+                .keepAlive(t -> t.time(ID_SCAN_KEEP_ALIVE))).id();
+        long deleted = 0;
+        try {
+            List<FieldValue> searchAfter = null;
+            while (true) {
+                String pit = pitId;
+                List<FieldValue> after = searchAfter;
+                SearchResponse<Void> page = elasticsearchClient.search(s -> {
+                    s.pit(p -> p.id(pit).keepAlive(t -> t.time(ID_SCAN_KEEP_ALIVE)))
+                            .size(ID_SCAN_PAGE_SIZE)
+                            .source(src -> src.fetch(false))
+                            .sort(o -> o.field(f -> f.field("_shard_doc").order(SortOrder.Asc)))
+                            .trackTotalHits(t -> t.enabled(false));
+                    if (after != null) {
+                        s.searchAfter(after);
+                    }
+                    return s;
+                }, Void.class);
+                List<Hit<Void>> hits = page.hits().hits();
+                if (hits.isEmpty()) {
+                    break;
+                }
+                List<String> missing = missingFrom(source, hits.stream().map(Hit::id).toList());
+                if (!missing.isEmpty()) {
+                    BulkResponse response = elasticsearchClient.bulk(b -> {
+                        b.index(target);
+                        missing.forEach(id -> b.operations(op -> op.delete(d -> d.id(id))));
+                        return b;
+                    });
+                    if (response.errors()) {
+                        throw new IllegalStateException("Failed to delete documents removed from " + source + " from " + target);
+                    }
+                    deleted += missing.size();
+                }
+                searchAfter = hits.getLast().sort();
+                if (page.pitId() != null) {
+                    pitId = page.pitId();
+                }
+            }
+        } finally {
+            String pit = pitId;
+            try {
+                elasticsearchClient.closePointInTime(c -> c.id(pit));
+            } catch (IOException | RuntimeException e) {
+                log.debug("Failed to close point-in-time, it expires on its own: {}", e.getMessage());
+            }
+        }
+        log.info("Deleted {} documents from {} that were deleted from {} while copying", deleted, target, source);
+    }
+
+    private List<String> missingFrom(String index, List<String> ids) throws IOException {
+        MgetResponse<Void> response = elasticsearchClient.mget(m -> m
+                .index(index)
+                .ids(ids)
+                .source(src -> src.fetch(false)), Void.class);
+        List<String> missing = new ArrayList<>();
+        for (MultiGetResponseItem<Void> item : response.docs()) {
+            if (item.isFailure()) {
+                throw new IllegalStateException("Failed to look up " + item.failure().id() + " in " + index + ": "
+                        + item.failure().error().reason());
+            }
+            if (!item.result().found()) {
+                missing.add(item.result().id());
+            }
+        }
+        return missing;
+    }
+
+    private void blockWrites(String index, boolean blocked) throws IOException {
+        elasticsearchClient.indices().putSettings(s -> s
+                .index(index)
+                .settings(settings -> settings.blocks(b -> b.write(blocked))));
+    }
+
+    private void putTemplate(String alias, int revision, String fingerprint, Document mapping, ManagedIndex settings)
+            throws IOException {
+        elasticsearchClient.indices().putIndexTemplate(t -> t
+                .name(TEMPLATE_PREFIX + alias)
+                .indexPatterns(alias + REVISION_SEPARATOR + "*")
+                .version((long) revision)
+                .meta(FINGERPRINT, JsonData.of(fingerprint))
+                .template(template -> template
+                        .settings(IndexSettings.of(s -> s
+                                .numberOfShards(String.valueOf(settings.getShards()))
+                                .numberOfReplicas(String.valueOf(settings.getReplicas()))
+                                .refreshInterval(time -> time.time(settings.getRefreshInterval()))))
+                        .mappings(TypeMapping.of(m -> m.withJson(new StringReader(mapping.toJson()))))));
+    }
+
+    private String fingerprintOf(IndexState index) {
+        TypeMapping mapping = index.mappings();
+        JsonData fingerprint = mapping == null ? null : mapping.meta().get(FINGERPRINT);
+        return fingerprint == null ? null : fingerprint.to(String.class, elasticsearchClient._jsonpMapper());
+    }
+
+    private static String shardsOf(IndexState index) {
+        IndexSettings settings = index.settings();
+        if (settings != null && settings.index() != null) {
+            settings = settings.index();
+        }
+        return settings == null ? null : settings.numberOfShards();
+    }
+
+    private static int revisionOf(String alias, String index) {
+        String prefix = alias + REVISION_SEPARATOR;
+        return index.startsWith(prefix) ? Integer.parseInt(index.substring(prefix.length())) : 0;
+    }
+
+    /**
+     * Hash of everything that can only be changed by reindexing: the mapping and the number of shards.
+     */
+    static String fingerprint(Document mapping, ManagedIndex settings) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(mapping.toJson().getBytes(StandardCharsets.UTF_8));
+            digest.update(("\nshards=" + settings.getShards()).getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest.digest(), 0, 8);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Lists the fields of the expected mapping that are missing from the live one or mapped differently there.
+     * Fields only in the live mapping are not differences; they are {@link #carriedOver carried over}.
+     */
+    static List<String> differences(Map<String, Object> expected, Map<String, Object> live) {
+        List<String> differences = new ArrayList<>();
+        compare("", propertiesOf(expected, "properties"), propertiesOf(live, "properties"), differences);
+        return differences;
+    }
+
+    private static void compare(String prefix, Map<String, Object> expected, Map<String, Object> live, List<String> differences) {
+        expected.forEach((name, definition) -> {
+            String path = prefix + name;
+            Map<String, Object> wanted = asMap(definition);
+            Map<String, Object> actual = asMap(live.get(name));
+            if (actual.isEmpty()) {
+                differences.add(path + NOT_MAPPED);
+                return;
+            }
+            for (String attribute : COMPARED_ATTRIBUTES) {
+                String wantedValue = attributeOf(wanted, attribute);
+                String actualValue = attributeOf(actual, attribute);
+                if (!wantedValue.equals(actualValue)) {
+                    differences.add(path + " has " + attribute + " " + actualValue + " instead of " + wantedValue);
+                }
+            }
+            compare(path + ".", propertiesOf(wanted, "properties"), propertiesOf(actual, "properties"), differences);
+            compare(path + ".", propertiesOf(wanted, "fields"), propertiesOf(actual, "fields"), differences);
+        });
+    }
+
+    private static String attributeOf(Map<String, Object> field, String attribute) {
+        Object value = field.get(attribute);
+        if (value == null) {
+            value = switch (attribute) {
+                case "type" -> "object"; // Object fields are returned without a type
+                case "index", "doc_values", "enabled" -> true;
+                default -> "default";
+            };
+        }
+        return String.valueOf(value);
+    }
+
+    /**
+     * Top-level fields of the live mapping that the entity no longer declares, such as the embedded documents a
+     * pending migration still reads, so they keep their mapping in the next revision.
+     */
+    private static Document carriedOver(Map<String, Object> expected, Map<String, Object> live) {
+        Map<String, Object> expectedProperties = propertiesOf(expected, "properties");
+        Map<String, Object> extra = new LinkedHashMap<>(propertiesOf(live, "properties"));
+        extra.keySet().removeAll(expectedProperties.keySet());
+        return Document.from(Map.of("properties", extra));
+    }
+
+    private static Map<String, Object> propertiesOf(Map<String, Object> field, String key) {
+        return asMap(field.get(key));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> asMap(Object value) {
+        return value instanceof Map<?, ?> map ? (Map<String, Object>) map : Map.of();
+    }
+
+    private record Drift(String alias, String current, int revision, String fingerprint, Document mapping,
+                         ManagedIndex settings, Document carriedOver, List<String> differences) {
+    }
+}
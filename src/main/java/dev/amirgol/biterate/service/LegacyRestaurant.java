@@ -0,0 +1,49 @@
+package dev.amirgol.biterate.service;
+
+import dev.amirgol.biterate.domain.entites.Photo;
+import dev.amirgol.biterate.domain.entites.User;
+import lombok.Data;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.elasticsearch.annotations.Document;
+import org.springframework.data.elasticsearch.annotations.Field;
+import org.springframework.data.elasticsearch.annotations.FieldType;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.springframework.data.elasticsearch.annotations.DateFormat.date_hour_minute_second;
+
+/**
+ * Read-only view of the embedded {@code reviews} and {@code photos} that restaurant documents carried before they
+ * moved to their own indices. Only used by {@link EmbeddedDocumentMigration}.
+ */
+@Data
+@Document(indexName = "restaurant", createIndex = false)
+class LegacyRestaurant {
+    @Id
+    private String id;
+
+    @Field(type = FieldType.Nested)
+    private List<Photo> photos;
+
+    @Field(type = FieldType.Nested)
+    private List<LegacyReview> reviews;
+
+    @Data
+    static class LegacyReview {
+        @Field(type = FieldType.Keyword)
+        private String id;
+        @Field(type = FieldType.Text)
+        private String content;
+        @Field(type = FieldType.Integer)
+        private Integer rating;
+        @Field(type = FieldType.Date, format = date_hour_minute_second)
+        private LocalDateTime datePosted;
+        @Field(type = FieldType.Date, format = date_hour_minute_second)
+        private LocalDateTime lastEdited;
+        @Field(type = FieldType.Nested)
+        private List<Photo> photos;
+        @Field(type = FieldType.Nested)
+        private User writtenBy;
+    }
+}
@@ -0,0 +1,186 @@
+package dev.amirgol.biterate.service;
+
+import dev.amirgol.biterate.config.BlockingIoExecutors;
+import dev.amirgol.biterate.config.MinioProperties;
+import dev.amirgol.biterate.exception.BiteRateException;
+import io.minio.ComposeObjectArgs;
+import io.minio.ComposeSource;
+import io.minio.MinioClient;
+import io.minio.PutObjectArgs;
+import io.minio.RemoveObjectsArgs;
+import io.minio.Result;
+import io.minio.messages.DeleteError;
+import io.minio.messages.DeleteObject;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Uploads large objects as independently stored parts that are composed server-side.
+ * <p>
+ * The input stream is read sequentially into part-sized buffers, each of which is uploaded on a bounded shared
+ * pool while the next one is being read. A per-upload semaphore caps the number of buffered parts, so memory use
+ * is at most {@code parallelism * partSize} per upload. Each part is retried on its own. The parts are stored
+ * under a key derived from the upload's temporary name and only concatenated later with {@code composeObject},
+ * once the final name is known, so the bytes are copied server-side exactly once and never pass through the JVM
+ * again.
+ * </p>
+ */
+@Component
+@Slf4j
+public class MinioMultipartUploader {
+    private static final long MINIMUM_PART_SIZE = 5L * 1024 * 1024;
+    private static final long RETRY_BACKOFF_MILLIS = 200;
+
+    private final MinioClient minioClient;
+    private final MinioProperties minioProperties;
+    private final ExecutorService partUploadExecutor;
+
+    public MinioMultipartUploader(MinioClient minioClient, MinioProperties minioProperties, BlockingIoExecutors blockingIoExecutors) {
+        this.minioClient = minioClient;
+        this.minioProperties = minioProperties;
+        this.partUploadExecutor = blockingIoExecutors.create("minio-part-upload", minioProperties.getMultipart().getThreads());
+    }
+
+    public boolean supports(long fileSize) {
+        MinioProperties.Multipart multipart = minioProperties.getMultipart();
+        return multipart.isEnabled() && fileSize >= multipart.getThreshold().toBytes();
+    }
+
+    /**
+     * Uploads the stream as parts named after {@code objectName}. The stream is read exactly once, sequentially, on
+     * the calling thread, so a wrapping {@code DigestInputStream} still sees every byte in order.
+     *
+     * @return the names of the stored parts, in order, to be passed to {@link #compose} or {@link #removeParts};
+     * on failure the parts are removed before this throws
+     */
+    public List<String> uploadParts(String objectName, InputStream inputStream, String contentType) {
+        MinioProperties.Multipart multipart = minioProperties.getMultipart();
+        int partSize = (int) Math.max(multipart.getPartSize().toBytes(), MINIMUM_PART_SIZE);
+        Semaphore bufferedParts = new Semaphore(multipart.getParallelism());
+
+        List<String> partNames = new ArrayList<>();
+        List<CompletableFuture<Void>> partUploads = new ArrayList<>();
+        boolean uploaded = false;
+        try {
+            while (true) {
+                bufferedParts.acquire();
+                byte[] part = inputStream.readNBytes(partSize);
+                if (part.length == 0) {
+                    bufferedParts.release();
+                    break;
+                }
+
+                String partName = String.format("%s.parts/%05d", objectName, partNames.size() + 1);
+                partNames.add(partName);
+                partUploads.add(CompletableFuture
+                        .runAsync(() -> uploadPart(partName, part, contentType), partUploadExecutor)
+                        .whenComplete((ignored, throwable) -> bufferedParts.release()));
+
+                if (partUploads.stream().anyMatch(CompletableFuture::isCompletedExceptionally)) {
+                    break;
+                }
+            }
+            CompletableFuture.allOf(partUploads.toArray(CompletableFuture[]::new)).join();
+            uploaded = true;
+            return partNames;
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            throw new BiteRateException("MinIO multipart upload interrupted", exception);
+        } catch (CompletionException exception) {
+            throw new BiteRateException("MinIO multipart upload failed: " + exception.getCause().getMessage(), exception.getCause());
+        } catch (Exception exception) {
+            throw new BiteRateException("MinIO multipart upload failed: " + exception.getMessage(), exception);
+        } finally {
+            if (!uploaded) {
+                // Never remove parts while an upload of one of them may still be running
+                CompletableFuture.allOf(partUploads.toArray(CompletableFuture[]::new)).exceptionally(throwable -> null).join();
+                removeParts(partNames);
+            }
+        }
+    }
+
+    /**
+     * Concatenates stored parts into {@code objectName} of {@code bucket}, which may differ from the bucket the
+     * parts are in. The parts are left in place.
+     */
+    public void compose(List<String> partNames, String bucket, String objectName, String contentType) throws Exception {
+        minioClient.composeObject(
+                ComposeObjectArgs.builder()
+                        .bucket(bucket)
+                        .object(objectName)
+                        .sources(partNames.stream()
+                                .map(partName -> ComposeSource.builder()
+                                        .bucket(minioProperties.getBucket())
+                                        .object(partName)
+                                        .build())
+                                .toList())
+                        .headers(Map.of("Content-Type", contentType))
+                        .build()
+        );
+        log.debug("Composed {} parts into: {}", partNames.size(), objectName);
+    }
+
+    private void uploadPart(String partName, byte[] part, String contentType) {
+        int maxAttempts = Math.max(1, minioProperties.getMultipart().getMaxAttempts());
+        for (int attempt = 1; ; attempt++) {
+            try {
+                minioClient.putObject(
+                        PutObjectArgs.builder()
+                                .bucket(minioProperties.getBucket())
+                                .object(partName)
+                                .stream(new ByteArrayInputStream(part), part.length, -1)
+                                .contentType(contentType)
+                                .build()
+                );
+                return;
+            } catch (Exception exception) {
+                if (attempt >= maxAttempts) {
+                    throw new BiteRateException("Failed to upload part " + partName + " after " + attempt + " attempts", exception);
+                }
+                log.warn("Retrying part {} (attempt {} of {}): {}", partName, attempt + 1, maxAttempts, exception.getMessage());
+                try {
+                    Thread.sleep(RETRY_BACKOFF_MILLIS * attempt);
+                } catch (InterruptedException interruptedException) {
+                    Thread.currentThread().interrupt();
+                    throw new BiteRateException("Part upload interrupted: " + partName, interruptedException);
+                }
+            }
+        }
+    }
+
+    public void removeParts(List<String> partNames) {
+        if (partNames.isEmpty()) {
+            return;
+        }
+        Iterable<Result<DeleteError>> results = minioClient.removeObjects(
+                RemoveObjectsArgs.builder()
+                        .bucket(minioProperties.getBucket())
+                        .objects(partNames.stream().map(DeleteObject::new).toList())
+                        .build()
+        );
+        for (Result<DeleteError> result : results) {
+            try {
+                DeleteError error = result.get();
+                log.warn("Failed to remove part: {}, Error: {}", error.objectName(), error.message());
+            } catch (Exception exception) {
+                log.warn("Failed to remove parts: {}", exception.getMessage());
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        partUploadExecutor.shutdown();
+    }
+}
@@ -0,0 +1,65 @@
+package dev.amirgol.biterate.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import dev.amirgol.biterate.config.PresignedUrlProperties;
+import dev.amirgol.biterate.domain.dto.PresignedUpload;
+import dev.amirgol.biterate.exception.BiteRateException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+/**
+ * Issues presigned MinIO URLs so photo bytes move between clients and storage without passing through this node.
+ * <p>
+ * Presigned GETs are cached per object and disposition for {@code downloadTtl - refreshMargin}, so repeated views
+ * of the same photo get the same URL, which lets browsers and CDNs cache the bytes behind it, and the signature is
+ * not recomputed per request. Hit ratio is published as {@code cache.*} meters tagged {@code cache=presignedUrls}.
+ * </p>
+ */
+@Service
+@ConditionalOnProperty(prefix = "biterate.presigned-urls", name = "enabled", havingValue = "true")
+public class MinioPresignedUrlService implements PresignedUrlService {
+    private final MinioService minIOService;
+    private final PresignedUrlProperties properties;
+    private final Cache<DownloadKey, String> downloadUrls;
+
+    public MinioPresignedUrlService(MinioService minIOService, PresignedUrlProperties properties, MeterRegistry meterRegistry) {
+        if (properties.getRefreshMargin().compareTo(properties.getDownloadTtl()) >= 0) {
+            throw new BiteRateException("Presigned URL refresh margin must be shorter than the download TTL");
+        }
+        this.minIOService = minIOService;
+        this.properties = properties;
+        this.downloadUrls = Caffeine.newBuilder()
+                .maximumSize(properties.getMaximumSize())
+                .expireAfterWrite(properties.getDownloadTtl().minus(properties.getRefreshMargin()))
+                .recordStats()
+                .build();
+
+        CaffeineCacheMetrics.monitor(meterRegistry, downloadUrls, "presignedUrls");
+    }
+
+    @Override
+    public PresignedUpload createUpload() {
+        return minIOService.presignUpload(properties.getUploadTtl());
+    }
+
+    /**
+     * Signing is local and cheap, so it is done outside of the cache's compute like the other caches here.
+     */
+    @Override
+    public String downloadUrl(String storageKey, String attachmentFilename) {
+        DownloadKey key = new DownloadKey(storageKey, attachmentFilename);
+        String cached = downloadUrls.getIfPresent(key);
+        if (cached != null) {
+            return cached;
+        }
+        String url = minIOService.presignDownload(storageKey, attachmentFilename, properties.getDownloadTtl());
+        downloadUrls.put(key, url);
+        return url;
+    }
+
+    private record DownloadKey(String storageKey, String attachmentFilename) {
+    }
+}
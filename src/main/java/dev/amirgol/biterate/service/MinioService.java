@@ -1,13 +1,39 @@
 package dev.amirgol.biterate.service;
 
+import dev.amirgol.biterate.domain.dto.PresignedUpload;
+import dev.amirgol.biterate.domain.dto.StagedObject;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.InputStream;
+import java.time.Duration;
+import java.util.Optional;
 
 public interface MinioService {
     String uploadFile(MultipartFile file);
 
+    StagedObject stageFile(MultipartFile file);
+
+    String commitFile(StagedObject stagedObject);
+
+    void discardFile(StagedObject stagedObject);
+
+    PresignedUpload presignUpload(Duration ttl);
+
+    StagedObject stageUploaded(String uploadId, String originalFilename);
+
+    String presignDownload(String objectName, String attachmentFilename, Duration ttl);
+
+    void copyFile(String sourceName, String targetName);
+
+    void storeFile(String objectName, InputStream inputStream, long size, String contentType);
+
+    Optional<Long> getFileSize(String objectName);
+
     InputStream downloadFile(String objectName);
 
+    InputStream downloadFile(String objectName, long offset, long length);
+
     void deleteFile(String objectName);
+
+    void deleteFiles(String prefix);
 }
@@ -1,8 +1,15 @@
 package dev.amirgol.biterate.service;
 
 import dev.amirgol.biterate.config.MinioProperties;
+import dev.amirgol.biterate.domain.dto.PresignedUpload;
+import dev.amirgol.biterate.domain.dto.StagedObject;
 import dev.amirgol.biterate.exception.BiteRateException;
 import io.minio.*;
+import io.minio.errors.ErrorResponseException;
+import io.minio.http.Method;
+import io.minio.messages.DeleteError;
+import io.minio.messages.DeleteObject;
+import io.minio.messages.Item;
 import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -10,47 +17,52 @@ import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.InputStream;
+import java.io.OutputStream;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
 
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class MinioStorageService implements MinioService {
+    private static final String TEMPORARY_PREFIX = "tmp/";
+    private static final Pattern MD5_ETAG = Pattern.compile("[0-9a-f]{32}");
+    private static final String SSE = "x-amz-server-side-encryption";
+    private static final String SSE_S3 = "AES256";
+    private static final String SSE_CUSTOMER_ALGORITHM = "x-amz-server-side-encryption-customer-algorithm";
+
     private final MinioClient minioClient;
     private final MinioProperties minioProperties;
+    private final MinioMultipartUploader multipartUploader;
+    private final StorageKeyResolver storageKeyResolver;
 
     @PostConstruct
     public void init() {
-        try {
-            boolean bucketExists = minioClient.bucketExists(BucketExistsArgs.builder()
-                    .bucket(minioProperties.getBucket())
-                    .build());
-            if (!bucketExists) {
-                minioClient.makeBucket(MakeBucketArgs.builder()
-                        .bucket(minioProperties.getBucket())
+        for (String bucket : storageKeyResolver.buckets()) {
+            try {
+                boolean bucketExists = minioClient.bucketExists(BucketExistsArgs.builder()
+                        .bucket(bucket)
                         .build());
-                log.info("Created MinIO bucket: {}", minioProperties.getBucket());
+                if (!bucketExists) {
+                    minioClient.makeBucket(MakeBucketArgs.builder()
+                            .bucket(bucket)
+                            .build());
+                    log.info("Created MinIO bucket: {}", bucket);
+                }
+            } catch (Exception e) {
+                log.error("Failed to initialize MinIO bucket: {}", e.getMessage());
+                throw new BiteRateException("Failed to initialize MinIO bucket", e);
             }
-        } catch (Exception e) {
-            log.error("Failed to initialize MinIO bucket: {}", e.getMessage());
-            throw new BiteRateException("Failed to initialize MinIO bucket", e);
-        }
-    }
-
-    private String generateObjectName(MultipartFile file) {
-        try {
-            String timestamp = String.valueOf(System.currentTimeMillis());
-            String fileExtension = getFileExtension(file.getOriginalFilename());
-            String contentHash = org.apache.commons.codec.digest.DigestUtils.md5Hex(file.getInputStream());
-
-            return String.format("%s/%s_%s.%s",
-                    timestamp.substring(0, 6), // First 6 digits of timestamp for partitioning
-                    contentHash,
-                    timestamp,
-                    fileExtension
-            );
-        } catch (Exception e) {
-            throw new BiteRateException("Failed to generate object name", e);
         }
     }
 
@@ -63,36 +75,296 @@ public class MinioStorageService implements MinioService {
 
     @Override
     public String uploadFile(MultipartFile file) {
+        return commitFile(stageFile(file));
+    }
+
+    /**
+     * Streams the file to a temporary key in a single pass over its bytes.
+     * <p>
+     * An MD5 digest is computed on the fly while MinIO consumes the stream, so the (possibly disk-spooled)
+     * multipart body is read exactly once. Large files are sent as parallel parts by {@link MinioMultipartUploader}.
+     * The content-addressed object name is only known once the last byte has been hashed, and MinIO needs the name
+     * before the first one, which is why the object has to be committed with {@link #commitFile(StagedObject)} or
+     * dropped with {@link #discardFile(StagedObject)}. Parts are not composed here but on commit, straight into the
+     * final name, so they are copied server-side once rather than twice.
+     * </p>
+     */
+    @Override
+    public StagedObject stageFile(MultipartFile file) {
         if (file == null || file.isEmpty()) {
             throw new BiteRateException("Cannot upload empty or null file");
         }
 
-        String objectName = generateObjectName(file);
-        try (InputStream inputStream = file.getInputStream()) {
-            log.debug("Attempting to upload file: {} to bucket: {}", objectName, minioProperties.getBucket());
+        // Ensure content type is never null
+        String contentType = file.getContentType();
+        if (contentType == null) {
+            contentType = "application/octet-stream";
+        }
+
+        String temporaryName = TEMPORARY_PREFIX + UUID.randomUUID();
+        try (DigestInputStream inputStream = new DigestInputStream(file.getInputStream(), MessageDigest.getInstance("MD5"))) {
+            log.debug("Attempting to upload file: {} to bucket: {}", temporaryName, minioProperties.getBucket());
 
-            // Ensure content type is never null
-            String contentType = file.getContentType();
-            if (contentType == null) {
-                contentType = "application/octet-stream";
+            List<String> partNames = null;
+            if (multipartUploader.supports(file.getSize())) {
+                partNames = multipartUploader.uploadParts(temporaryName, inputStream, contentType);
+            } else {
+                PutObjectArgs putObjectArgs = PutObjectArgs.builder()
+                        .bucket(minioProperties.getBucket())
+                        .object(temporaryName)
+                        .stream(inputStream, file.getSize(), -1)
+                        .contentType(contentType)
+                        .build();
+
+                minioClient.putObject(putObjectArgs);
             }
 
-            PutObjectArgs putObjectArgs = PutObjectArgs.builder()
-                    .bucket(minioProperties.getBucket())
-                    .object(objectName)
-                    .stream(inputStream, file.getSize(), -1)
+            return StagedObject.builder()
+                    .temporaryName(temporaryName)
+                    .contentHash(HexFormat.of().formatHex(inputStream.getMessageDigest().digest()))
                     .contentType(contentType)
+                    .fileExtension(getFileExtension(file.getOriginalFilename()))
+                    .fileSize(file.getSize())
+                    .partNames(partNames)
                     .build();
+        } catch (Exception exception) {
+            log.error("Failed to upload file to MinIO. File: {}, Error: {}", temporaryName, exception.getMessage(), exception);
+            throw new BiteRateException("MinIO upload failed: " + exception.getMessage(), exception);
+        }
+    }
+
+    /**
+     * Commits a staged object to its content-addressed name with a server-side copy, or by composing its parts.
+     */
+    @Override
+    public String commitFile(StagedObject stagedObject) {
+        String objectName = storageKeyResolver.newStorageKey(stagedObject.getContentHash(), stagedObject.getFileExtension());
+        commitObject(stagedObject, objectName);
+        log.info("Successfully uploaded file: {} to MinIO", objectName);
+
+        return objectName;
+    }
+
+    @Override
+    public void discardFile(StagedObject stagedObject) {
+        removeStaged(stagedObject);
+    }
+
+    /**
+     * Presigns a PUT to a fresh temporary key. The upload id is the random part of that key, so a client can only
+     * ever complete an object under {@code tmp/}.
+     */
+    @Override
+    public PresignedUpload presignUpload(Duration ttl) {
+        String uploadId = UUID.randomUUID().toString();
+        return PresignedUpload.builder()
+                .uploadId(uploadId)
+                .uploadUrl(presign(Method.PUT, TEMPORARY_PREFIX + uploadId, ttl, Map.of()))
+                .expiresAt(Instant.now().plus(ttl))
+                .build();
+    }
+
+    /**
+     * Turns an object the client has PUT through a presigned URL into a {@link StagedObject}, as if it had been
+     * streamed by {@link #stageFile(MultipartFile)}.
+     * <p>
+     * The bytes never passed through this node, so the content hash comes from MinIO. A single-part PUT's ETag is
+     * the MD5 of its content, unless the object is encrypted with SSE-KMS, whose ETag merely looks like one. Such
+     * objects, and any ETag that is not 32 hex digits, fall back to reading the object once to digest it. Objects
+     * encrypted with a customer key (SSE-C) are rejected, since this node could never read them back.
+     * </p>
+     */
+    @Override
+    public StagedObject stageUploaded(String uploadId, String originalFilename) {
+        try {
+            UUID.fromString(uploadId);
+        } catch (IllegalArgumentException exception) {
+            throw new BiteRateException("Unknown upload: " + uploadId);
+        }
+
+        String temporaryName = TEMPORARY_PREFIX + uploadId;
+        StatObjectResponse stat;
+        try {
+            stat = minioClient.statObject(StatObjectArgs.builder()
+                    .bucket(minioProperties.getBucket())
+                    .object(temporaryName)
+                    .build());
+        } catch (ErrorResponseException exception) {
+            if ("NoSuchKey".equals(exception.errorResponse().code())) {
+                throw new BiteRateException("Upload has not been received: " + uploadId);
+            }
+            throw new BiteRateException("MinIO stat failed", exception);
+        } catch (Exception exception) {
+            throw new BiteRateException("MinIO stat failed", exception);
+        }
+
+        if (stat.headers().get(SSE_CUSTOMER_ALGORITHM) != null) {
+            removeQuietly(temporaryName);
+            throw new BiteRateException("Uploads encrypted with a customer-provided key are not supported");
+        }
+        String encryption = stat.headers().get(SSE);
+        String eTag = stat.etag() == null ? "" : stat.etag().replace("\"", "").toLowerCase();
+        boolean eTagIsMd5 = (encryption == null || SSE_S3.equals(encryption)) && MD5_ETAG.matcher(eTag).matches();
+        String contentHash = eTagIsMd5 ? eTag : digest(temporaryName);
+        return StagedObject.builder()
+                .temporaryName(temporaryName)
+                .contentHash(contentHash)
+                .contentType(stat.contentType() != null ? stat.contentType() : "application/octet-stream")
+                .fileExtension(getFileExtension(originalFilename))
+                .fileSize(stat.size())
+                .build();
+    }
+
+    /**
+     * Presigns a GET of a stored object. With an {@code attachmentFilename} the response is served as a download
+     * under that name.
+     */
+    @Override
+    public String presignDownload(String objectName, String attachmentFilename, Duration ttl) {
+        Map<String, String> responseHeaders = attachmentFilename == null
+                ? Map.of()
+                : Map.of("response-content-disposition", "attachment; filename=\"" + attachmentFilename.replace("\"", "") + "\"");
+        return presign(Method.GET, objectName, ttl, responseHeaders);
+    }
+
+    private String presign(Method method, String objectName, Duration ttl, Map<String, String> queryParams) {
+        try {
+            return minioClient.getPresignedObjectUrl(GetPresignedObjectUrlArgs.builder()
+                    .method(method)
+                    .bucket(bucketOf(objectName))
+                    .object(objectNameOf(objectName))
+                    .expiry((int) ttl.toSeconds(), TimeUnit.SECONDS)
+                    .extraQueryParams(queryParams)
+                    .build());
+        } catch (Exception exception) {
+            throw new BiteRateException("MinIO presign failed: " + exception.getMessage(), exception);
+        }
+    }
+
+    private String digest(String objectName) {
+        try (DigestInputStream inputStream = new DigestInputStream(downloadFile(objectName), MessageDigest.getInstance("MD5"))) {
+            inputStream.transferTo(OutputStream.nullOutputStream());
+            return HexFormat.of().formatHex(inputStream.getMessageDigest().digest());
+        } catch (Exception exception) {
+            throw new BiteRateException("MinIO download failed", exception);
+        }
+    }
+
+    private void commitObject(StagedObject stagedObject, String objectName) {
+        try {
+            if (stagedObject.getPartNames() != null) {
+                multipartUploader.compose(stagedObject.getPartNames(), bucketOf(objectName), objectNameOf(objectName),
+                        stagedObject.getContentType());
+            } else {
+                copyObject(stagedObject.getTemporaryName(), objectName, stagedObject.getContentType());
+            }
+        } catch (Exception exception) {
+            removeStaged(stagedObject);
+            log.error("Failed to commit uploaded object. File: {}, Error: {}", objectName, exception.getMessage(), exception);
+            throw new BiteRateException("MinIO upload failed: " + exception.getMessage(), exception);
+        }
+        removeStaged(stagedObject);
+    }
+
+    private void removeStaged(StagedObject stagedObject) {
+        if (stagedObject.getPartNames() != null) {
+            multipartUploader.removeParts(stagedObject.getPartNames());
+        } else {
+            removeQuietly(stagedObject.getTemporaryName());
+        }
+    }
 
-            minioClient.putObject(putObjectArgs);
-            log.info("Successfully uploaded file: {} to MinIO", objectName);
+    /**
+     * Server-side copy; the keys may live in different buckets.
+     */
+    @Override
+    public void copyFile(String sourceName, String targetName) {
+        try {
+            StatObjectResponse source = minioClient.statObject(StatObjectArgs.builder()
+                    .bucket(bucketOf(sourceName))
+                    .object(objectNameOf(sourceName))
+                    .build());
+            copyObject(sourceName, targetName, source.contentType());
+        } catch (Exception exception) {
+            log.error("Failed to copy object: {} to {}, Error: {}", sourceName, targetName, exception.getMessage(), exception);
+            throw new BiteRateException("MinIO copy failed: " + exception.getMessage(), exception);
+        }
+    }
 
+    /**
+     * A compose with a single source: a plain copy up to 5 GiB, and a multipart copy beyond, where a plain copy
+     * is not allowed. The multipart copy does not carry the source's metadata over, hence the explicit content type.
+     */
+    private void copyObject(String sourceName, String targetName, String contentType) throws Exception {
+        minioClient.composeObject(
+                ComposeObjectArgs.builder()
+                        .bucket(bucketOf(targetName))
+                        .object(objectNameOf(targetName))
+                        .sources(List.of(ComposeSource.builder()
+                                .bucket(bucketOf(sourceName))
+                                .object(objectNameOf(sourceName))
+                                .build()))
+                        .headers(contentType != null ? Map.of("Content-Type", contentType) : Map.of())
+                        .build()
+        );
+    }
+
+    private String bucketOf(String storageKey) {
+        return storageKeyResolver.locate(storageKey).bucket();
+    }
+
+    private String objectNameOf(String storageKey) {
+        return storageKeyResolver.locate(storageKey).objectName();
+    }
+
+    private void removeQuietly(String objectName) {
+        try {
+            minioClient.removeObject(
+                    RemoveObjectArgs.builder()
+                            .bucket(bucketOf(objectName))
+                            .object(objectNameOf(objectName))
+                            .build()
+            );
+        } catch (Exception exception) {
+            log.warn("Failed to remove temporary object: {}, Error: {}", objectName, exception.getMessage());
+        }
+    }
+
+    @Override
+    public void storeFile(String objectName, InputStream inputStream, long size, String contentType) {
+        try {
+            minioClient.putObject(
+                    PutObjectArgs.builder()
+                            .bucket(bucketOf(objectName))
+                            .object(objectNameOf(objectName))
+                            .stream(inputStream, size, -1)
+                            .contentType(contentType)
+                            .build()
+            );
         } catch (Exception exception) {
-            log.error("Failed to upload file to MinIO. File: {}, Error: {}", objectName, exception.getMessage(), exception);
+            log.error("Failed to store object: {}, Error: {}", objectName, exception.getMessage(), exception);
             throw new BiteRateException("MinIO upload failed: " + exception.getMessage(), exception);
         }
+    }
 
-        return objectName;
+    @Override
+    public Optional<Long> getFileSize(String objectName) {
+        try {
+            StatObjectResponse stat = minioClient.statObject(
+                    StatObjectArgs.builder()
+                            .bucket(bucketOf(objectName))
+                            .object(objectNameOf(objectName))
+                            .build()
+            );
+            return Optional.of(stat.size());
+        } catch (ErrorResponseException exception) {
+            if ("NoSuchKey".equals(exception.errorResponse().code())) {
+                return Optional.empty();
+            }
+            throw new BiteRateException("MinIO stat failed", exception);
+        } catch (Exception exception) {
+            throw new BiteRateException("MinIO stat failed", exception);
+        }
     }
 
     @Override
@@ -100,8 +372,27 @@ public class MinioStorageService implements MinioService {
         try {
             return minioClient.getObject(
                     GetObjectArgs.builder()
-                            .bucket(minioProperties.getBucket())
-                            .object(objectName)
+                            .bucket(bucketOf(objectName))
+                            .object(objectNameOf(objectName))
+                            .build()
+            );
+        } catch (Exception exception) {
+            throw new BiteRateException("MinIO download failed", exception);
+        }
+    }
+
+    /**
+     * Downloads {@code length} bytes of the object starting at {@code offset}.
+     */
+    @Override
+    public InputStream downloadFile(String objectName, long offset, long length) {
+        try {
+            return minioClient.getObject(
+                    GetObjectArgs.builder()
+                            .bucket(bucketOf(objectName))
+                            .object(objectNameOf(objectName))
+                            .offset(offset)
+                            .length(length)
                             .build()
             );
         } catch (Exception exception) {
@@ -115,8 +406,8 @@ public class MinioStorageService implements MinioService {
             minioClient.removeObject(
                     RemoveObjectArgs
                             .builder()
-                            .bucket(minioProperties.getBucket()) // Request to remove the object from the specified bucket
-                            .object(objectName)
+                            .bucket(bucketOf(objectName))
+                            .object(objectNameOf(objectName))
                             .build()
             );
         } catch (Exception exception) {
@@ -124,5 +415,36 @@ public class MinioStorageService implements MinioService {
         }
     }
 
+    /**
+     * Removes every object whose name starts with {@code prefix}.
+     */
+    @Override
+    public void deleteFiles(String prefix) {
+        StorageKeyResolver.ObjectLocation location = storageKeyResolver.locate(prefix);
+        try {
+            List<DeleteObject> objects = new ArrayList<>();
+            for (Result<Item> result : minioClient.listObjects(
+                    ListObjectsArgs.builder()
+                            .bucket(location.bucket())
+                            .prefix(location.objectName())
+                            .recursive(true)
+                            .build())) {
+                objects.add(new DeleteObject(result.get().objectName()));
+            }
+            if (objects.isEmpty()) {
+                return;
+            }
 
+            for (Result<DeleteError> result : minioClient.removeObjects(
+                    RemoveObjectsArgs.builder()
+                            .bucket(location.bucket())
+                            .objects(objects)
+                            .build())) {
+                DeleteError error = result.get();
+                log.warn("Failed to remove object: {}, Error: {}", error.objectName(), error.message());
+            }
+        } catch (Exception exception) {
+            throw new BiteRateException("MinIO deletion failed", exception);
+        }
+    }
 }
@@ -0,0 +1,24 @@
+package dev.amirgol.biterate.service;
+
+import java.time.Instant;
+
+/**
+ * Names objects within a bucket. Exactly one layout is active, selected with {@code minio.layout.strategy}; keys
+ * written under another layout stay readable because storage keys are persisted verbatim.
+ */
+public interface ObjectKeyLayout {
+    String objectName(String contentHash, String fileExtension, Instant storedAt);
+
+    /**
+     * @return whether {@code objectName} follows this layout, which tells the key migration what to rewrite
+     */
+    boolean matches(String objectName);
+
+    /**
+     * @return the prefix shared by the partition of an object name this layout {@link #matches}, e.g. for lifecycle
+     * rules or bulk deletes
+     * @throws IllegalArgumentException if the layout does not match {@code objectName}, whose leading characters
+     *                                  would otherwise pass for a partition of unrelated objects
+     */
+    String partitionOf(String objectName);
+}
@@ -0,0 +1,9 @@
+package dev.amirgol.biterate.service;
+
+import dev.amirgol.biterate.domain.dto.StagedObject;
+
+public interface PhotoBlobService {
+    String store(StagedObject stagedObject);
+
+    void release(String contentHash);
+}
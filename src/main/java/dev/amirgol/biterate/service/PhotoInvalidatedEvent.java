@@ -0,0 +1,22 @@
+package dev.amirgol.biterate.service;
+
+/**
+ * Published whenever a photo's metadata changed or the photo was deleted; the local metadata cache evicts it.
+ * <p>
+ * This is also the hook for keeping several application nodes consistent: a listener can forward the event to a
+ * broker, and the receiving nodes republish it locally with {@code remote} set, where
+ * {@link CachingPhotoService#onPhotoInvalidated(PhotoInvalidatedEvent)} evicts the photo. Forwarders must skip
+ * remote events, or every node would send each invalidation back to the others endlessly.
+ * </p>
+ *
+ * @param remote whether the change happened on another node and was received from the broker
+ */
+public record PhotoInvalidatedEvent(String photoId, boolean remote) {
+
+    /**
+     * An invalidation caused on this node.
+     */
+    public PhotoInvalidatedEvent(String photoId) {
+        this(photoId, false);
+    }
+}
@@ -0,0 +1,24 @@
+package dev.amirgol.biterate.service;
+
+import dev.amirgol.biterate.domain.dto.BatchUploadItem;
+import dev.amirgol.biterate.domain.entites.Photo;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.util.List;
+import java.util.Optional;
+
+public interface PhotoService {
+    Photo upload(MultipartFile file);
+
+    List<BatchUploadItem> uploadAll(List<MultipartFile> files);
+
+    Photo completeUpload(String uploadId, String originalFilename);
+
+    Optional<Photo> findById(String id);
+
+    Page<Photo> findByRestaurantId(String restaurantId, Pageable pageable);
+
+    boolean delete(String id);
+}
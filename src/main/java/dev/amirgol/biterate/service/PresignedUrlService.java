@@ -0,0 +1,9 @@
+package dev.amirgol.biterate.service;
+
+import dev.amirgol.biterate.domain.dto.PresignedUpload;
+
+public interface PresignedUrlService {
+    PresignedUpload createUpload();
+
+    String downloadUrl(String storageKey, String attachmentFilename);
+}
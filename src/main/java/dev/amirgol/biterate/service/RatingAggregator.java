@@ -0,0 +1,337 @@
+package dev.amirgol.biterate.service;
+
+import co.elastic.clients.elasticsearch.ElasticsearchClient;
+import co.elastic.clients.elasticsearch._types.FieldValue;
+import co.elastic.clients.elasticsearch._types.aggregations.Aggregate;
+import co.elastic.clients.elasticsearch._types.aggregations.Aggregation;
+import co.elastic.clients.elasticsearch._types.aggregations.CompositeAggregate;
+import co.elastic.clients.elasticsearch._types.aggregations.CompositeAggregationSource;
+import co.elastic.clients.elasticsearch._types.aggregations.CompositeBucket;
+import co.elastic.clients.elasticsearch._types.aggregations.LongTermsBucket;
+import co.elastic.clients.elasticsearch._types.aggregations.StringTermsBucket;
+import co.elastic.clients.elasticsearch._types.query_dsl.Query;
+import co.elastic.clients.elasticsearch.core.BulkResponse;
+import co.elastic.clients.elasticsearch.core.bulk.BulkOperation;
+import co.elastic.clients.elasticsearch.core.bulk.BulkResponseItem;
+import co.elastic.clients.json.JsonData;
+import dev.amirgol.biterate.config.RatingProperties;
+import dev.amirgol.biterate.domain.entites.RatingHistogram;
+import dev.amirgol.biterate.domain.entites.Restaurant;
+import dev.amirgol.biterate.domain.entites.Review;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.elasticsearch.core.ElasticsearchOperations;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Maintains each restaurant's rating sum, count and histogram, and the {@code averageRating} derived from them.
+ * <p>
+ * The aggregates are recomputed from the {@code reviews} index instead of being adjusted by deltas, so writing them
+ * is idempotent: a review replayed from the journal, a retried request or a flush on another node can at most repeat
+ * a write with the same values, never count a rating twice. A created review only marks its restaurant dirty. Once
+ * the first mark is {@code settleDelay} old, longer than the reviews index takes to refresh, the flush aggregates
+ * the ratings of up to 500 dirty restaurants with one search and writes them with one bulk request. A flush never
+ * lowers a stored count, so a write computed from an older view cannot undo a newer one.
+ * </p>
+ * <p>
+ * A periodic reconcile pass recomputes every restaurant that has rated reviews. It backfills restaurants whose
+ * reviews predate the aggregates, repairs counts left by lost dirty marks, e.g. after a crash, and is the only
+ * writer allowed to lower a count.
+ * </p>
+ */
+@Component
+@Slf4j
+public class RatingAggregator {
+    private static final int MAX_RESTAURANTS_PER_BATCH = 500;
+    private static final String RESTAURANTS = "restaurants";
+    private static final String SUM = "sum";
+    private static final String RATINGS = "ratings";
+    private static final String WRITE_SCRIPT = """
+            def s = ctx._source;
+            if (s.ratingCount == params.count && s.ratingSum == params.sum) { ctx.op = 'noop'; return; }
+            if (!params.force && s.ratingCount != null && s.ratingCount > params.count) { ctx.op = 'noop'; return; }
+            s.ratingHistogram = params.histogram;
+            s.ratingSum = params.sum;
+            s.ratingCount = params.count;
+            s.averageRating = params.count > 0 ? (double) params.sum / params.count : null;
+            """;
+
+    private final ElasticsearchClient elasticsearchClient;
+    private final RatingProperties properties;
+    private final ApplicationEventPublisher eventPublisher;
+    private final String reviewIndex;
+    private final String restaurantIndex;
+    private final Map<String, Mark> dirty = new ConcurrentHashMap<>();
+    private final Counter recordedReviews;
+    private final Counter writtenAggregates;
+
+    public RatingAggregator(ElasticsearchClient elasticsearchClient,
+                            ElasticsearchOperations elasticsearchOperations,
+                            RatingProperties properties,
+                            ApplicationEventPublisher eventPublisher,
+                            MeterRegistry meterRegistry) {
+        this.elasticsearchClient = elasticsearchClient;
+        this.properties = properties;
+        this.eventPublisher = eventPublisher;
+        this.reviewIndex = elasticsearchOperations.getIndexCoordinatesFor(Review.class).getIndexName();
+        this.restaurantIndex = elasticsearchOperations.getIndexCoordinatesFor(Restaurant.class).getIndexName();
+
+        Gauge.builder("ratings.pending.restaurants", dirty, Map::size)
+                .description("Restaurants with new reviews whose aggregates are not yet recomputed")
+                .register(meterRegistry);
+        this.recordedReviews = Counter.builder("ratings.recorded")
+                .description("Created reviews whose restaurant was marked for recomputation")
+                .register(meterRegistry);
+        this.writtenAggregates = Counter.builder("ratings.flushed")
+                .description("Restaurant aggregates that changed when recomputed; lower than ratings.recorded when coalescing")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Marks the restaurant of a newly created review for recomputation.
+     */
+    public void record(String restaurantId) {
+        mark(restaurantId);
+        recordedReviews.increment();
+    }
+
+    @Scheduled(fixedDelayString = "${biterate.ratings.flush-interval:PT1S}")
+    public void flush() {
+        flush(System.nanoTime() - properties.getSettleDelay().toNanos());
+    }
+
+    /**
+     * Recomputes the aggregates of every restaurant with rated reviews, a page of restaurants at a time.
+     */
+    @Scheduled(fixedDelayString = "${biterate.ratings.reconcile-interval:PT6H}",
+            initialDelayString = "${biterate.ratings.reconcile-initial-delay:PT1M}")
+    public void reconcile() {
+        long started = System.nanoTime();
+        int restaurants = 0;
+        int changed = 0;
+        Map<String, FieldValue> after = null;
+        try {
+            do {
+                Map<String, FieldValue> afterKey = after;
+                CompositeAggregate page = aggregate(ratedReviews(null), Aggregation.of(a -> a
+                        .composite(c -> {
+                            c.size(MAX_RESTAURANTS_PER_BATCH)
+                                    .sources(List.of(Map.of(RESTAURANTS, CompositeAggregationSource.of(s -> s
+                                            .terms(t -> t.field("restaurantId"))))));
+                            if (afterKey != null) {
+                                c.after(afterKey);
+                            }
+                            return c;
+                        })
+                        .aggregations(ratingAggregations()))).composite();
+                Map<String, RatingTotals> totals = new LinkedHashMap<>();
+                for (CompositeBucket bucket : page.buckets().array()) {
+                    totals.put(bucket.key().get(RESTAURANTS).stringValue(), RatingTotals.of(bucket.aggregations()));
+                }
+                restaurants += totals.size();
+                changed += write(totals, true);
+                after = totals.isEmpty() ? null : page.afterKey();
+            } while (after != null && !after.isEmpty());
+        } catch (RuntimeException exception) {
+            log.warn("Rating reconcile stopped after {} restaurants, resuming on the next pass: {}", restaurants,
+                    exception.getMessage());
+            return;
+        }
+        log.info("Reconciled rating aggregates of {} restaurants, {} changed, in {} ms", restaurants, changed,
+                (System.nanoTime() - started) / 1_000_000);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (dirty.isEmpty()) {
+            return;
+        }
+        try {
+            // Makes the latest reviews visible so marks that have not settled yet can be flushed as well
+            elasticsearchClient.indices().refresh(r -> r.index(reviewIndex));
+            flush(System.nanoTime());
+        } catch (IOException | RuntimeException exception) {
+            log.warn("Failed to flush {} rating aggregates on shutdown, leaving them to the next reconcile: {}",
+                    dirty.size(), exception.getMessage());
+        }
+    }
+
+    private synchronized void flush(long settledBefore) {
+        List<String> batch = new ArrayList<>();
+        for (Map.Entry<String, Mark> entry : dirty.entrySet()) {
+            Mark mark = entry.getValue();
+            if (mark.first() - settledBefore > 0 || !dirty.remove(entry.getKey(), mark)) {
+                continue;
+            }
+            if (mark.last() - settledBefore > 0) {
+                // Reviews marked since may not be visible yet, so the restaurant is recomputed again once they are
+                dirty.merge(entry.getKey(), new Mark(mark.last(), mark.last()), Mark::merge);
+            }
+            batch.add(entry.getKey());
+            if (batch.size() == MAX_RESTAURANTS_PER_BATCH) {
+                recompute(batch);
+                batch = new ArrayList<>();
+            }
+        }
+        if (!batch.isEmpty()) {
+            recompute(batch);
+        }
+    }
+
+    private void recompute(List<String> restaurantIds) {
+        try {
+            List<StringTermsBucket> buckets = aggregate(ratedReviews(restaurantIds), Aggregation.of(a -> a
+                    .terms(t -> t.field("restaurantId").size(restaurantIds.size()))
+                    .aggregations(ratingAggregations())))
+                    .sterms().buckets().array();
+            Map<String, RatingTotals> totals = new LinkedHashMap<>();
+            restaurantIds.forEach(restaurantId -> totals.put(restaurantId, RatingTotals.EMPTY));
+            for (StringTermsBucket bucket : buckets) {
+                totals.put(bucket.key().stringValue(), RatingTotals.of(bucket.aggregations()));
+            }
+            write(totals, false);
+        } catch (RuntimeException exception) {
+            log.warn("Failed to recompute rating aggregates, retrying on next flush: {}", exception.getMessage());
+            restaurantIds.forEach(this::mark);
+        }
+    }
+
+    /**
+     * @return the number of restaurants whose stored aggregates changed
+     */
+    private int write(Map<String, RatingTotals> totals, boolean force) {
+        if (totals.isEmpty()) {
+            return 0;
+        }
+        List<BulkOperation> operations = new ArrayList<>(totals.size());
+        totals.forEach((restaurantId, restaurantTotals) -> operations.add(BulkOperation.of(op -> op.update(u -> u
+                .index(restaurantIndex)
+                .id(restaurantId)
+                .retryOnConflict(properties.getRetryOnConflict())
+                .action(action -> action.script(s -> s
+                        .source(WRITE_SCRIPT)
+                        .lang("painless")
+                        .params(restaurantTotals.toParams(force))))))));
+        BulkResponse response;
+        try {
+            response = elasticsearchClient.bulk(b -> b.operations(operations));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to write rating aggregates", e);
+        }
+
+        List<String> changed = new ArrayList<>();
+        for (BulkResponseItem item : response.items()) {
+            if (item.error() == null) {
+                if ("updated".equals(item.result())) {
+                    changed.add(item.id());
+                }
+            } else if (item.status() == 404) {
+                log.debug("Dropping rating aggregates for missing restaurant {}", item.id());
+            } else {
+                log.warn("Failed to write rating aggregates of restaurant {}, retrying on next flush: {}", item.id(),
+                        item.error().reason());
+                mark(item.id());
+            }
+        }
+        if (force) {
+            // A review created while the pass ran may be missing from what it wrote, so those are recomputed again
+            changed.forEach(this::mark);
+        }
+        writtenAggregates.increment(changed.size());
+        if (!changed.isEmpty()) {
+            eventPublisher.publishEvent(new RestaurantsChangedEvent(changed));
+        }
+        return changed.size();
+    }
+
+    private void mark(String restaurantId) {
+        long now = System.nanoTime();
+        dirty.merge(restaurantId, new Mark(now, now), Mark::merge);
+    }
+
+    private Aggregate aggregate(Query query, Aggregation aggregation) {
+        try {
+            return elasticsearchClient.search(s -> s
+                    .index(reviewIndex)
+                    .size(0)
+                    .trackTotalHits(t -> t.enabled(false))
+                    .query(query)
+                    .aggregations(RESTAURANTS, aggregation), Void.class).aggregations().get(RESTAURANTS);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Rating aggregation on " + reviewIndex + " failed", e);
+        }
+    }
+
+    private static Map<String, Aggregation> ratingAggregations() {
+        return Map.of(
+                SUM, Aggregation.of(a -> a.sum(s -> s.field("rating"))),
+                RATINGS, Aggregation.of(a -> a.terms(t -> t.field("rating").size(RatingHistogram.BUCKETS.size()))));
+    }
+
+    /**
+     * Reviews without a rating (migrated ones only) are left out, as in the analytics.
+     */
+    private static Query ratedReviews(List<String> restaurantIds) {
+        List<Query> filters = new ArrayList<>(2);
+        filters.add(Query.of(q -> q.range(r -> r.number(n -> n.field("rating").gte(1.0)))));
+        if (restaurantIds != null) {
+            filters.add(Query.of(q -> q.terms(t -> t
+                    .field("restaurantId")
+                    .terms(v -> v.value(restaurantIds.stream().map(FieldValue::of).toList())))));
+        }
+        return Query.of(q -> q.bool(b -> b.filter(filters)));
+    }
+
+    /**
+     * When a restaurant was first and last marked since its previous recomputation, in {@link System#nanoTime()}.
+     */
+    private record Mark(long first, long last) {
+
+        Mark merge(Mark other) {
+            return new Mark(Math.min(first, other.first), Math.max(last, other.last));
+        }
+    }
+
+    private record RatingTotals(long sum, long count, long[] histogram) {
+        static final RatingTotals EMPTY = new RatingTotals(0, 0, new long[RatingHistogram.BUCKETS.size()]);
+
+        static RatingTotals of(Map<String, Aggregate> aggregations) {
+            long[] histogram = new long[RatingHistogram.BUCKETS.size()];
+            long count = 0;
+            for (LongTermsBucket bucket : aggregations.get(RATINGS).lterms().buckets().array()) {
+                int rating = (int) bucket.key();
+                if (rating >= 1 && rating <= histogram.length) {
+                    histogram[rating - 1] = bucket.docCount();
+                    count += bucket.docCount();
+                }
+            }
+            return new RatingTotals((long) aggregations.get(SUM).sum().value(), count, histogram);
+        }
+
+        Map<String, JsonData> toParams(boolean force) {
+            Map<String, Long> buckets = new HashMap<>();
+            for (int i = 0; i < histogram.length; i++) {
+                buckets.put(RatingHistogram.BUCKETS.get(i), histogram[i]);
+            }
+            return Map.of(
+                    "sum", JsonData.of(sum),
+                    "count", JsonData.of(count),
+                    "histogram", JsonData.of(buckets),
+                    "force", JsonData.of(force));
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package dev.amirgol.biterate.service;
+
+import dev.amirgol.biterate.domain.dto.Rendition;
+import dev.amirgol.biterate.domain.entites.Photo;
+import dev.amirgol.biterate.domain.entites.PhotoRendition;
+
+import java.util.List;
+
+public interface RenditionService {
+    Rendition render(Photo photo, Integer width, Integer height, String format);
+
+    List<PhotoRendition> renderStandard(Photo photo);
+
+    /**
+     * Renditions are stored next to their original so that all of them can be removed with one prefix delete.
+     */
+    static String renditionPrefix(String storageKey) {
+        return storageKey + ".renditions/";
+    }
+}
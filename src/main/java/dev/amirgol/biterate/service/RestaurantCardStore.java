@@ -0,0 +1,332 @@
+package dev.amirgol.biterate.service;
+
+import dev.amirgol.biterate.domain.dto.RestaurantCard;
+import dev.amirgol.biterate.domain.entites.MinuteRange;
+import dev.amirgol.biterate.domain.entites.OperatingHours;
+import dev.amirgol.biterate.domain.entites.Restaurant;
+import dev.amirgol.biterate.domain.enums.CuisineType;
+import org.springframework.data.elasticsearch.core.geo.GeoPoint;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Off-heap store of {@link RestaurantCard} fields, so list responses are built without reading or holding
+ * {@link Restaurant} entities.
+ * <p>
+ * Each restaurant occupies one fixed-size slot of a direct buffer: string references, rating, coordinates, the
+ * cuisine ordinal, the time zone of its hours and up to {@link #INLINE_RANGES} opening ranges as minute-of-week
+ * shorts. Names, cities, cover photo ids and zone ids are dictionary-encoded into a second direct buffer, so repeated values such as city names are stored
+ * once. The only per-restaurant objects on the heap are the id keys of the slot map. Replaced strings stay in the
+ * dictionary until the store is rebuilt. Reads share a lock; updates take it exclusively.
+ * </p>
+ */
+public class RestaurantCardStore {
+    private static final CuisineType[] CUISINES = CuisineType.values();
+    private static final int NO_STRING = -1;
+    private static final byte NO_CUISINE = -1;
+    private static final byte NO_HOURS = -1;
+    private static final byte OVERFLOW_HOURS = -2;
+    static final int INLINE_RANGES = 16;
+
+    private static final int NAME = 0;
+    private static final int CITY = 4;
+    private static final int COVER_PHOTO = 8;
+    private static final int RATING = 12;
+    private static final int LATITUDE = 16;
+    private static final int LONGITUDE = 24;
+    private static final int CUISINE = 32;
+    private static final int RANGE_COUNT = 33;
+    private static final int ZONE = 36;
+    private static final int RANGES = 40;
+    private static final int SLOT_BYTES = RANGES + INLINE_RANGES * 2 * Short.BYTES;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<String, Integer> slotsById = new HashMap<>();
+    private final Map<Integer, int[]> overflowRanges = new HashMap<>();
+    private final List<Integer> freeSlots = new ArrayList<>();
+    private final StringDictionary strings;
+    private ByteBuffer slots;
+    private int slotCount;
+
+    public RestaurantCardStore(int initialCapacity) {
+        int capacity = Math.max(16, initialCapacity);
+        this.slots = ByteBuffer.allocateDirect(capacity * SLOT_BYTES);
+        this.strings = new StringDictionary(capacity);
+    }
+
+    public void put(String id, Restaurant restaurant) {
+        lock.writeLock().lock();
+        try {
+            Integer slot = slotsById.get(id);
+            if (slot == null) {
+                slot = freeSlots.isEmpty() ? allocateSlot() : freeSlots.remove(freeSlots.size() - 1);
+                slotsById.put(id, slot);
+            }
+            int base = slot * SLOT_BYTES;
+            GeoPoint location = restaurant.getGeoLocation();
+            slots.putInt(base + NAME, strings.encode(restaurant.getName()));
+            slots.putInt(base + CITY, strings.encode(restaurant.getAddress() != null ? restaurant.getAddress().getCity() : null));
+            slots.putInt(base + COVER_PHOTO, strings.encode(restaurant.getCoverPhotoId()));
+            slots.putFloat(base + RATING, restaurant.getAverageRating() != null ? restaurant.getAverageRating() : Float.NaN);
+            slots.putDouble(base + LATITUDE, location != null ? location.getLat() : 0);
+            slots.putDouble(base + LONGITUDE, location != null ? location.getLon() : 0);
+            slots.put(base + CUISINE, restaurant.getCuisineType() != null ? (byte) restaurant.getCuisineType().ordinal() : NO_CUISINE);
+            slots.putInt(base + ZONE, strings.encode(restaurant.getOperatingHours() != null
+                    ? restaurant.getOperatingHours().getTimeZone()
+                    : null));
+            putRanges(slot, base, restaurant.getOperatingHours());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(String id) {
+        lock.writeLock().lock();
+        try {
+            Integer slot = slotsById.remove(id);
+            if (slot != null) {
+                overflowRanges.remove(slot);
+                freeSlots.add(slot);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return slotsById.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Off-heap bytes held by the slots and the string dictionary.
+     */
+    public long offHeapBytes() {
+        lock.readLock().lock();
+        try {
+            return (long) slots.capacity() + strings.capacity();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Builds the cards of the given restaurants in the given order, skipping ids the store does not hold.
+     * {@code openNow} is decided on each restaurant's own clock at {@code now}.
+     */
+    public List<RestaurantCard> cards(List<String> ids, double[] distancesKm, Instant now) {
+        List<RestaurantCard> cards = new ArrayList<>(ids.size());
+        Map<Integer, Integer> minuteOfWeekByZone = new HashMap<>();
+        lock.readLock().lock();
+        try {
+            for (int i = 0; i < ids.size(); i++) {
+                Integer slot = slotsById.get(ids.get(i));
+                if (slot != null) {
+                    int zone = slots.getInt(slot * SLOT_BYTES + ZONE);
+                    int minuteOfWeek = minuteOfWeekByZone.computeIfAbsent(zone, code -> OperatingHours.minuteOfWeek(
+                            LocalDateTime.ofInstant(now, OperatingHours.zoneOf(strings.decode(code)))));
+                    cards.add(card(ids.get(i), slot, distancesKm[i], minuteOfWeek));
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return cards;
+    }
+
+    private RestaurantCard card(String id, int slot, double distanceKm, int minuteOfWeekNow) {
+        int base = slot * SLOT_BYTES;
+        byte cuisine = slots.get(base + CUISINE);
+        float rating = slots.getFloat(base + RATING);
+        return RestaurantCard.builder()
+                .id(id)
+                .name(strings.decode(slots.getInt(base + NAME)))
+                .cuisineType(cuisine != NO_CUISINE ? CUISINES[cuisine] : null)
+                .averageRating(Float.isNaN(rating) ? null : rating)
+                .latitude(slots.getDouble(base + LATITUDE))
+                .longitude(slots.getDouble(base + LONGITUDE))
+                .city(strings.decode(slots.getInt(base + CITY)))
+                .coverPhotoId(strings.decode(slots.getInt(base + COVER_PHOTO)))
+                .distanceKm(distanceKm)
+                .openNow(isOpenAt(slot, base, minuteOfWeekNow))
+                .build();
+    }
+
+    private void putRanges(int slot, int base, OperatingHours hours) {
+        overflowRanges.remove(slot);
+        List<MinuteRange> ranges = hours != null ? hours.getOpenRanges() : null;
+        if (ranges == null) {
+            slots.put(base + RANGE_COUNT, NO_HOURS);
+            return;
+        }
+        if (ranges.size() > INLINE_RANGES) {
+            int[] bounds = new int[ranges.size() * 2];
+            for (int i = 0; i < ranges.size(); i++) {
+                bounds[2 * i] = ranges.get(i).getGte();
+                bounds[2 * i + 1] = ranges.get(i).getLt();
+            }
+            overflowRanges.put(slot, bounds);
+            slots.put(base + RANGE_COUNT, OVERFLOW_HOURS);
+            return;
+        }
+        slots.put(base + RANGE_COUNT, (byte) ranges.size());
+        for (int i = 0; i < ranges.size(); i++) {
+            // Minutes of the week fit in a short
+            slots.putShort(base + RANGES + 4 * i, (short) ranges.get(i).getGte());
+            slots.putShort(base + RANGES + 4 * i + 2, (short) ranges.get(i).getLt());
+        }
+    }
+
+    /**
+     * Linear scan; there are rarely more than a couple of ranges per day.
+     */
+    private Boolean isOpenAt(int slot, int base, int minuteOfWeek) {
+        byte count = slots.get(base + RANGE_COUNT);
+        if (count == NO_HOURS) {
+            return null;
+        }
+        if (count == OVERFLOW_HOURS) {
+            int[] bounds = overflowRanges.get(slot);
+            for (int i = 0; i < bounds.length; i += 2) {
+                if (minuteOfWeek >= bounds[i] && minuteOfWeek < bounds[i + 1]) {
+                    return true;
+                }
+            }
+            return false;
+        }
+        for (int i = 0; i < count; i++) {
+            int offset = base + RANGES + 4 * i;
+            if (minuteOfWeek >= slots.getShort(offset) && minuteOfWeek < slots.getShort(offset + 2)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private int allocateSlot() {
+        if ((slotCount + 1) * SLOT_BYTES > slots.capacity()) {
+            slots = grow(slots, slots.capacity() + (slots.capacity() >> 1));
+        }
+        return slotCount++;
+    }
+
+    private static ByteBuffer grow(ByteBuffer buffer, int capacity) {
+        ByteBuffer grown = ByteBuffer.allocateDirect(capacity);
+        grown.put(0, buffer, 0, buffer.capacity());
+        return grown;
+    }
+
+    /**
+     * Append-only UTF-8 dictionary in a direct buffer. Codes are looked up by content through an open-addressing
+     * table of codes, so encoding does not keep the strings themselves on the heap.
+     */
+    private static class StringDictionary {
+        private ByteBuffer bytes;
+        private int[] offsets;
+        private int[] lengths;
+        private int[] hashes;
+        private int[] table; // code + 1, 0 when empty
+        private int count;
+        private int size;
+
+        StringDictionary(int expectedStrings) {
+            this.bytes = ByteBuffer.allocateDirect(Math.max(1024, expectedStrings * 16));
+            this.offsets = new int[expectedStrings];
+            this.lengths = new int[expectedStrings];
+            this.hashes = new int[expectedStrings];
+            this.table = new int[Integer.highestOneBit(Math.max(16, expectedStrings * 2)) << 1];
+        }
+
+        int capacity() {
+            return bytes.capacity();
+        }
+
+        int encode(String value) {
+            if (value == null) {
+                return NO_STRING;
+            }
+            byte[] encoded = value.getBytes(StandardCharsets.UTF_8);
+            int hash = Arrays.hashCode(encoded);
+            int mask = table.length - 1;
+            for (int i = hash & mask; ; i = (i + 1) & mask) {
+                int entry = table[i];
+                if (entry == 0) {
+                    int code = append(encoded, hash);
+                    table[i] = code + 1;
+                    if (count * 2 > table.length) {
+                        rehash();
+                    }
+                    return code;
+                }
+                if (hashes[entry - 1] == hash && matches(entry - 1, encoded)) {
+                    return entry - 1;
+                }
+            }
+        }
+
+        String decode(int code) {
+            if (code == NO_STRING) {
+                return null;
+            }
+            byte[] value = new byte[lengths[code]];
+            bytes.get(offsets[code], value);
+            return new String(value, StandardCharsets.UTF_8);
+        }
+
+        private boolean matches(int code, byte[] encoded) {
+            if (lengths[code] != encoded.length) {
+                return false;
+            }
+            int offset = offsets[code];
+            for (int i = 0; i < encoded.length; i++) {
+                if (bytes.get(offset + i) != encoded[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private int append(byte[] encoded, int hash) {
+            if (count == offsets.length) {
+                int capacity = Math.max(16, count + (count >> 1));
+                offsets = Arrays.copyOf(offsets, capacity);
+                lengths = Arrays.copyOf(lengths, capacity);
+                hashes = Arrays.copyOf(hashes, capacity);
+            }
+            if (size + encoded.length > bytes.capacity()) {
+                bytes = grow(bytes, Math.max(size + encoded.length, bytes.capacity() + (bytes.capacity() >> 1)));
+            }
+            bytes.put(size, encoded);
+            offsets[count] = size;
+            lengths[count] = encoded.length;
+            hashes[count] = hash;
+            size += encoded.length;
+            return count++;
+        }
+
+        private void rehash() {
+            table = new int[table.length * 2];
+            int mask = table.length - 1;
+            for (int code = 0; code < count; code++) {
+                int i = hashes[code] & mask;
+                while (table[i] != 0) {
+                    i = (i + 1) & mask;
+                }
+                table[i] = code + 1;
+            }
+        }
+    }
+}
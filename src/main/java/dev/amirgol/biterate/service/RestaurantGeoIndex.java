@@ -0,0 +1,291 @@
+package dev.amirgol.biterate.service;
+
+import dev.amirgol.biterate.domain.dto.NearbySearchRequest;
+import dev.amirgol.biterate.domain.enums.CuisineType;
+import dev.amirgol.biterate.repository.SearchCursor;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Grid index over the restaurant fields nearby search filters and sorts on.
+ * <p>
+ * Restaurants live in slots of parallel primitive arrays, so a million of them take a few tens of megabytes and
+ * scanning a cell touches no per-restaurant objects. Each grid cell holds the slots inside it; a query visits only
+ * the cells overlapping its bounding box and keeps the best {@code size} hits in a bounded heap. Distances use the
+ * same planar approximation as the Elasticsearch {@code plane} geo distance, so both paths agree on which
+ * restaurants are inside a radius and on their order, and page cursors work across them. Reads share a lock;
+ * updates take it exclusively.
+ * </p>
+ */
+public class RestaurantGeoIndex {
+    private static final double EARTH_MEAN_RADIUS_KM = 6371.0087714;
+    private static final double KM_PER_DEGREE = EARTH_MEAN_RADIUS_KM * Math.PI / 180;
+    private static final byte NO_CUISINE = -1;
+    private static final Comparator<Hit> NEAREST_FIRST =
+            Comparator.comparingDouble(Hit::distanceKm).thenComparing(Hit::id);
+
+    private final double cellDegrees;
+    private final int rows;
+    private final int columns;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<String, Integer> slotsById = new HashMap<>();
+    private final Map<Integer, IntList> cells = new HashMap<>();
+    private final IntList freeSlots = new IntList();
+
+    private String[] ids;
+    private double[] latitudes;
+    private double[] longitudes;
+    private byte[] cuisines;
+    private float[] ratings;
+    private int[] cellOfSlot;
+    private int slotCount;
+
+    public RestaurantGeoIndex(double cellDegrees, int initialCapacity) {
+        this.cellDegrees = cellDegrees;
+        this.rows = (int) Math.ceil(180 / cellDegrees) + 1;
+        this.columns = (int) Math.ceil(360 / cellDegrees) + 1;
+        int capacity = Math.max(16, initialCapacity);
+        this.ids = new String[capacity];
+        this.latitudes = new double[capacity];
+        this.longitudes = new double[capacity];
+        this.cuisines = new byte[capacity];
+        this.ratings = new float[capacity];
+        this.cellOfSlot = new int[capacity];
+    }
+
+    /**
+     * Adds the restaurant or moves it to its new position and values.
+     *
+     * @param averageRating {@code null} when the restaurant has not been rated
+     */
+    public void put(String id, double latitude, double longitude, CuisineType cuisineType, Float averageRating) {
+        lock.writeLock().lock();
+        try {
+            Integer existing = slotsById.get(id);
+            int slot;
+            if (existing != null) {
+                slot = existing;
+                removeFromCell(slot);
+            } else {
+                slot = freeSlots.isEmpty() ? allocateSlot() : freeSlots.removeLast();
+                slotsById.put(id, slot);
+                ids[slot] = id;
+            }
+            latitudes[slot] = latitude;
+            longitudes[slot] = longitude;
+            cuisines[slot] = cuisineType != null ? (byte) cuisineType.ordinal() : NO_CUISINE;
+            ratings[slot] = averageRating != null ? averageRating : Float.NaN;
+            cellOfSlot[slot] = cellOf(row(latitude), column(longitude));
+            cells.computeIfAbsent(cellOfSlot[slot], cell -> new IntList()).add(slot);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(String id) {
+        lock.writeLock().lock();
+        try {
+            Integer slot = slotsById.remove(id);
+            if (slot == null) {
+                return;
+            }
+            removeFromCell(slot);
+            ids[slot] = null;
+            freeSlots.add(slot);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return slotsById.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Answers a validated nearby search request: the nearest {@code size} restaurants inside its radius or bounding
+     * box that pass its cuisine and rating filters, ordered by distance and then id, starting after {@code after}.
+     */
+    public List<Hit> search(NearbySearchRequest request, SearchCursor after) {
+        Query query = Query.of(request, after);
+        PriorityQueue<Hit> best = new PriorityQueue<>(query.size() + 1, NEAREST_FIRST.reversed());
+        lock.readLock().lock();
+        try {
+            for (int row = row(query.bottom()); row <= row(query.top()); row++) {
+                if (query.left() <= query.right()) {
+                    scan(row, column(query.left()), column(query.right()), query, best);
+                } else {
+                    // A bounding box crossing the antimeridian
+                    scan(row, column(query.left()), columns - 1, query, best);
+                    scan(row, 0, column(query.right()), query, best);
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        List<Hit> hits = new ArrayList<>(best);
+        hits.sort(NEAREST_FIRST);
+        return hits;
+    }
+
+    private void scan(int row, int fromColumn, int toColumn, Query query, PriorityQueue<Hit> best) {
+        for (int column = fromColumn; column <= toColumn; column++) {
+            IntList cell = cells.get(cellOf(row, column));
+            if (cell == null) {
+                continue;
+            }
+            for (int i = 0; i < cell.size; i++) {
+                int slot = cell.values[i];
+                if (query.cuisine() != NO_CUISINE && cuisines[slot] != query.cuisine()) {
+                    continue;
+                }
+                if (!Float.isNaN(query.minRating()) && !(ratings[slot] >= query.minRating())) {
+                    continue;
+                }
+                double latitude = latitudes[slot];
+                double longitude = longitudes[slot];
+                if (query.boundingBox() && !query.contains(latitude, longitude)) {
+                    continue;
+                }
+                double distanceKm = planeDistanceKm(query.latitude(), query.longitude(), latitude, longitude);
+                if (!query.boundingBox() && distanceKm > query.radiusKm()) {
+                    continue;
+                }
+                String id = ids[slot];
+                if (query.after() != null && !query.after().precedes(distanceKm, id)) {
+                    continue;
+                }
+                if (best.size() == query.size()) {
+                    if (NEAREST_FIRST.compare(new Hit(id, distanceKm), best.peek()) > 0) {
+                        continue;
+                    }
+                    best.poll();
+                }
+                best.add(new Hit(id, distanceKm));
+            }
+        }
+    }
+
+    static double planeDistanceKm(double latitude1, double longitude1, double latitude2, double longitude2) {
+        double x = Math.toRadians(longitude2 - longitude1) * Math.cos(Math.toRadians((latitude2 + latitude1) / 2.0));
+        double y = Math.toRadians(latitude2 - latitude1);
+        return Math.sqrt(x * x + y * y) * EARTH_MEAN_RADIUS_KM;
+    }
+
+    private int row(double latitude) {
+        return (int) Math.floor((latitude + 90) / cellDegrees);
+    }
+
+    private int column(double longitude) {
+        return (int) Math.floor((longitude + 180) / cellDegrees);
+    }
+
+    private int cellOf(int row, int column) {
+        return row * columns + column;
+    }
+
+    private void removeFromCell(int slot) {
+        IntList cell = cells.get(cellOfSlot[slot]);
+        cell.removeValue(slot);
+        if (cell.isEmpty()) {
+            cells.remove(cellOfSlot[slot]);
+        }
+    }
+
+    private int allocateSlot() {
+        if (slotCount == ids.length) {
+            int capacity = ids.length + (ids.length >> 1);
+            ids = Arrays.copyOf(ids, capacity);
+            latitudes = Arrays.copyOf(latitudes, capacity);
+            longitudes = Arrays.copyOf(longitudes, capacity);
+            cuisines = Arrays.copyOf(cuisines, capacity);
+            ratings = Arrays.copyOf(ratings, capacity);
+            cellOfSlot = Arrays.copyOf(cellOfSlot, capacity);
+        }
+        return slotCount++;
+    }
+
+    public record Hit(String id, double distanceKm) {
+    }
+
+    /**
+     * A request resolved to the box of cells to visit and the filters to apply.
+     */
+    private record Query(double latitude, double longitude, boolean boundingBox, double top, double bottom,
+                         double left, double right, double radiusKm, byte cuisine, float minRating,
+                         SearchCursor after, int size) {
+
+        static Query of(NearbySearchRequest request, SearchCursor after) {
+            byte cuisine = request.getCuisineType() != null ? (byte) request.getCuisineType().ordinal() : NO_CUISINE;
+            float minRating = request.getMinRating() != null ? request.getMinRating().floatValue() : Float.NaN;
+            double latitude = request.getLatitude();
+            double longitude = request.getLongitude();
+            if (request.hasBoundingBox()) {
+                return new Query(latitude, longitude, true, request.getTop(), request.getBottom(), request.getLeft(),
+                        request.getRight(), 0, cuisine, minRating, after, request.getSize());
+            }
+
+            double radiusKm = request.getRadiusKm();
+            double latitudeDelta = radiusKm / KM_PER_DEGREE;
+            double top = Math.min(90, latitude + latitudeDelta);
+            double bottom = Math.max(-90, latitude - latitudeDelta);
+            double widestLatitude = Math.max(Math.abs(top), Math.abs(bottom));
+            double longitudeDelta = widestLatitude >= 90 ? 360 : latitudeDelta / Math.cos(Math.toRadians(widestLatitude));
+            // Plane distances do not wrap around the antimeridian, so neither does the box around the radius
+            return new Query(latitude, longitude, false, top, bottom, Math.max(-180, longitude - longitudeDelta),
+                    Math.min(180, longitude + longitudeDelta), radiusKm, cuisine, minRating, after, request.getSize());
+        }
+
+        boolean contains(double latitude, double longitude) {
+            if (latitude > top || latitude < bottom) {
+                return false;
+            }
+            return left <= right ? longitude >= left && longitude <= right : longitude >= left || longitude <= right;
+        }
+    }
+
+    /**
+     * Growable list of slots without boxing; removal swaps in the last element since order within a cell does
+     * not matter.
+     */
+    private static class IntList {
+        int[] values = new int[4];
+        int size;
+
+        void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        void removeValue(int value) {
+            for (int i = 0; i < size; i++) {
+                if (values[i] == value) {
+                    values[i] = values[--size];
+                    return;
+                }
+            }
+        }
+
+        int removeLast() {
+            return values[--size];
+        }
+
+        boolean isEmpty() {
+            return size == 0;
+        }
+    }
+}
@@ -0,0 +1,210 @@
+package dev.amirgol.biterate.service;
+
+import dev.amirgol.biterate.config.GeoIndexProperties;
+import dev.amirgol.biterate.domain.dto.NearbySearchRequest;
+import dev.amirgol.biterate.domain.dto.RestaurantCard;
+import dev.amirgol.biterate.domain.entites.Restaurant;
+import dev.amirgol.biterate.repository.SearchCursor;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.elasticsearch.client.elc.NativeQuery;
+import org.springframework.data.elasticsearch.core.ElasticsearchOperations;
+import org.springframework.data.elasticsearch.core.MultiGetItem;
+import org.springframework.data.elasticsearch.core.SearchHit;
+import org.springframework.data.elasticsearch.core.SearchHitsIterator;
+import org.springframework.data.elasticsearch.core.event.AfterSaveCallback;
+import org.springframework.data.elasticsearch.core.geo.GeoPoint;
+import org.springframework.data.elasticsearch.core.mapping.IndexCoordinates;
+import org.springframework.data.elasticsearch.core.query.FetchSourceFilterBuilder;
+import org.springframework.data.elasticsearch.core.query.SourceFilter;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps a {@link RestaurantGeoIndex}, and optionally a {@link RestaurantCardStore}, in step with the restaurant
+ * index.
+ * <p>
+ * The index is built from a scroll over the whole restaurant index once the application is ready, and until then
+ * nearby searches go to Elasticsearch. Restaurants saved through the repository or reported by a
+ * {@link RestaurantsChangedEvent} (bulk imports, rating flushes) are marked dirty and re-read with one multi-get
+ * every {@code syncInterval}; a restaurant that is no longer found is dropped. Deletes that bypass both paths are
+ * picked up by the periodic full rebuild, which builds a fresh index off to the side and swaps it in.
+ * </p>
+ */
+@Component
+@Slf4j
+@ConditionalOnProperty(prefix = "biterate.geo-index", name = "enabled", havingValue = "true")
+public class RestaurantGeoIndexMaintainer implements AfterSaveCallback<Restaurant>, MeterBinder {
+    private static final String[] INDEXED_FIELDS = {"geoLocation", "cuisineType", "averageRating"};
+    private static final String[] CARD_FIELDS = {"geoLocation", "cuisineType", "averageRating", "name", "address.city",
+            "coverPhotoId", "operatingHours.openRanges", "operatingHours.timeZone"};
+
+    private final ElasticsearchOperations elasticsearchOperations;
+    private final GeoIndexProperties properties;
+    private final Set<String> dirty = ConcurrentHashMap.newKeySet();
+    private volatile Snapshot snapshot;
+
+    public RestaurantGeoIndexMaintainer(ElasticsearchOperations elasticsearchOperations,
+                                        GeoIndexProperties properties) {
+        this.elasticsearchOperations = elasticsearchOperations;
+        this.properties = properties;
+    }
+
+    /**
+     * Registered by Spring Boot once the bean is constructed, since the gauges read this maintainer's snapshot.
+     */
+    @Override
+    public void bindTo(MeterRegistry meterRegistry) {
+        Gauge.builder("restaurants.geo-index.size", this, maintainer -> {
+                    Snapshot current = maintainer.snapshot;
+                    return current != null ? current.index().size() : 0;
+                })
+                .description("Restaurants held in the in-process geo index")
+                .register(meterRegistry);
+        Gauge.builder("restaurants.card-store.bytes", this, maintainer -> {
+                    Snapshot current = maintainer.snapshot;
+                    return current != null && current.cards() != null ? current.cards().offHeapBytes() : 0;
+                })
+                .description("Off-heap memory held by the restaurant card store")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+    }
+
+    /**
+     * @return empty until the first load has completed
+     */
+    public Optional<List<RestaurantGeoIndex.Hit>> search(NearbySearchRequest request, SearchCursor after) {
+        Snapshot current = snapshot;
+        return current != null ? Optional.of(current.index().search(request, after)) : Optional.empty();
+    }
+
+    /**
+     * Builds cards from the off-heap card store, skipping restaurants it does not hold.
+     *
+     * @return empty when cards are not stored or the first load has not completed
+     */
+    public Optional<List<RestaurantCard>> cards(List<String> ids, double[] distancesKm) {
+        Snapshot current = snapshot;
+        if (current == null || current.cards() == null) {
+            return Optional.empty();
+        }
+        return Optional.of(current.cards().cards(ids, distancesKm, Instant.now()));
+    }
+
+    @Override
+    public Restaurant onAfterSave(Restaurant restaurant, IndexCoordinates indexCoordinates) {
+        if (restaurant.getId() != null) {
+            dirty.add(restaurant.getId());
+        }
+        return restaurant;
+    }
+
+    @EventListener
+    public void onRestaurantsChanged(RestaurantsChangedEvent event) {
+        dirty.addAll(event.restaurantIds());
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        reload();
+    }
+
+    @Scheduled(fixedDelayString = "${biterate.geo-index.reload-interval:PT15M}",
+            initialDelayString = "${biterate.geo-index.reload-interval:PT15M}")
+    public synchronized void reload() {
+        long started = System.nanoTime();
+        Snapshot current = snapshot;
+        int expected = current != null ? current.index().size() : 0;
+        Snapshot rebuilt = new Snapshot(new RestaurantGeoIndex(properties.getCellDegrees(), expected),
+                properties.isStoreCards() ? new RestaurantCardStore(expected) : null);
+        NativeQuery query = NativeQuery.builder()
+                .withQuery(q -> q.matchAll(m -> m))
+                .withSourceFilter(sourceFilter())
+                .withPageable(PageRequest.of(0, properties.getLoadBatchSize()))
+                .build();
+        try (SearchHitsIterator<Restaurant> restaurants = elasticsearchOperations.searchForStream(query, Restaurant.class)) {
+            while (restaurants.hasNext()) {
+                SearchHit<Restaurant> hit = restaurants.next();
+                apply(rebuilt, hit.getId(), hit.getContent());
+            }
+        } catch (RuntimeException exception) {
+            log.warn("Failed to load the restaurant geo index, keeping the previous one: {}", exception.getMessage());
+            return;
+        }
+        // Changes marked while the scroll ran may predate what it read, so they are re-read on the next sync
+        snapshot = rebuilt;
+        log.info("Loaded {} restaurants into the geo index in {} ms", rebuilt.index().size(), (System.nanoTime() - started) / 1_000_000);
+    }
+
+    @Scheduled(fixedDelayString = "${biterate.geo-index.sync-interval:PT1S}")
+    public synchronized void sync() {
+        Snapshot current = snapshot;
+        if (current == null || dirty.isEmpty()) {
+            return;
+        }
+        List<String> ids = new ArrayList<>(dirty);
+        dirty.removeAll(ids);
+        try {
+            NativeQuery query = NativeQuery.builder()
+                    .withIds(ids)
+                    .withSourceFilter(sourceFilter())
+                    .build();
+            List<MultiGetItem<Restaurant>> items = elasticsearchOperations.multiGet(query, Restaurant.class);
+            for (int i = 0; i < items.size(); i++) {
+                MultiGetItem<Restaurant> item = items.get(i);
+                if (item.hasItem()) {
+                    apply(current, ids.get(i), item.getItem());
+                } else if (item.getFailure() == null) {
+                    current.remove(ids.get(i));
+                } else {
+                    dirty.add(ids.get(i));
+                }
+            }
+        } catch (RuntimeException exception) {
+            log.warn("Failed to sync the restaurant geo index, retrying on next sync: {}", exception.getMessage());
+            dirty.addAll(ids);
+        }
+    }
+
+    private static void apply(Snapshot target, String id, Restaurant restaurant) {
+        GeoPoint location = restaurant.getGeoLocation();
+        if (location == null) {
+            target.remove(id);
+            return;
+        }
+        target.index().put(id, location.getLat(), location.getLon(), restaurant.getCuisineType(), restaurant.getAverageRating());
+        if (target.cards() != null) {
+            target.cards().put(id, restaurant);
+        }
+    }
+
+    private SourceFilter sourceFilter() {
+        return new FetchSourceFilterBuilder().withIncludes(properties.isStoreCards() ? CARD_FIELDS : INDEXED_FIELDS).build();
+    }
+
+    /**
+     * The index and the card store are rebuilt and swapped together, so both always cover the same restaurants.
+     */
+    private record Snapshot(RestaurantGeoIndex index, RestaurantCardStore cards) {
+
+        void remove(String id) {
+            index.remove(id);
+            if (cards != null) {
+                cards.remove(id);
+            }
+        }
+    }
+}
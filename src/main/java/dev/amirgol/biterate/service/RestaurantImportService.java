@@ -0,0 +1,10 @@
+package dev.amirgol.biterate.service;
+
+import dev.amirgol.biterate.domain.dto.ImportReport;
+import dev.amirgol.biterate.domain.enums.ImportFormat;
+
+import java.io.InputStream;
+
+public interface RestaurantImportService {
+    ImportReport importRestaurants(InputStream content, ImportFormat format);
+}
@@ -0,0 +1,13 @@
+package dev.amirgol.biterate.service;
+
+import dev.amirgol.biterate.domain.dto.AutocompleteSuggestion;
+import dev.amirgol.biterate.domain.dto.NearbySearchRequest;
+import dev.amirgol.biterate.domain.dto.RestaurantSearchResponse;
+
+import java.util.List;
+
+public interface RestaurantService {
+    RestaurantSearchResponse searchNearby(NearbySearchRequest request);
+
+    List<AutocompleteSuggestion> autocomplete(String prefix, Double latitude, Double longitude, int size);
+}
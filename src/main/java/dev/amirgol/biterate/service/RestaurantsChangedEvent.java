@@ -0,0 +1,10 @@
+package dev.amirgol.biterate.service;
+
+import java.util.Collection;
+
+/**
+ * Published after restaurant documents were written without going through entity callbacks, e.g. by scripted
+ * updates or bulk imports, so in-process views of them can re-read the new state.
+ */
+public record RestaurantsChangedEvent(Collection<String> restaurantIds) {
+}
@@ -0,0 +1,293 @@
+package dev.amirgol.biterate.service;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+/**
+ * Append-only local journal of accepted reviews, one Elasticsearch source document per line.
+ * <p>
+ * Appends are group-committed: callers hand their line to a single writer thread and wait, and the writer takes
+ * everything queued, writes it and forces it to disk once, so a burst of submissions shares one {@code fsync}
+ * instead of queueing behind one each. The journal is split into segments; a segment is deleted once it is full
+ * and every review in it has been settled in Elasticsearch, and a segment holding a review that could not be
+ * written is kept for the next startup. Segments left behind by an earlier run are read back by {@link #recover()}.
+ * </p>
+ */
+@Slf4j
+public class ReviewJournal implements Closeable {
+    private static final String SEGMENT_PREFIX = "reviews-";
+    private static final String SEGMENT_SUFFIX = ".ndjson";
+    private static final byte[] NEWLINE = {'\n'};
+
+    private final Path directory;
+    private final long segmentBytes;
+    private final BlockingQueue<PendingAppend> queue = new LinkedBlockingQueue<>();
+    private final List<Segment> recovered = new ArrayList<>();
+    private final Thread writer;
+    private volatile boolean running = true;
+    private Segment active;
+    private FileChannel channel;
+    private long nextSequence;
+
+    public ReviewJournal(Path directory, long segmentBytes) throws IOException {
+        this.directory = directory;
+        this.segmentBytes = segmentBytes;
+        Files.createDirectories(directory);
+        try (Stream<Path> files = Files.list(directory)) {
+            files.filter(ReviewJournal::isSegment).sorted().forEach(path -> {
+                recovered.add(new Segment(path));
+                nextSequence = Math.max(nextSequence, sequenceOf(path) + 1);
+            });
+        }
+        roll();
+        this.writer = new Thread(this::write, "review-journal");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    /**
+     * Reads back the reviews of segments left by an earlier run. Each returned segment is sealed, so it is deleted
+     * once all of its entries are settled. Only newline-terminated lines are returned: a tail without one was torn
+     * by a crash mid-write, was never acknowledged, and is truncated away.
+     */
+    public List<Entry> recover() throws IOException {
+        List<Entry> entries = new ArrayList<>();
+        for (Segment segment : recovered) {
+            byte[] content = Files.readAllBytes(segment.path);
+            int start = 0;
+            for (int i = 0; i < content.length; i++) {
+                if (content[i] == '\n') {
+                    if (i > start) {
+                        segment.pending.incrementAndGet();
+                        entries.add(new Entry(Arrays.copyOfRange(content, start, i), segment));
+                    }
+                    start = i + 1;
+                }
+            }
+            if (start < content.length) {
+                log.warn("Dropping {} bytes torn from the end of review journal segment {}", content.length - start, segment.path);
+                try (FileChannel torn = FileChannel.open(segment.path, StandardOpenOption.WRITE)) {
+                    torn.truncate(start);
+                    torn.force(false);
+                }
+            }
+            segment.seal();
+        }
+        recovered.clear();
+        return entries;
+    }
+
+    /**
+     * Appends one line and returns once it is on disk.
+     *
+     * @return the segment holding the line, to {@link #settled(Segment) settle} once it is in Elasticsearch
+     */
+    public Segment append(byte[] line) throws IOException {
+        if (!running) {
+            throw new IOException("Review journal is closed");
+        }
+        PendingAppend append = new PendingAppend(line, new CompletableFuture<>());
+        queue.add(append);
+        try {
+            return append.written().get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for the review journal");
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof IOException io ? io : new IOException(e.getCause());
+        }
+    }
+
+    /**
+     * Marks one entry of the segment as written to Elasticsearch, or as rejected for good.
+     */
+    public void settled(Segment segment) {
+        segment.pending.decrementAndGet();
+        segment.deleteIfSettled();
+    }
+
+    /**
+     * Keeps the segment on disk so its entries are replayed on the next startup.
+     */
+    public void retain(Segment segment) {
+        segment.retained = true;
+    }
+
+    @Override
+    public void close() throws IOException {
+        // Not interrupted: an interrupt during a write would close the channel
+        running = false;
+        try {
+            writer.join(5_000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        synchronized (this) {
+            channel.close();
+            active.seal();
+        }
+    }
+
+    private void write() {
+        List<PendingAppend> batch = new ArrayList<>();
+        while (running || !queue.isEmpty()) {
+            try {
+                PendingAppend first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            queue.drainTo(batch);
+            writeBatch(batch);
+            batch.clear();
+        }
+        PendingAppend leftover;
+        while ((leftover = queue.poll()) != null) {
+            leftover.written().completeExceptionally(new IOException("Review journal is closed"));
+        }
+    }
+
+    private synchronized void writeBatch(List<PendingAppend> batch) {
+        Segment segment = active;
+        long start = -1;
+        try {
+            start = channel.position();
+            ByteBuffer[] buffers = new ByteBuffer[batch.size() * 2];
+            for (int i = 0; i < batch.size(); i++) {
+                buffers[2 * i] = ByteBuffer.wrap(batch.get(i).line());
+                buffers[2 * i + 1] = ByteBuffer.wrap(NEWLINE);
+            }
+            while (hasRemaining(buffers)) {
+                channel.write(buffers);
+            }
+            channel.force(false);
+        } catch (IOException e) {
+            log.error("Failed to write {} reviews to the journal: {}", batch.size(), e.getMessage());
+            discardPartialWrite(start);
+            batch.forEach(append -> append.written().completeExceptionally(e));
+            return;
+        }
+        // The batch is durable from here on, so it is acknowledged whatever happens to the roll
+        segment.pending.addAndGet(batch.size());
+        try {
+            // Rolled before acknowledging, so callers never see a full segment as the active one
+            if (channel.size() >= segmentBytes) {
+                roll();
+            }
+        } catch (IOException e) {
+            log.warn("Failed to roll the review journal, retrying after the next write: {}", e.getMessage());
+        }
+        batch.forEach(append -> append.written().complete(segment));
+    }
+
+    /**
+     * Cuts a failed batch off the active segment, so the next batch does not continue its torn last line. When the
+     * segment cannot be truncated, later batches go to a new one instead.
+     */
+    private void discardPartialWrite(long start) {
+        try {
+            if (start < 0) {
+                throw new IOException("position of the failed write is unknown");
+            }
+            channel.truncate(start);
+            channel.position(start);
+        } catch (IOException e) {
+            log.warn("Failed to truncate the review journal after a failed write, rolling: {}", e.getMessage());
+            try {
+                roll();
+            } catch (IOException rollFailure) {
+                log.error("Failed to roll the review journal after a failed write: {}", rollFailure.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Opens the next segment before retiring the active one, so a failed open leaves the active segment in use.
+     */
+    private synchronized void roll() throws IOException {
+        Path path = directory.resolve(String.format("%s%016d%s", SEGMENT_PREFIX, nextSequence++, SEGMENT_SUFFIX));
+        FileChannel next = FileChannel.open(path, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+        Segment previous = active;
+        FileChannel previousChannel = channel;
+        active = new Segment(path);
+        channel = next;
+        if (previous != null) {
+            try {
+                previousChannel.close();
+            } finally {
+                previous.seal();
+            }
+        }
+    }
+
+    private static boolean hasRemaining(ByteBuffer[] buffers) {
+        return buffers[buffers.length - 1].hasRemaining();
+    }
+
+    private static boolean isSegment(Path path) {
+        String name = path.getFileName().toString();
+        return name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX);
+    }
+
+    private static long sequenceOf(Path path) {
+        String name = path.getFileName().toString();
+        return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+    }
+
+    public record Entry(byte[] line, Segment segment) {
+    }
+
+    private record PendingAppend(byte[] line, CompletableFuture<Segment> written) {
+    }
+
+    public static class Segment {
+        private final Path path;
+        private final AtomicInteger pending = new AtomicInteger();
+        private volatile boolean sealed;
+        private volatile boolean retained;
+        private boolean deleted;
+
+        private Segment(Path path) {
+            this.path = path;
+        }
+
+        private void seal() {
+            sealed = true;
+            deleteIfSettled();
+        }
+
+        private synchronized void deleteIfSettled() {
+            if (!sealed || retained || deleted || pending.get() > 0) {
+                return;
+            }
+            try {
+                Files.deleteIfExists(path);
+                deleted = true;
+            } catch (IOException e) {
+                log.warn("Failed to delete settled review journal segment {}: {}", path, e.getMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package dev.amirgol.biterate.service;
+
+import dev.amirgol.biterate.domain.dto.ReviewRequest;
+import dev.amirgol.biterate.domain.entites.Review;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+
+public interface ReviewService {
+    /**
+     * @param idempotencyKey optional client key; submissions repeating a key for the same restaurant add one review
+     */
+    Review addReview(String restaurantId, ReviewRequest request, String idempotencyKey);
+
+    Page<Review> findByRestaurantId(String restaurantId, Pageable pageable);
+}
@@ -0,0 +1,12 @@
+package dev.amirgol.biterate.service;
+
+import dev.amirgol.biterate.domain.entites.Review;
+
+import java.util.List;
+
+/**
+ * Published once reviews have been created in Elasticsearch, so their ratings and photos are applied exactly once;
+ * writes of reviews that already existed are not included.
+ */
+public record ReviewsCreatedEvent(List<Review> reviews) {
+}
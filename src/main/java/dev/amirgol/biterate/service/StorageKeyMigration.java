@@ -0,0 +1,147 @@
+package dev.amirgol.biterate.service;
+
+import dev.amirgol.biterate.domain.entites.Photo;
+import dev.amirgol.biterate.domain.entites.PhotoBlob;
+import dev.amirgol.biterate.domain.enums.RenditionStatus;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.elasticsearch.core.ElasticsearchOperations;
+import org.springframework.data.elasticsearch.core.SearchHitsIterator;
+import org.springframework.data.elasticsearch.core.document.Document;
+import org.springframework.data.elasticsearch.core.query.Criteria;
+import org.springframework.data.elasticsearch.core.query.CriteriaQuery;
+import org.springframework.data.elasticsearch.core.query.Query;
+import org.springframework.data.elasticsearch.core.query.UpdateQuery;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * One-off migration that moves stored objects to the current {@link ObjectKeyLayout} and bucket configuration.
+ * <p>
+ * Enabled with {@code biterate.migration.rewrite-storage-keys=true}. Every blob whose key does not follow the
+ * current layout is copied server-side to a new key, the blob and every photo referencing it are pointed at the
+ * new key, and only then is the old object removed, so a failure at any step leaves a readable key behind. Photos
+ * from before deduplication own their object and are moved the same way, with the hash taken from their object
+ * name. Renditions are not copied; they are dropped with the old object, and each repointed photo is reset to
+ * {@code PENDING} with no renditions so the rendition pipeline's sweep regenerates its standard set, while other
+ * sizes are regenerated on demand. It is safe to re-run, as migrated keys no longer need rewriting. Uploads and
+ * deletes should be paused while it runs, since a photo indexed concurrently could still pick up the old key.
+ * </p>
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+@ConditionalOnProperty(prefix = "biterate.migration", name = "rewrite-storage-keys", havingValue = "true")
+public class StorageKeyMigration implements ApplicationRunner {
+    private static final int BATCH_SIZE = 100;
+    private static final Pattern CONTENT_HASH = Pattern.compile("[0-9a-f]{32}");
+
+    private final ElasticsearchOperations elasticsearchOperations;
+    private final MinioService minIOService;
+    private final StorageKeyResolver storageKeyResolver;
+    private final ApplicationEventPublisher eventPublisher;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        int blobs = 0;
+        CriteriaQuery blobQuery = new CriteriaQuery(new Criteria("storageKey").exists(), PageRequest.of(0, BATCH_SIZE));
+        try (SearchHitsIterator<PhotoBlob> stream = elasticsearchOperations.searchForStream(blobQuery, PhotoBlob.class)) {
+            while (stream.hasNext()) {
+                PhotoBlob blob = stream.next().getContent();
+                if (!storageKeyResolver.isCurrent(blob.getStorageKey())) {
+                    migrateBlob(blob);
+                    blobs++;
+                }
+            }
+        }
+
+        int legacyPhotos = 0;
+        CriteriaQuery photoQuery = new CriteriaQuery(
+                new Criteria("storageKey").exists().and(new Criteria("contentHash").exists().not()),
+                PageRequest.of(0, BATCH_SIZE));
+        try (SearchHitsIterator<Photo> stream = elasticsearchOperations.searchForStream(photoQuery, Photo.class)) {
+            while (stream.hasNext()) {
+                Photo photo = stream.next().getContent();
+                if (!storageKeyResolver.isCurrent(photo.getStorageKey()) && migrateLegacyPhoto(photo)) {
+                    legacyPhotos++;
+                }
+            }
+        }
+        log.info("Moved {} blobs and {} photos without a content hash to the current storage layout", blobs, legacyPhotos);
+    }
+
+    private void migrateBlob(PhotoBlob blob) {
+        String oldKey = blob.getStorageKey();
+        String newKey = storageKeyResolver.newStorageKey(blob.getId(), extensionOf(oldKey));
+        minIOService.copyFile(oldKey, newKey);
+
+        elasticsearchOperations.update(UpdateQuery.builder(blob.getId()).withDocument(storageKeyDocument(newKey)).build(),
+                elasticsearchOperations.getIndexCoordinatesFor(PhotoBlob.class));
+
+        List<String> photoIds = new ArrayList<>();
+        Query photosOfBlob = new CriteriaQuery(new Criteria("contentHash").is(blob.getId()), PageRequest.of(0, BATCH_SIZE));
+        try (SearchHitsIterator<Photo> photos = elasticsearchOperations.searchForStream(photosOfBlob, Photo.class)) {
+            photos.forEachRemaining(hit -> photoIds.add(hit.getId()));
+        }
+        repointPhotos(photoIds, newKey);
+
+        removeObject(oldKey);
+        log.debug("Moved blob {} from {} to {}", blob.getId(), oldKey, newKey);
+    }
+
+    private boolean migrateLegacyPhoto(Photo photo) {
+        String oldKey = photo.getStorageKey();
+        String objectName = StringUtils.stripFilenameExtension(StringUtils.getFilename(oldKey));
+        String contentHash = objectName.contains("_") ? objectName.substring(0, objectName.indexOf('_')) : objectName;
+        if (!CONTENT_HASH.matcher(contentHash).matches()) {
+            log.warn("Skipping photo {}: no content hash in its storage key {}", photo.getId(), oldKey);
+            return false;
+        }
+
+        String newKey = storageKeyResolver.newStorageKey(contentHash, extensionOf(oldKey));
+        minIOService.copyFile(oldKey, newKey);
+        repointPhotos(List.of(photo.getId()), newKey);
+        removeObject(oldKey);
+        return true;
+    }
+
+    private void repointPhotos(List<String> photoIds, String storageKey) {
+        for (int from = 0; from < photoIds.size(); from += BATCH_SIZE) {
+            List<String> batch = photoIds.subList(from, Math.min(from + BATCH_SIZE, photoIds.size()));
+            List<UpdateQuery> updates = batch.stream()
+                    .map(id -> UpdateQuery.builder(id).withDocument(storageKeyDocument(storageKey)).build())
+                    .toList();
+            elasticsearchOperations.bulkUpdate(updates, Photo.class);
+            batch.forEach(id -> eventPublisher.publishEvent(new PhotoInvalidatedEvent(id)));
+        }
+    }
+
+    private void removeObject(String storageKey) {
+        minIOService.deleteFile(storageKey);
+        minIOService.deleteFiles(RenditionService.renditionPrefix(storageKey));
+    }
+
+    private static Document storageKeyDocument(String storageKey) {
+        Document document = Document.create();
+        document.put("storageKey", storageKey);
+        // The recorded renditions live under the old key, which is about to be removed
+        document.put("renditionStatus", RenditionStatus.PENDING.name());
+        document.put("renditions", List.of());
+        document.put("renditionAttempts", 0);
+        return document;
+    }
+
+    private static String extensionOf(String storageKey) {
+        String extension = StringUtils.getFilenameExtension(storageKey);
+        return extension != null ? extension : "bin";
+    }
+}
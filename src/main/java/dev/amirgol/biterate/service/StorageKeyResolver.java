@@ -0,0 +1,75 @@
+package dev.amirgol.biterate.service;
+
+import dev.amirgol.biterate.config.MinioProperties;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Maps storage keys, as persisted on photos and blobs, to the bucket and object name they live under.
+ * <p>
+ * With {@code minio.layout.buckets} configured, new keys are {@code <bucket>/<object name>} with the bucket picked
+ * by content hash. Photos are stored before they are linked to a restaurant and identical content is shared
+ * across restaurants, so the hash is the only stable attribute to distribute by. Any key whose first segment is not
+ * one of those buckets, including temporary uploads and keys from before multi-bucket storage, lives in
+ * {@code minio.bucket}.
+ * </p>
+ */
+@Component
+@RequiredArgsConstructor
+public class StorageKeyResolver {
+    private final MinioProperties minioProperties;
+    private final ObjectKeyLayout layout;
+
+    public String newStorageKey(String contentHash, String fileExtension) {
+        String objectName = layout.objectName(contentHash, fileExtension, Instant.now());
+        List<String> buckets = minioProperties.getLayout().getBuckets();
+        if (buckets.isEmpty()) {
+            return objectName;
+        }
+        int bucket = Math.floorMod(Integer.parseUnsignedInt(contentHash.substring(0, 8), 16), buckets.size());
+        return buckets.get(bucket) + "/" + objectName;
+    }
+
+    public ObjectLocation locate(String storageKey) {
+        int separator = storageKey.indexOf('/');
+        if (separator > 0 && minioProperties.getLayout().getBuckets().contains(storageKey.substring(0, separator))) {
+            return new ObjectLocation(storageKey.substring(0, separator), storageKey.substring(separator + 1));
+        }
+        return new ObjectLocation(minioProperties.getBucket(), storageKey);
+    }
+
+    /**
+     * @return whether the key was written under the current layout and bucket configuration
+     */
+    public boolean isCurrent(String storageKey) {
+        ObjectLocation location = locate(storageKey);
+        boolean expectedBucket = minioProperties.getLayout().getBuckets().isEmpty()
+                || !location.bucket().equals(minioProperties.getBucket());
+        return expectedBucket && layout.matches(location.objectName());
+    }
+
+    /**
+     * @return the storage key prefix of the partition the key belongs to; passing it to
+     * {@link MinioService#deleteFiles(String)} removes the whole partition
+     * @throws IllegalArgumentException if the key was not written under the current layout, such as a legacy key
+     */
+    public String partitionOf(String storageKey) {
+        ObjectLocation location = locate(storageKey);
+        String partition = layout.partitionOf(location.objectName());
+        return location.bucket().equals(minioProperties.getBucket()) ? partition : location.bucket() + "/" + partition;
+    }
+
+    public List<String> buckets() {
+        List<String> buckets = new ArrayList<>();
+        buckets.add(minioProperties.getBucket());
+        minioProperties.getLayout().getBuckets().stream().filter(bucket -> !buckets.contains(bucket)).forEach(buckets::add);
+        return buckets;
+    }
+
+    public record ObjectLocation(String bucket, String objectName) {
+    }
+}
@@ -0,0 +1,289 @@
+package dev.amirgol.biterate.service;
+
+import dev.amirgol.biterate.config.RenditionProperties;
+import dev.amirgol.biterate.domain.entites.Photo;
+import dev.amirgol.biterate.domain.entites.PhotoRendition;
+import dev.amirgol.biterate.domain.enums.RenditionStatus;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.elasticsearch.BulkFailureException;
+import org.springframework.data.elasticsearch.client.elc.NativeQuery;
+import org.springframework.data.elasticsearch.core.ElasticsearchOperations;
+import org.springframework.data.elasticsearch.core.MultiGetItem;
+import org.springframework.data.elasticsearch.core.SearchHitsIterator;
+import org.springframework.data.elasticsearch.core.document.Document;
+import org.springframework.data.elasticsearch.core.query.Query;
+import org.springframework.data.elasticsearch.core.query.UpdateQuery;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Background pipeline that generates the standard renditions of newly uploaded photos.
+ * <p>
+ * Photo ids flow through a bounded queue. Uploads apply backpressure by waiting briefly for room, and photos that
+ * still do not fit stay {@code PENDING} in Elasticsearch, from where a periodic sweep (also run at startup)
+ * re-enqueues them; the document status is the durable record of outstanding work. The sweep also retries
+ * {@code FAILED} photos until they have failed {@code maxAttempts} times. Workers take photos in
+ * batches, render each photo's full set from a single decode, and record the results with one bulk update per
+ * batch. A photo whose update fails is left for the next sweep, or has its renditions removed if it was deleted
+ * meanwhile. Queue depth, per-photo latency, failures and overflows are published under
+ * {@code renditions.pipeline.*}.
+ * </p>
+ */
+@Component
+@Slf4j
+public class ThumbnailPipeline {
+    private final RenditionService renditionService;
+    private final MinioService minIOService;
+    private final ElasticsearchOperations elasticsearchOperations;
+    private final ApplicationEventPublisher eventPublisher;
+    private final RenditionProperties.Pipeline properties;
+    private final BlockingQueue<String> queue;
+    private final Set<String> queued = ConcurrentHashMap.newKeySet();
+    private final List<Thread> workers = new ArrayList<>();
+    private final Timer latency;
+    private final Counter failures;
+    private final Counter overflows;
+    private volatile boolean running;
+
+    public ThumbnailPipeline(RenditionService renditionService,
+                             MinioService minIOService,
+                             ElasticsearchOperations elasticsearchOperations,
+                             ApplicationEventPublisher eventPublisher,
+                             RenditionProperties renditionProperties,
+                             MeterRegistry meterRegistry) {
+        this.renditionService = renditionService;
+        this.minIOService = minIOService;
+        this.elasticsearchOperations = elasticsearchOperations;
+        this.eventPublisher = eventPublisher;
+        this.properties = renditionProperties.getPipeline();
+        this.queue = new ArrayBlockingQueue<>(properties.getQueueCapacity());
+
+        Gauge.builder("renditions.pipeline.queue.depth", queue, BlockingQueue::size)
+                .description("Photos waiting for their standard renditions")
+                .register(meterRegistry);
+        this.latency = Timer.builder("renditions.pipeline.latency")
+                .description("Time to render and store the standard renditions of one photo")
+                .register(meterRegistry);
+        this.failures = Counter.builder("renditions.pipeline.failures")
+                .description("Photos whose renditions could not be generated")
+                .register(meterRegistry);
+        this.overflows = Counter.builder("renditions.pipeline.overflows")
+                .description("Submissions deferred to the next sweep because the queue was full")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        running = true;
+        for (int i = 1; i <= properties.getWorkers(); i++) {
+            Thread worker = new Thread(this::work, "thumbnail-pipeline-" + i);
+            worker.setDaemon(true);
+            worker.start();
+            workers.add(worker);
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        workers.forEach(Thread::interrupt);
+    }
+
+    public boolean isEnabled() {
+        return properties.isEnabled();
+    }
+
+    /**
+     * Queues a freshly saved {@code PENDING} photo, waiting up to {@code offerTimeout} for room.
+     */
+    public void submit(Photo photo) {
+        if (!running || !queued.add(photo.getId())) {
+            return;
+        }
+        try {
+            if (!queue.offer(photo.getId(), properties.getOfferTimeout().toMillis(), TimeUnit.MILLISECONDS)) {
+                queued.remove(photo.getId());
+                overflows.increment();
+                log.debug("Rendition queue full, deferring photo {} to the next sweep", photo.getId());
+            }
+        } catch (InterruptedException exception) {
+            queued.remove(photo.getId());
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void resumePending() {
+        sweep();
+    }
+
+    /**
+     * Re-enqueues photos still marked {@code PENDING}, and {@code FAILED} ones with attempts left, stopping as soon
+     * as the queue is full.
+     */
+    @Scheduled(fixedDelayString = "${biterate.renditions.pipeline.sweep-interval:PT5M}",
+            initialDelayString = "${biterate.renditions.pipeline.sweep-interval:PT5M}")
+    public void sweep() {
+        if (!running) {
+            return;
+        }
+        NativeQuery pendingQuery = NativeQuery.builder()
+                .withQuery(q -> q.bool(b -> b
+                        .should(s -> s.term(t -> t.field("renditionStatus").value(RenditionStatus.PENDING.name())))
+                        .should(s -> s.bool(failed -> failed
+                                .filter(f -> f.term(t -> t.field("renditionStatus").value(RenditionStatus.FAILED.name())))
+                                .mustNot(m -> m.range(r -> r.number(n -> n
+                                        .field("renditionAttempts")
+                                        .gte((double) properties.getMaxAttempts()))))))
+                        .minimumShouldMatch("1")))
+                .build();
+        int resumed = 0;
+        try (SearchHitsIterator<Photo> pending = elasticsearchOperations.searchForStream(pendingQuery, Photo.class)) {
+            while (pending.hasNext() && queue.remainingCapacity() > 0) {
+                String id = pending.next().getId();
+                if (queued.add(id)) {
+                    if (!queue.offer(id)) {
+                        queued.remove(id);
+                        break;
+                    }
+                    resumed++;
+                }
+            }
+        } catch (RuntimeException exception) {
+            log.warn("Rendition sweep failed: {}", exception.getMessage());
+        }
+        if (resumed > 0) {
+            log.info("Re-enqueued {} photos with pending or retryable renditions", resumed);
+        }
+    }
+
+    private void work() {
+        int batchSize = Math.max(1, properties.getBatchSize());
+        while (running) {
+            try {
+                String first = queue.poll(1, TimeUnit.SECONDS);
+                if (first == null) {
+                    continue;
+                }
+                List<String> batch = new ArrayList<>(batchSize);
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+                processBatch(batch);
+            } catch (InterruptedException exception) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException exception) {
+                log.error("Rendition worker failed: {}", exception.getMessage(), exception);
+            }
+        }
+    }
+
+    private void processBatch(List<String> batch) {
+        List<UpdateQuery> updates = new ArrayList<>(batch.size());
+        Map<String, Photo> photos = new HashMap<>();
+        try {
+            for (MultiGetItem<Photo> item : elasticsearchOperations.multiGet(Query.multiGetQuery(batch), Photo.class)) {
+                if (!item.hasItem()) {
+                    continue; // Deleted since it was queued
+                }
+                Photo photo = item.getItem();
+                photos.put(photo.getId(), photo);
+                updates.add(latency.record(() -> renderStandard(photo)));
+            }
+            if (updates.isEmpty()) {
+                return;
+            }
+
+            Map<String, BulkFailureException.FailureDetails> failed = Map.of();
+            try {
+                elasticsearchOperations.bulkUpdate(updates, Photo.class);
+            } catch (BulkFailureException exception) {
+                failed = exception.getFailedDocuments();
+            }
+            for (UpdateQuery update : updates) {
+                BulkFailureException.FailureDetails failure = failed.get(update.getId());
+                if (failure == null) {
+                    eventPublisher.publishEvent(new PhotoInvalidatedEvent(update.getId()));
+                } else {
+                    // Left as it was, so the sweep picks it up again unless it is gone
+                    log.warn("Failed to record renditions of photo {}: {}", update.getId(), failure.errorMessage());
+                    discardOrphanedRenditions(photos.get(update.getId()));
+                }
+            }
+        } finally {
+            batch.forEach(queued::remove);
+        }
+    }
+
+    /**
+     * Deletes the renditions of a photo whose update failed once its original is gone, as it is when the photo was
+     * deleted while it was being rendered. Renditions of an original that still exists are kept: other photos with
+     * the same content share them, and a retry reuses them instead of rendering again.
+     */
+    private void discardOrphanedRenditions(Photo photo) {
+        try {
+            if (minIOService.getFileSize(photo.getStorageKey()).isEmpty()) {
+                minIOService.deleteFiles(RenditionService.renditionPrefix(photo.getStorageKey()));
+                log.info("Deleted the renditions of removed photo {}", photo.getId());
+            }
+        } catch (RuntimeException exception) {
+            log.warn("Failed to delete the renditions of photo {}: {}", photo.getId(), exception.getMessage());
+        }
+    }
+
+    private UpdateQuery renderStandard(Photo photo) {
+        List<PhotoRendition> renditions;
+        RenditionStatus status;
+        Integer attempts = null;
+        try {
+            renditions = renditionService.renderStandard(photo);
+            status = RenditionStatus.COMPLETED;
+        } catch (RuntimeException exception) {
+            failures.increment();
+            renditions = List.of();
+            status = RenditionStatus.FAILED;
+            attempts = (photo.getRenditionAttempts() != null ? photo.getRenditionAttempts() : 0) + 1;
+            if (attempts < properties.getMaxAttempts()) {
+                log.warn("Failed to generate renditions for photo {} (attempt {}), retrying on a later sweep: {}",
+                        photo.getId(), attempts, exception.getMessage());
+            } else {
+                log.error("Failed to generate renditions for photo {} after {} attempts, giving up: {}",
+                        photo.getId(), attempts, exception.getMessage());
+            }
+        }
+
+        Document document = Document.create();
+        if (attempts != null) {
+            document.put("renditionAttempts", attempts);
+        }
+        document.put("renditionStatus", status.name());
+        document.put("renditions", renditions.stream()
+                .map(rendition -> elasticsearchOperations.getElasticsearchConverter().mapObject(rendition))
+                .toList());
+        return UpdateQuery.builder(photo.getId())
+                .withDocument(document)
+                .build();
+    }
+}
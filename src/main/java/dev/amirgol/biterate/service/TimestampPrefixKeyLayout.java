@@ -0,0 +1,33 @@
+package dev.amirgol.biterate.service;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.regex.Pattern;
+
+/**
+ * The original layout: {@code <first 6 digits of epoch millis>/<hash>_<millis>.<ext>}. The prefix only changes
+ * about every 11.5 days, so all recent writes share one prefix; kept for deployments that depend on it.
+ */
+@Component
+@ConditionalOnProperty(prefix = "minio.layout", name = "strategy", havingValue = "TIMESTAMP_PREFIX")
+public class TimestampPrefixKeyLayout implements ObjectKeyLayout {
+    private static final Pattern NAME = Pattern.compile("\\d{6}/[0-9a-f]{32}_\\d+\\.[^/]+");
+
+    @Override
+    public String objectName(String contentHash, String fileExtension, Instant storedAt) {
+        String timestamp = String.valueOf(storedAt.toEpochMilli());
+        return timestamp.substring(0, 6) + "/" + contentHash + "_" + timestamp + "." + fileExtension;
+    }
+
+    @Override
+    public boolean matches(String objectName) {
+        return NAME.matcher(objectName).matches();
+    }
+
+    @Override
+    public String partitionOf(String objectName) {
+        return objectName.substring(0, objectName.indexOf('/') + 1);
+    }
+}
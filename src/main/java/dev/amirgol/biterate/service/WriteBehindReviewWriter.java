@@ -0,0 +1,243 @@
+package dev.amirgol.biterate.service;
+
+import co.elastic.clients.elasticsearch.ElasticsearchClient;
+import co.elastic.clients.elasticsearch._helpers.bulk.BulkIngester;
+import co.elastic.clients.elasticsearch._helpers.bulk.BulkListener;
+import co.elastic.clients.elasticsearch.core.BulkRequest;
+import co.elastic.clients.elasticsearch.core.BulkResponse;
+import co.elastic.clients.elasticsearch.core.bulk.BulkResponseItem;
+import co.elastic.clients.transport.BackoffPolicy;
+import co.elastic.clients.util.BinaryData;
+import co.elastic.clients.util.ContentType;
+import dev.amirgol.biterate.config.ReviewWriteProperties;
+import dev.amirgol.biterate.domain.entites.Review;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.elasticsearch.core.ElasticsearchOperations;
+import org.springframework.data.elasticsearch.core.MultiGetItem;
+import org.springframework.data.elasticsearch.core.document.Document;
+import org.springframework.data.elasticsearch.core.query.Query;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Write-behind buffer for reviews: a review is acknowledged once it is in the local {@link ReviewJournal} and is
+ * written to Elasticsearch by the client's {@link BulkIngester}, which sends a bulk request whenever
+ * {@code maxOperations} or {@code maxRequestSize} is reached and at least every {@code flushInterval}.
+ * <p>
+ * Reviews are written with {@code create}, so a review whose id already exists, such as a retried submission
+ * with the same idempotency key or a journal entry replayed after a crash, is rejected with 409 and not written
+ * again. Created reviews and the stored versions of rejected duplicates are announced with a
+ * {@link ReviewsCreatedEvent}; its listeners are idempotent, so a duplicate whose event was lost, e.g. to a crash
+ * right after its bulk request, still has its rating and photos applied. Reviews rejected with a server error or
+ * after exhausting retries, and reviews whose event listeners failed, keep their journal segment for the next
+ * startup; other rejections are logged and dropped.
+ * </p>
+ */
+@Component
+@Slf4j
+@ConditionalOnProperty(prefix = "biterate.review-writes", name = "write-behind", havingValue = "true", matchIfMissing = true)
+public class WriteBehindReviewWriter {
+    private final ElasticsearchOperations elasticsearchOperations;
+    private final ApplicationEventPublisher eventPublisher;
+    private final String index;
+    private final ReviewJournal journal;
+    private final BulkIngester<Pending> ingester;
+    private final Timer journalLatency;
+    private final Counter duplicates;
+    private final Counter failures;
+
+    public WriteBehindReviewWriter(ElasticsearchClient elasticsearchClient,
+                                   ElasticsearchOperations elasticsearchOperations,
+                                   ApplicationEventPublisher eventPublisher,
+                                   ReviewWriteProperties properties,
+                                   MeterRegistry meterRegistry) {
+        this.elasticsearchOperations = elasticsearchOperations;
+        this.eventPublisher = eventPublisher;
+        this.index = elasticsearchOperations.getIndexCoordinatesFor(Review.class).getIndexName();
+        try {
+            this.journal = new ReviewJournal(properties.getJournalDirectory(), properties.getSegmentSize().toBytes());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to open review journal in " + properties.getJournalDirectory(), e);
+        }
+        this.ingester = BulkIngester.of(b -> b
+                .client(elasticsearchClient)
+                .maxOperations(properties.getMaxOperations())
+                .maxSize(properties.getMaxRequestSize().toBytes())
+                .maxConcurrentRequests(properties.getMaxConcurrentRequests())
+                .flushInterval(properties.getFlushInterval().toMillis(), TimeUnit.MILLISECONDS)
+                .backoffPolicy(BackoffPolicy.exponentialBackoff(
+                        properties.getInitialBackoff().toMillis(), properties.getMaxRetries()))
+                .listener(new Listener()));
+
+        Gauge.builder("reviews.write-behind.pending", ingester, BulkIngester::pendingOperations)
+                .description("Accepted reviews waiting for the next bulk request")
+                .register(meterRegistry);
+        this.journalLatency = Timer.builder("reviews.journal.append")
+                .description("Time for an accepted review to be forced to the local journal")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+        this.duplicates = Counter.builder("reviews.write-behind.duplicates")
+                .description("Reviews skipped because a review with the same id already existed")
+                .register(meterRegistry);
+        this.failures = Counter.builder("reviews.write-behind.failures")
+                .description("Reviews that could not be written")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Returns once the review is durable in the journal; it becomes searchable after the next bulk request.
+     */
+    public void submit(Review review) {
+        byte[] source = elasticsearchOperations.getElasticsearchConverter()
+                .mapObject(review)
+                .toJson()
+                .getBytes(StandardCharsets.UTF_8);
+        long started = System.nanoTime();
+        ReviewJournal.Segment segment;
+        try {
+            segment = journal.append(source);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to journal review " + review.getId(), e);
+        } finally {
+            journalLatency.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+        }
+        add(review, source, segment);
+    }
+
+    /**
+     * Re-submits reviews left in the journal by an earlier run; those that were written before it stopped are
+     * skipped as duplicates.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void replay() {
+        List<ReviewJournal.Entry> entries;
+        try {
+            entries = journal.recover();
+        } catch (IOException e) {
+            log.error("Failed to read the review journal, its segments are kept for the next startup: {}", e.getMessage());
+            return;
+        }
+        for (ReviewJournal.Entry entry : entries) {
+            Review review;
+            try {
+                Document document = Document.parse(new String(entry.line(), StandardCharsets.UTF_8));
+                review = elasticsearchOperations.getElasticsearchConverter().read(Review.class, document);
+            } catch (RuntimeException exception) {
+                // Only possible for a corrupted segment; replaying it again would fail the same way
+                failures.increment();
+                log.error("Dropping unreadable review journal entry: {}", exception.getMessage());
+                journal.settled(entry.segment());
+                continue;
+            }
+            add(review, entry.line(), entry.segment());
+        }
+        if (!entries.isEmpty()) {
+            log.info("Replaying {} journaled reviews", entries.size());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() throws IOException {
+        ingester.close(); // Flushes and waits for in-flight requests
+        journal.close();
+    }
+
+    private void add(Review review, byte[] source, ReviewJournal.Segment segment) {
+        ingester.add(op -> op.create(c -> c
+                .index(index)
+                .id(review.getId())
+                .document(BinaryData.of(source, ContentType.APPLICATION_JSON))), new Pending(review, segment));
+    }
+
+    private record Pending(Review review, ReviewJournal.Segment segment) {
+    }
+
+    private class Listener implements BulkListener<Pending> {
+
+        @Override
+        public void beforeBulk(long executionId, BulkRequest request, List<Pending> contexts) {
+        }
+
+        @Override
+        public void afterBulk(long executionId, BulkRequest request, List<Pending> contexts, BulkResponse response) {
+            List<Review> created = new ArrayList<>(contexts.size());
+            List<String> duplicateIds = new ArrayList<>();
+            List<Pending> announced = new ArrayList<>(contexts.size());
+            List<BulkResponseItem> items = response.items();
+            for (int i = 0; i < items.size(); i++) {
+                BulkResponseItem item = items.get(i);
+                Pending pending = contexts.get(i);
+                if (item.error() == null) {
+                    created.add(pending.review());
+                    announced.add(pending);
+                } else if (item.status() == 409) {
+                    duplicates.increment();
+                    duplicateIds.add(item.id());
+                    announced.add(pending);
+                } else {
+                    failures.increment();
+                    log.warn("Failed to write review {}: {}", item.id(), item.error().reason());
+                    if (item.status() >= 500 || item.status() == 429) {
+                        journal.retain(pending.segment());
+                    }
+                }
+            }
+            try {
+                created.addAll(storedReviews(duplicateIds));
+                if (!created.isEmpty()) {
+                    eventPublisher.publishEvent(new ReviewsCreatedEvent(created));
+                }
+            } catch (RuntimeException exception) {
+                log.error("Failed to apply {} written reviews, keeping them for replay: {}", announced.size(),
+                        exception.getMessage(), exception);
+                announced.forEach(pending -> journal.retain(pending.segment()));
+            }
+            contexts.forEach(pending -> journal.settled(pending.segment()));
+        }
+
+        /**
+         * Duplicates are announced as stored rather than as journaled, since a retried submission may differ from the
+         * one that was written.
+         */
+        private List<Review> storedReviews(List<String> ids) {
+            if (ids.isEmpty()) {
+                return List.of();
+            }
+            List<Review> reviews = new ArrayList<>(ids.size());
+            for (MultiGetItem<Review> item : elasticsearchOperations.multiGet(Query.multiGetQuery(ids), Review.class)) {
+                if (item.hasItem()) {
+                    reviews.add(item.getItem());
+                } else if (item.getFailure() != null) {
+                    throw new IllegalStateException("Failed to read duplicate review " + item.getFailure().getId());
+                }
+            }
+            return reviews;
+        }
+
+        @Override
+        public void afterBulk(long executionId, BulkRequest request, List<Pending> contexts, Throwable failure) {
+            log.warn("Bulk request {} with {} reviews failed, keeping them for replay: {}", executionId,
+                    contexts.size(), failure.getMessage());
+            failures.increment(contexts.size());
+            contexts.forEach(pending -> {
+                journal.retain(pending.segment());
+                journal.settled(pending.segment());
+            });
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package dev.amirgol.biterate.controller;
+
+import dev.amirgol.biterate.config.StreamingProperties;
+import dev.amirgol.biterate.domain.entites.Photo;
+import dev.amirgol.biterate.service.MinioService;
+import dev.amirgol.biterate.service.PhotoService;
+import dev.amirgol.biterate.service.RenditionService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.RequestBuilder;
+import org.springframework.test.web.servlet.ResultActions;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.io.ByteArrayInputStream;
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+class PhotoControllerTests {
+
+    private static final String CONTENT_HASH = "5d41402abc4b2a76b9719d911017c592";
+
+    private MinioService minioService;
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        minioService = mock(MinioService.class);
+        PhotoService photoService = mock(PhotoService.class);
+        when(photoService.findById("photo-1")).thenReturn(Optional.of(Photo.builder()
+                .id("photo-1")
+                .storageKey("174000/" + CONTENT_HASH + "_1740000000000.jpg")
+                .contentHash(CONTENT_HASH)
+                .originalFilename("pasta.jpg")
+                .contentType("image/jpeg")
+                .fileSize(10)
+                .uploadDate(LocalDateTime.of(2025, 1, 1, 12, 0))
+                .build()));
+
+        mockMvc = MockMvcBuilders.standaloneSetup(
+                new PhotoController(minioService, photoService, mock(RenditionService.class), new StreamingProperties(), Optional.empty())).build();
+    }
+
+    @Test
+    void servesFullContentWithValidators() throws Exception {
+        when(minioService.downloadFile(anyString())).thenReturn(new ByteArrayInputStream("0123456789".getBytes()));
+
+        performStreaming(get("/api/v1/photos/download/photo-1"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"" + CONTENT_HASH + "\""))
+                .andExpect(header().string(HttpHeaders.ACCEPT_RANGES, "bytes"))
+                .andExpect(header().exists(HttpHeaders.LAST_MODIFIED))
+                .andExpect(content().string("0123456789"));
+    }
+
+    @Test
+    void answersMatchingEtagWithNotModifiedWithoutTouchingStorage() throws Exception {
+        mockMvc.perform(get("/api/v1/photos/download/photo-1")
+                        .header(HttpHeaders.IF_NONE_MATCH, "\"" + CONTENT_HASH + "\""))
+                .andExpect(status().isNotModified());
+
+        verifyNoInteractions(minioService);
+    }
+
+    @Test
+    void mapsSingleRangeToPartialContent() throws Exception {
+        when(minioService.downloadFile(anyString(), eq(2L), eq(4L))).thenReturn(new ByteArrayInputStream("2345".getBytes()));
+
+        performStreaming(get("/api/v1/photos/download/photo-1").header(HttpHeaders.RANGE, "bytes=2-5"))
+                .andExpect(status().isPartialContent())
+                .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes 2-5/10"))
+                .andExpect(header().longValue(HttpHeaders.CONTENT_LENGTH, 4))
+                .andExpect(content().string("2345"));
+    }
+
+    @Test
+    void rejectsUnsatisfiableRange() throws Exception {
+        mockMvc.perform(get("/api/v1/photos/download/photo-1").header(HttpHeaders.RANGE, "bytes=20-30"))
+                .andExpect(status().isRequestedRangeNotSatisfiable())
+                .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes */10"));
+
+        verifyNoInteractions(minioService);
+    }
+
+    /**
+     * Bodies are streamed after the handler returns, so the content is only there after the async dispatch.
+     */
+    private ResultActions performStreaming(RequestBuilder request) throws Exception {
+        MvcResult result = mockMvc.perform(request)
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        return mockMvc.perform(asyncDispatch(result));
+    }
+}
@@ -0,0 +1,94 @@
+package dev.amirgol.biterate.domain.entites;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class OperatingHoursTests {
+
+    // 2025-06-09 is a Monday
+    private static LocalDateTime at(int dayOfJune, String time) {
+        return LocalDate.of(2025, 6, dayOfJune).atTime(LocalTime.parse(time));
+    }
+
+    private static TimeRange shift(String open, String close) {
+        return new TimeRange(LocalTime.parse(open), LocalTime.parse(close));
+    }
+
+    @Test
+    void supportsSeveralShiftsPerDay() {
+        OperatingHours hours = OperatingHours.builder()
+                .tuesday(List.of(shift("11:30", "14:30"), shift("18:00", "22:00")))
+                .build()
+                .indexRanges();
+
+        assertThat(hours.isOpenAt(at(10, "12:00"))).isTrue();
+        assertThat(hours.isOpenAt(at(10, "16:00"))).isFalse();
+        assertThat(hours.isOpenAt(at(10, "18:00"))).isTrue();
+        assertThat(hours.isOpenAt(at(10, "22:00"))).isFalse();
+        assertThat(hours.isOpenAt(at(9, "12:00"))).isFalse();
+    }
+
+    @Test
+    void carriesOvernightShiftIntoNextDay() {
+        OperatingHours hours = OperatingHours.builder()
+                .friday(List.of(shift("20:00", "02:00")))
+                .build()
+                .indexRanges();
+
+        assertThat(hours.isOpenAt(at(13, "23:59"))).isTrue();
+        assertThat(hours.isOpenAt(at(14, "01:30"))).isTrue();
+        assertThat(hours.isOpenAt(at(14, "02:00"))).isFalse();
+        assertThat(hours.isOpenAt(at(13, "01:30"))).isFalse();
+    }
+
+    @Test
+    void wrapsSundayNightIntoMonday() {
+        OperatingHours hours = OperatingHours.builder()
+                .sunday(List.of(shift("22:00", "03:00")))
+                .build()
+                .indexRanges();
+
+        assertThat(hours.getOpenRanges()).containsExactly(
+                new MinuteRange(0, 180),
+                new MinuteRange(OperatingHours.MINUTES_PER_WEEK - 120, OperatingHours.MINUTES_PER_WEEK));
+        assertThat(hours.isOpenAt(at(15, "23:00"))).isTrue();
+        assertThat(hours.isOpenAt(at(9, "02:59"))).isTrue();
+        assertThat(hours.isOpenAt(at(9, "03:00"))).isFalse();
+    }
+
+    @Test
+    void mergesOverlappingShiftsAndTreatsEqualTimesAsAllDay() {
+        OperatingHours hours = OperatingHours.builder()
+                .monday(List.of(shift("00:00", "00:00")))
+                .tuesday(List.of(shift("00:00", "10:00")))
+                .build()
+                .indexRanges();
+
+        assertThat(hours.getOpenRanges()).containsExactly(new MinuteRange(0, 24 * 60 + 600));
+        assertThat(hours.isOpenAt(at(9, "23:59"))).isTrue();
+        assertThat(hours.isOpenAt(at(10, "10:00"))).isFalse();
+    }
+
+    @Test
+    void decidesOpenNowOnTheRestaurantsClock() {
+        OperatingHours hours = OperatingHours.builder()
+                .timeZone("Asia/Tokyo")
+                .monday(List.of(shift("09:00", "17:00")))
+                .build()
+                .indexRanges();
+
+        assertThat(hours.isOpenAt(at(9, "10:00").atZone(ZoneId.of("Asia/Tokyo")).toInstant())).isTrue();
+        assertThat(hours.isOpenAt(at(9, "10:00").atZone(ZoneOffset.UTC).toInstant())).isFalse();
+        assertThatThrownBy(() -> OperatingHours.builder().timeZone("Mars/Olympus").build().indexRanges())
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,61 @@
+package dev.amirgol.biterate.service;
+
+import dev.amirgol.biterate.config.IndexLifecycleProperties.ManagedIndex;
+import dev.amirgol.biterate.domain.entites.Review;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.elasticsearch.core.convert.MappingElasticsearchConverter;
+import org.springframework.data.elasticsearch.core.document.Document;
+import org.springframework.data.elasticsearch.core.index.MappingBuilder;
+import org.springframework.data.elasticsearch.core.mapping.SimpleElasticsearchMappingContext;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class IndexLifecycleManagerTests {
+    private static final Map<String, Object> CLASS_FIELD = Map.of("type", "keyword", "index", false, "doc_values", false);
+
+    private static Document mappingOf(Class<?> entity) {
+        MappingBuilder builder = new MappingBuilder(new MappingElasticsearchConverter(new SimpleElasticsearchMappingContext()));
+        return Document.parse(builder.buildPropertyMapping(entity));
+    }
+
+    @Test
+    void reportsFieldsMappedDifferentlyFromTheEntity() {
+        Document expected = mappingOf(Review.class);
+        // As created before the mapping was managed: analyzed user ids and a nested author
+        Map<String, Object> live = Map.of("properties", Map.of(
+                "_class", CLASS_FIELD,
+                "restaurantId", Map.of("type", "keyword"),
+                "content", Map.of("type", "text"),
+                "rating", Map.of("type", "integer"),
+                "datePosted", Map.of("type", "date", "format", "date_hour_minute_second"),
+                "photoIds", Map.of("type", "keyword"),
+                "writtenBy", Map.of("type", "nested", "properties", Map.of(
+                        "_class", CLASS_FIELD,
+                        "id", Map.of("type", "text"),
+                        "username", Map.of("type", "text"),
+                        "firstName", Map.of("type", "text"),
+                        "familyName", Map.of("type", "text"))),
+                "lastEdited", Map.of("type", "date", "format", "date_hour_minute_second"),
+                "reviews", Map.of("type", "nested"))); // Not declared by the entity, so not a difference
+
+        assertThat(IndexLifecycleManager.differences(expected, live)).containsExactlyInAnyOrder(
+                "lastEdited has index true instead of false",
+                "lastEdited has doc_values true instead of false",
+                "writtenBy has type nested instead of object",
+                "writtenBy.id has type text instead of keyword",
+                "writtenBy.username has type text instead of keyword");
+        assertThat(IndexLifecycleManager.differences(expected, expected)).isEmpty();
+    }
+
+    @Test
+    void fingerprintChangesWithMappingOrShardCount() {
+        ManagedIndex settings = new ManagedIndex(1, 1, "1s");
+        String fingerprint = IndexLifecycleManager.fingerprint(mappingOf(Review.class), settings);
+
+        assertThat(IndexLifecycleManager.fingerprint(mappingOf(Review.class), new ManagedIndex(1, 2, "30s"))).isEqualTo(fingerprint);
+        assertThat(IndexLifecycleManager.fingerprint(mappingOf(Review.class), new ManagedIndex(3, 1, "1s"))).isNotEqualTo(fingerprint);
+        assertThat(IndexLifecycleManager.fingerprint(mappingOf(Review.class).append("dynamic", "strict"), settings)).isNotEqualTo(fingerprint);
+    }
+}
@@ -0,0 +1,96 @@
+package dev.amirgol.biterate.service;
+
+import dev.amirgol.biterate.domain.dto.RestaurantCard;
+import dev.amirgol.biterate.domain.entites.Address;
+import dev.amirgol.biterate.domain.entites.MinuteRange;
+import dev.amirgol.biterate.domain.entites.OperatingHours;
+import dev.amirgol.biterate.domain.entites.Restaurant;
+import dev.amirgol.biterate.domain.enums.CuisineType;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.elasticsearch.core.geo.GeoPoint;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RestaurantCardStoreTests {
+    private static final String ZONE = "Europe/Amsterdam";
+
+    // 2025-06-09 is a Monday
+    private static Instant at(int minuteOfWeek) {
+        return LocalDate.of(2025, 6, 9).atStartOfDay(ZoneId.of(ZONE)).plusMinutes(minuteOfWeek).toInstant();
+    }
+
+    private static Restaurant restaurant(String name, String city, List<MinuteRange> openRanges) {
+        return restaurant(name, city, openRanges, ZONE);
+    }
+
+    private static Restaurant restaurant(String name, String city, List<MinuteRange> openRanges, String timeZone) {
+        Address address = new Address();
+        address.setCity(city);
+        OperatingHours hours = null;
+        if (openRanges != null) {
+            hours = new OperatingHours();
+            hours.setTimeZone(timeZone);
+            hours.setOpenRanges(openRanges);
+        }
+        return Restaurant.builder()
+                .name(name)
+                .cuisineType(CuisineType.values()[0])
+                .averageRating(4.5f)
+                .geoLocation(new GeoPoint(52.37, 4.89))
+                .address(address)
+                .coverPhotoId("photo-1")
+                .operatingHours(hours)
+                .build();
+    }
+
+    @Test
+    void readsBackWhatWasStored() {
+        RestaurantCardStore store = new RestaurantCardStore(0);
+        store.put("a", restaurant("Café Één", "Amsterdam", List.of(new MinuteRange(600, 900))));
+        store.put("b", restaurant("Other", "Amsterdam", null));
+        store.put("a", restaurant("Café Één", "Utrecht", List.of(new MinuteRange(600, 900))));
+        store.put("c", restaurant("Diner", "New York", List.of(new MinuteRange(600, 900)), "America/New_York"));
+
+        List<RestaurantCard> cards = store.cards(List.of("a", "missing", "b", "c"), new double[]{1.5, 2, 3, 4}, at(700));
+
+        assertThat(cards).extracting(RestaurantCard::getId).containsExactly("a", "b", "c");
+        RestaurantCard card = cards.get(0);
+        assertThat(card.getName()).isEqualTo("Café Één");
+        assertThat(card.getCity()).isEqualTo("Utrecht");
+        assertThat(card.getCoverPhotoId()).isEqualTo("photo-1");
+        assertThat(card.getCuisineType()).isEqualTo(CuisineType.values()[0]);
+        assertThat(card.getAverageRating()).isEqualTo(4.5f);
+        assertThat(card.getLatitude()).isEqualTo(52.37);
+        assertThat(card.getDistanceKm()).isEqualTo(1.5);
+        assertThat(card.getOpenNow()).isTrue();
+        assertThat(cards.get(1).getOpenNow()).isNull();
+        assertThat(cards.get(2).getOpenNow()).as("05:40 in New York").isFalse();
+    }
+
+    @Test
+    void growsAndKeepsOpeningRangesBeyondTheInlineLimit() {
+        RestaurantCardStore store = new RestaurantCardStore(0);
+        List<MinuteRange> many = new ArrayList<>();
+        for (int i = 0; i <= RestaurantCardStore.INLINE_RANGES; i++) {
+            many.add(new MinuteRange(i * 100, i * 100 + 50));
+        }
+        for (int i = 0; i < 1_000; i++) {
+            store.put("r" + i, restaurant("Restaurant " + i, "City " + (i % 10), i == 999 ? many : null));
+        }
+
+        assertThat(store.size()).isEqualTo(1_000);
+        RestaurantCard last = store.cards(List.of("r999"), new double[]{0}, at(RestaurantCardStore.INLINE_RANGES * 100 + 10)).get(0);
+        assertThat(last.getName()).isEqualTo("Restaurant 999");
+        assertThat(last.getCity()).isEqualTo("City 9");
+        assertThat(last.getOpenNow()).isTrue();
+
+        store.remove("r999");
+        assertThat(store.cards(List.of("r999"), new double[]{0}, at(0))).isEmpty();
+    }
+}
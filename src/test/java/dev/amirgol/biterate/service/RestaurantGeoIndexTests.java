@@ -0,0 +1,89 @@
+package dev.amirgol.biterate.service;
+
+import dev.amirgol.biterate.domain.dto.NearbySearchRequest;
+import dev.amirgol.biterate.domain.enums.CuisineType;
+import dev.amirgol.biterate.repository.SearchCursor;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RestaurantGeoIndexTests {
+
+    private record Restaurant(String id, double latitude, double longitude, CuisineType cuisineType, Float rating) {
+    }
+
+    private static List<Restaurant> populate(RestaurantGeoIndex index, int count) {
+        Random random = new Random(42);
+        CuisineType[] cuisines = CuisineType.values();
+        List<Restaurant> restaurants = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Restaurant restaurant = new Restaurant("r" + i,
+                    52.3 + random.nextDouble() * 0.4,
+                    4.7 + random.nextDouble() * 0.4,
+                    cuisines[random.nextInt(cuisines.length)],
+                    random.nextInt(4) == 0 ? null : 1 + random.nextFloat() * 4);
+            index.put(restaurant.id(), restaurant.latitude(), restaurant.longitude(), restaurant.cuisineType(), restaurant.rating());
+            restaurants.add(restaurant);
+        }
+        return restaurants;
+    }
+
+    @Test
+    void matchesBruteForceAcrossPages() {
+        RestaurantGeoIndex index = new RestaurantGeoIndex(0.01, 0);
+        List<Restaurant> restaurants = populate(index, 5_000);
+        NearbySearchRequest request = NearbySearchRequest.builder()
+                .latitude(52.5).longitude(4.9).radiusKm(8.0).minRating(2.5f).size(25).build();
+
+        List<String> expected = restaurants.stream()
+                .filter(r -> r.rating() != null && r.rating() >= 2.5f)
+                .filter(r -> distance(request, r) <= 8.0)
+                .sorted(Comparator.comparingDouble((Restaurant r) -> distance(request, r)).thenComparing(Restaurant::id))
+                .map(Restaurant::id)
+                .toList();
+
+        List<String> paged = new ArrayList<>();
+        SearchCursor after = null;
+        List<RestaurantGeoIndex.Hit> page;
+        do {
+            page = index.search(request, after);
+            page.forEach(hit -> paged.add(hit.id()));
+            if (!page.isEmpty()) {
+                RestaurantGeoIndex.Hit last = page.get(page.size() - 1);
+                after = new SearchCursor(last.distanceKm(), last.id());
+            }
+        } while (page.size() == request.getSize());
+
+        assertThat(expected).isNotEmpty();
+        assertThat(paged).isEqualTo(expected);
+    }
+
+    @Test
+    void appliesBoundingBoxCuisineAndUpdates() {
+        RestaurantGeoIndex index = new RestaurantGeoIndex(0.05, 0);
+        index.put("inside", 10.0, 179.9, CuisineType.values()[0], 4f);
+        index.put("across", 10.0, -179.9, CuisineType.values()[0], 4f);
+        index.put("other-cuisine", 10.0, 179.95, CuisineType.values()[1], 4f);
+        NearbySearchRequest request = NearbySearchRequest.builder()
+                .latitude(10.0).longitude(179.95).top(10.5).bottom(9.5).left(179.5).right(-179.5)
+                .cuisineType(CuisineType.values()[0]).size(10).build();
+
+        assertThat(index.search(request, null)).extracting(RestaurantGeoIndex.Hit::id)
+                .containsExactly("inside", "across");
+
+        index.put("inside", 40.0, 0.0, CuisineType.values()[0], 4f);
+        index.remove("across");
+        assertThat(index.search(request, null)).isEmpty();
+        assertThat(index.size()).isEqualTo(2);
+    }
+
+    private static double distance(NearbySearchRequest request, Restaurant restaurant) {
+        return RestaurantGeoIndex.planeDistanceKm(request.getLatitude(), request.getLongitude(),
+                restaurant.latitude(), restaurant.longitude());
+    }
+}
@@ -0,0 +1,80 @@
+package dev.amirgol.biterate.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ReviewJournalTests {
+
+    @TempDir
+    Path directory;
+
+    private static byte[] line(int i) {
+        return ("{\"id\":\"review-" + i + "\"}").getBytes(StandardCharsets.UTF_8);
+    }
+
+    private long segments() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.count();
+        }
+    }
+
+    @Test
+    void replaysUnsettledEntriesAfterRestart() throws IOException {
+        ReviewJournal journal = new ReviewJournal(directory, 1024 * 1024);
+        List<CompletableFuture<ReviewJournal.Segment>> appends = IntStream.range(0, 50)
+                .mapToObj(i -> CompletableFuture.supplyAsync(() -> {
+                    try {
+                        return journal.append(line(i));
+                    } catch (IOException e) {
+                        throw new RuntimeException(e);
+                    }
+                }))
+                .toList();
+        appends.forEach(CompletableFuture::join);
+        // Simulates a crash: nothing settled, journal never closed, last line cut inside a nested object
+        Path segment = directory.resolve("reviews-0000000000000000.ndjson");
+        long complete = Files.size(segment);
+        Files.writeString(segment, "{\"id\":\"torn\",\"writtenBy\":{\"id\":\"user\"}", StandardOpenOption.APPEND);
+
+        ReviewJournal restarted = new ReviewJournal(directory, 1024 * 1024);
+        List<ReviewJournal.Entry> entries = restarted.recover();
+
+        assertThat(entries).hasSize(50);
+        assertThat(Files.size(segment)).isEqualTo(complete);
+        assertThat(entries).extracting(entry -> new String(entry.line(), StandardCharsets.UTF_8))
+                .contains("{\"id\":\"review-0\"}", "{\"id\":\"review-49\"}");
+        entries.forEach(entry -> restarted.settled(entry.segment()));
+        assertThat(segments()).isEqualTo(1); // Only the new active segment
+        restarted.close();
+        journal.close();
+    }
+
+    @Test
+    void deletesFullSegmentsOnceSettledUnlessRetained() throws IOException {
+        ReviewJournal journal = new ReviewJournal(directory, 10);
+        ReviewJournal.Segment first = journal.append(line(1));
+        ReviewJournal.Segment second = journal.append(line(2));
+        assertThat(first).isNotSameAs(second);
+        assertThat(segments()).isEqualTo(3);
+
+        journal.settled(first);
+        journal.retain(second);
+        journal.settled(second);
+        assertThat(segments()).isEqualTo(2);
+
+        journal.close();
+        assertThat(segments()).isEqualTo(1);
+    }
+}
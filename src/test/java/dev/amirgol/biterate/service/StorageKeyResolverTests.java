@@ -0,0 +1,66 @@
+package dev.amirgol.biterate.service;
+
+import dev.amirgol.biterate.config.MinioProperties;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class StorageKeyResolverTests {
+
+    private static final String CONTENT_HASH = "5d41402abc4b2a76b9719d911017c592";
+
+    private MinioProperties properties;
+
+    @BeforeEach
+    void setUp() {
+        properties = new MinioProperties();
+        properties.setBucket("photos");
+    }
+
+    @Test
+    void shardsByContentHash() {
+        HashPrefixKeyLayout layout = new HashPrefixKeyLayout(properties);
+
+        String objectName = layout.objectName(CONTENT_HASH, "jpg", Instant.ofEpochMilli(1_740_000_000_000L));
+
+        assertThat(objectName).isEqualTo("5d/41/" + CONTENT_HASH + "_1740000000000.jpg");
+        assertThat(layout.matches(objectName)).isTrue();
+        assertThat(layout.partitionOf(objectName)).isEqualTo("5d/");
+        assertThat(layout.matches("174000/" + CONTENT_HASH + "_1740000000000.jpg")).isFalse();
+    }
+
+    @Test
+    void partitionsByDayThenHash() {
+        DatePartitionedKeyLayout layout = new DatePartitionedKeyLayout(properties);
+
+        String objectName = layout.objectName(CONTENT_HASH, "jpg", Instant.parse("2025-06-09T23:30:00Z"));
+
+        assertThat(objectName).startsWith("2025/06/09/5d/41/" + CONTENT_HASH + "_");
+        assertThat(layout.matches(objectName)).isTrue();
+        assertThat(layout.partitionOf(objectName)).isEqualTo("2025/06/09/");
+    }
+
+    @Test
+    void routesNewKeysToDataBucketsAndOldKeysToDefaultBucket() {
+        properties.getLayout().setBuckets(List.of("photos-0", "photos-1", "photos-2"));
+        StorageKeyResolver resolver = new StorageKeyResolver(properties, new HashPrefixKeyLayout(properties));
+
+        String storageKey = resolver.newStorageKey(CONTENT_HASH, "jpg");
+        StorageKeyResolver.ObjectLocation location = resolver.locate(storageKey);
+
+        assertThat(location.bucket()).isEqualTo("photos-" + Integer.parseUnsignedInt("5d41402a", 16) % 3);
+        assertThat(storageKey).isEqualTo(location.bucket() + "/" + location.objectName());
+        assertThat(resolver.isCurrent(storageKey)).isTrue();
+        assertThat(resolver.partitionOf(storageKey)).isEqualTo(location.bucket() + "/5d/");
+
+        String legacyKey = "174000/" + CONTENT_HASH + "_1740000000000.jpg";
+        assertThat(resolver.locate(legacyKey)).isEqualTo(new StorageKeyResolver.ObjectLocation("photos", legacyKey));
+        assertThat(resolver.isCurrent(legacyKey)).isFalse();
+        assertThatThrownBy(() -> resolver.partitionOf(legacyKey)).isInstanceOf(IllegalArgumentException.class);
+    }
+}